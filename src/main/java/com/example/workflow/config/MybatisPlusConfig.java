@@ -1,8 +1,14 @@
 package com.example.workflow.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.OptimisticLockerInnerInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.example.workflow.service.IdService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,13 +19,30 @@ import org.springframework.context.annotation.Configuration;
 public class MybatisPlusConfig {
     
     /**
-     * 分页插件
+     * 分页插件、乐观锁插件
      */
     @Bean
     public MybatisPlusInterceptor mybatisPlusInterceptor() {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
         // 添加分页插件
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
+        // 添加乐观锁插件（@Version字段）
+        interceptor.addInnerInterceptor(new OptimisticLockerInnerInterceptor());
         return interceptor;
     }
+
+    /**
+     * IdType.ASSIGN_ID的主键生成器：按实体对应的表从号段领取主键
+     * IdService依赖Mapper，而Mapper的创建又依赖本生成器，所以延迟获取
+     */
+    @Bean
+    public IdentifierGenerator identifierGenerator(ObjectProvider<IdService> idService) {
+        return entity -> {
+            TableInfo tableInfo = TableInfoHelper.getTableInfo(entity.getClass());
+            if (tableInfo == null) {
+                throw new RuntimeException("实体未映射数据表：" + entity.getClass().getName());
+            }
+            return idService.getObject().nextId(tableInfo.getTableName());
+        };
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.workflow.config;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 后台工作线程工厂
+ * 统一创建调度器、历史写入、超时处理、消息推送等后台线程，均为平台守护线程，不阻止应用退出
+ */
+@Component
+public class WorkerThreadFactory {
+
+    /**
+     * 创建未启动的线程
+     */
+    public Thread newThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.workflow.controller;
+
+import com.example.workflow.vo.Result;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * 条件请求响应
+ * If-None-Match与当前ETag一致时直接返回304，不调用加载方法；否则加载数据并带上ETag。
+ * 只有成功的响应带ETag，业务异常由全局异常处理器返回，不会被客户端缓存；
+ * ETag为null（已关闭条件请求）时直接返回完整内容
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    static <T> ResponseEntity<Result<T>> of(WebRequest request, String etag, Supplier<T> loader) {
+        if (etag == null) {
+            return ResponseEntity.ok(Result.success(loader.get()));
+        }
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        T data = loader.get();
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .body(Result.success(data));
+    }
+
+    /**
+     * 弱比较：忽略代理压缩时加上的W/前缀
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -7,6 +7,7 @@ import com.example.workflow.entity.SysUser;
 import com.example.workflow.mapper.SysDeptMapper;
 import com.example.workflow.mapper.SysRoleMapper;
 import com.example.workflow.mapper.SysUserMapper;
+import com.example.workflow.service.OrgDirectoryService;
 import com.example.workflow.vo.DepartmentVO;
 import com.example.workflow.vo.Result;
 import com.example.workflow.vo.RoleVO;
@@ -15,6 +16,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -34,6 +36,7 @@ public class UserController {
     private final SysUserMapper userMapper;
     private final SysDeptMapper deptMapper;
     private final SysRoleMapper roleMapper;
+    private final OrgDirectoryService orgDirectoryService;
 
     @Operation(summary = "获取用户列表")
     @GetMapping
@@ -105,6 +108,14 @@ public class UserController {
         return Result.success(result);
     }
 
+    @Operation(summary = "重新加载组织架构",
+        description = "用户、部门、角色由外部系统维护，写入后调用使审批人解析立即使用新数据，不必等待定时检测")
+    @PostMapping("/directory/reload")
+    public Result<Void> reloadDirectory() {
+        orgDirectoryService.reload();
+        return Result.success();
+    }
+
     /**
      * 转换为UserVO
      */
@@ -2,6 +2,7 @@ package com.example.workflow.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.workflow.service.WorkflowCcService;
+import com.example.workflow.vo.CursorPage;
 import com.example.workflow.vo.Result;
 import com.example.workflow.vo.WorkflowCcVO;
 import io.swagger.v3.oas.annotations.Operation;
@@ -30,6 +31,17 @@ public class WorkflowCcController {
         return Result.success(page);
     }
 
+    @Operation(summary = "获取我的抄送（游标分页，第一页传空游标）")
+    @GetMapping(value = "/my", params = "cursor")
+    public Result<CursorPage<WorkflowCcVO>> getMyCcByCursor(
+            @RequestParam String userId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        CursorPage<WorkflowCcVO> page = workflowCcService.getMyCcByCursor(userId, cursor, pageSize, withTotal);
+        return Result.success(page);
+    }
+
     @Operation(summary = "标记为已读")
     @PostMapping("/{id}/read")
     public Result<Void> markAsRead(@PathVariable Long id) {
@@ -2,15 +2,23 @@ package com.example.workflow.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.workflow.dto.*;
+import com.example.workflow.service.ContentVersionService;
+import com.example.workflow.service.InstanceDispatcher;
+import com.example.workflow.service.WorkflowBulkService;
 import com.example.workflow.service.WorkflowService;
 import com.example.workflow.vo.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -23,6 +31,9 @@ import java.util.List;
 public class WorkflowController {
     
     private final WorkflowService workflowService;
+    private final InstanceDispatcher instanceDispatcher;
+    private final WorkflowBulkService workflowBulkService;
+    private final ContentVersionService contentVersionService;
     
     @Operation(summary = "创建工作流定义")
     @PostMapping("/definition")
@@ -55,9 +66,9 @@ public class WorkflowController {
     
     @Operation(summary = "获取工作流详情")
     @GetMapping("/definition/{id}")
-    public Result<WorkflowDetailVO> getWorkflowDetail(@PathVariable Long id) {
-        WorkflowDetailVO detail = workflowService.getWorkflowDetail(id);
-        return Result.success(detail);
+    public ResponseEntity<Result<WorkflowDetailVO>> getWorkflowDetail(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.of(request, contentVersionService.definitionETag(id),
+            () -> workflowService.getWorkflowDetail(id));
     }
     
     @Operation(summary = "获取流程定义列表")
@@ -77,9 +88,9 @@ public class WorkflowController {
 
     @Operation(summary = "获取工作流配置")
     @GetMapping("/definition/{id}/config")
-    public Result<WorkflowConfigDTO> getConfig(@PathVariable Long id) {
-        WorkflowConfigDTO config = workflowService.getWorkflowConfig(id);
-        return Result.success(config);
+    public ResponseEntity<Result<WorkflowConfigDTO>> getConfig(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.of(request, contentVersionService.configETag(id),
+            () -> workflowService.getWorkflowConfig(id));
     }
 
     @Operation(summary = "启动工作流")
@@ -89,19 +100,35 @@ public class WorkflowController {
         return Result.success(instanceId);
     }
     
+    @Operation(summary = "批量启动工作流",
+        description = "请求体为WorkflowStartDTO的JSON数组或NDJSON（每行一个），按批提交，返回每一条的结果")
+    @PostMapping(value = "/instance/start/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public Result<List<BatchItemResultVO>> startWorkflows(HttpServletRequest request) throws IOException {
+        List<BatchItemResultVO> results = workflowBulkService.startWorkflows(request.getInputStream());
+        return Result.success(results);
+    }
+    
     @Operation(summary = "审批任务")
     @PostMapping("/task/{taskId}/approve")
     public Result<Void> approveTask(@PathVariable Long taskId, 
                                     @Valid @RequestBody TaskApproveDTO dto) {
-        workflowService.approveTask(taskId, dto);
+        instanceDispatcher.approveTask(taskId, dto);
         return Result.success();
     }
     
+    @Operation(summary = "批量审批任务",
+        description = "传入taskIds时处理指定任务，否则按workflowId、nodeId筛选操作人的待办任务；返回每个任务的结果")
+    @PostMapping("/task/approve/batch")
+    public Result<List<BatchItemResultVO>> approveTasks(@Valid @RequestBody BatchTaskApproveDTO dto) {
+        List<BatchItemResultVO> results = workflowBulkService.approveTasks(dto);
+        return Result.success(results);
+    }
+    
     @Operation(summary = "转交任务")
     @PostMapping("/task/{taskId}/transfer")
     public Result<Void> transferTask(@PathVariable Long taskId, 
                                      @Valid @RequestBody TaskTransferDTO dto) {
-        workflowService.transferTask(taskId, dto);
+        instanceDispatcher.transferTask(taskId, dto);
         return Result.success();
     }
     
@@ -109,7 +136,7 @@ public class WorkflowController {
     @PostMapping("/instance/{instanceId}/cancel")
     public Result<Void> cancelInstance(@PathVariable Long instanceId, 
                                        @RequestParam String reason) {
-        workflowService.cancelInstance(instanceId, reason);
+        instanceDispatcher.cancelInstance(instanceId, reason);
         return Result.success();
     }
     
@@ -120,6 +147,13 @@ public class WorkflowController {
         return Result.success(page);
     }
     
+    @Operation(summary = "获取我的待办任务（游标分页，第一页传空游标）")
+    @GetMapping(value = "/task/pending", params = "cursor")
+    public Result<CursorPage<TaskVO>> getMyPendingTasksByCursor(@Valid TaskQueryDTO query) {
+        CursorPage<TaskVO> page = workflowService.getMyPendingTasksByCursor(query);
+        return Result.success(page);
+    }
+    
     @Operation(summary = "获取我发起的流程")
     @GetMapping("/instance/my")
     public Result<Page<InstanceVO>> getMyInstances(@Valid InstanceQueryDTO query) {
@@ -127,6 +161,13 @@ public class WorkflowController {
         return Result.success(page);
     }
     
+    @Operation(summary = "获取我发起的流程（游标分页，第一页传空游标）")
+    @GetMapping(value = "/instance/my", params = "cursor")
+    public Result<CursorPage<InstanceVO>> getMyInstancesByCursor(@Valid InstanceQueryDTO query) {
+        CursorPage<InstanceVO> page = workflowService.getMyInstancesByCursor(query);
+        return Result.success(page);
+    }
+    
     @Operation(summary = "获取流程实例详情")
     @GetMapping("/instance/{instanceId}")
     public Result<InstanceDetailVO> getInstanceDetail(@PathVariable Long instanceId) {
@@ -143,16 +184,18 @@ public class WorkflowController {
 
     @Operation(summary = "获取流程实例表单数据")
     @GetMapping("/instance/{instanceId}/form")
-    public Result<InstanceFormDataVO> getInstanceFormData(@PathVariable Long instanceId) {
-        InstanceFormDataVO formData = workflowService.getInstanceFormData(instanceId);
-        return Result.success(formData);
+    public ResponseEntity<Result<InstanceFormDataVO>> getInstanceFormData(@PathVariable Long instanceId,
+                                                                          WebRequest request) {
+        return ConditionalResponses.of(request, contentVersionService.instanceETag(instanceId),
+            () -> workflowService.getInstanceFormData(instanceId));
     }
 
     @Operation(summary = "获取流程实例流程图")
     @GetMapping("/instance/{instanceId}/graph")
-    public Result<InstanceGraphVO> getInstanceGraph(@PathVariable Long instanceId) {
-        InstanceGraphVO graph = workflowService.getInstanceGraph(instanceId);
-        return Result.success(graph);
+    public ResponseEntity<Result<InstanceGraphVO>> getInstanceGraph(@PathVariable Long instanceId,
+                                                                    WebRequest request) {
+        return ConditionalResponses.of(request, contentVersionService.instanceETag(instanceId),
+            () -> workflowService.getInstanceGraph(instanceId));
     }
 
     @Operation(summary = "获取流程实例任务列表")
@@ -0,0 +1,37 @@
+package com.example.workflow.controller;
+
+import com.example.workflow.service.WorkflowEventService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 消息推送控制器
+ */
+@Tag(name = "消息推送")
+@RestController
+@RequestMapping("/api/workflow/events")
+@RequiredArgsConstructor
+public class WorkflowEventController {
+
+    private final WorkflowEventService workflowEventService;
+
+    @Operation(summary = "订阅待办和抄送变更",
+        description = "Server-Sent Events：TASK_CREATED、TASK_COMPLETED、CC_CREATED，数据为JSON；"
+            + "连接超时后客户端自动重连并带上Last-Event-ID，服务端补发断开期间的事件；"
+            + "收到RESYNC表示可能漏掉了事件，需重新加载待办和抄送列表")
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam String userId,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // 关闭Nginx代理缓冲，事件立即送达
+        response.setHeader("X-Accel-Buffering", "no");
+        return workflowEventService.subscribe(userId, lastEventId);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.workflow.controller;
+
+import com.example.workflow.dto.ExportQueryDTO;
+import com.example.workflow.dto.enums.ExportFormat;
+import com.example.workflow.service.WorkflowExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 数据导出控制器
+ */
+@Tag(name = "数据导出")
+@RestController
+@RequestMapping("/api/workflow/export")
+@RequiredArgsConstructor
+public class WorkflowExportController {
+
+    private final WorkflowExportService workflowExportService;
+
+    @Operation(summary = "导出流程数据",
+        description = "table：workflow_instance、workflow_task、workflow_history；时间格式yyyy-MM-dd HH:mm:ss，范围左闭右开")
+    @GetMapping("/{table}")
+    public void export(@PathVariable String table, ExportQueryDTO query, HttpServletResponse response)
+            throws IOException {
+        // 参数错误在写出前抛出，由全局异常处理器返回错误信息
+        ExportFormat format = workflowExportService.validate(table, query);
+
+        String fileName = table + "_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"))
+            + (format == ExportFormat.CSV ? ".csv" : ".ndjson");
+        if (query.isGzip()) {
+            fileName += ".gz";
+            response.setContentType("application/gzip");
+        } else if (format == ExportFormat.CSV) {
+            response.setContentType("text/csv;charset=UTF-8");
+        } else {
+            response.setContentType("application/x-ndjson;charset=UTF-8");
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        workflowExportService.export(table, query, response.getOutputStream());
+    }
+}
@@ -2,6 +2,7 @@ package com.example.workflow.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.workflow.dto.WorkflowFormDTO;
+import com.example.workflow.service.ContentVersionService;
 import com.example.workflow.service.WorkflowFormService;
 import com.example.workflow.vo.Result;
 import com.example.workflow.vo.WorkflowFormVO;
@@ -9,7 +10,9 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * 工作流表单控制器
@@ -21,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 public class WorkflowFormController {
 
     private final WorkflowFormService workflowFormService;
+    private final ContentVersionService contentVersionService;
 
     @Operation(summary = "创建表单")
     @PostMapping
@@ -46,9 +50,9 @@ public class WorkflowFormController {
 
     @Operation(summary = "获取表单详情")
     @GetMapping("/{id}")
-    public Result<WorkflowFormVO> getFormDetail(@PathVariable Long id) {
-        WorkflowFormVO form = workflowFormService.getFormDetail(id);
-        return Result.success(form);
+    public ResponseEntity<Result<WorkflowFormVO>> getFormDetail(@PathVariable Long id, WebRequest request) {
+        return ConditionalResponses.of(request, contentVersionService.formETag(id),
+            () -> workflowFormService.getFormDetail(id));
     }
 
     @Operation(summary = "获取表单列表")
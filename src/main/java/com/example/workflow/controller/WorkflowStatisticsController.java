@@ -0,0 +1,52 @@
+package com.example.workflow.controller;
+
+import com.example.workflow.service.WorkflowAnalyticsService;
+import com.example.workflow.service.WorkflowStatisticsService;
+import com.example.workflow.vo.NodeBottleneckVO;
+import com.example.workflow.vo.Result;
+import com.example.workflow.vo.WorkflowStatisticsVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 工作流统计控制器
+ */
+@Tag(name = "工作流统计")
+@RestController
+@RequestMapping("/api/workflow/statistics")
+@RequiredArgsConstructor
+public class WorkflowStatisticsController {
+
+    private final WorkflowStatisticsService workflowStatisticsService;
+    private final WorkflowAnalyticsService workflowAnalyticsService;
+
+    @Operation(summary = "获取用户统计")
+    @GetMapping("/user/{userId}")
+    public Result<WorkflowStatisticsVO> getUserStatistics(@PathVariable String userId) {
+        return Result.success(workflowStatisticsService.getUserStatistics(userId));
+    }
+
+    @Operation(summary = "获取工作流统计")
+    @GetMapping("/workflow/{workflowId}")
+    public Result<WorkflowStatisticsVO> getWorkflowStatistics(@PathVariable Long workflowId) {
+        return Result.success(workflowStatisticsService.getWorkflowStatistics(workflowId));
+    }
+
+    @Operation(summary = "获取全局统计")
+    @GetMapping("/global")
+    public Result<WorkflowStatisticsVO> getGlobalStatistics() {
+        return Result.success(workflowStatisticsService.getGlobalStatistics());
+    }
+
+    @Operation(summary = "获取节点瓶颈报告", description = "按节点停留时间P95从高到低排序，耗时单位毫秒")
+    @GetMapping("/bottlenecks")
+    public Result<List<NodeBottleneckVO>> getBottlenecks(
+            @RequestParam(required = false) Long workflowId,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        return Result.success(workflowAnalyticsService.getBottlenecks(workflowId, limit));
+    }
+}
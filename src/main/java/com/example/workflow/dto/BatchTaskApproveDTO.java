@@ -0,0 +1,64 @@
+package com.example.workflow.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量审批DTO
+ * 传入taskIds时处理指定任务，否则按筛选条件处理操作人的待办任务
+ */
+@Data
+public class BatchTaskApproveDTO {
+
+    /**
+     * 审批结果
+     * true-同意，false-拒绝
+     */
+    @NotNull(message = "审批结果不能为空")
+    private Boolean approved;
+
+    /**
+     * 操作人用户ID，只能处理分配给自己的任务
+     */
+    @NotBlank(message = "操作人ID不能为空")
+    private String operatorId;
+
+    /**
+     * 操作人姓名
+     */
+    @NotBlank(message = "操作人姓名不能为空")
+    private String operatorName;
+
+    /**
+     * 审批意见，应用于所有任务
+     */
+    private String comment;
+
+    /**
+     * 附件（JSON格式），应用于所有任务
+     */
+    private String attachments;
+
+    /**
+     * 要处理的任务ID
+     */
+    private List<Long> taskIds;
+
+    /**
+     * 筛选条件：工作流定义ID
+     */
+    private Long workflowId;
+
+    /**
+     * 筛选条件：节点ID
+     */
+    private Long nodeId;
+
+    /**
+     * 按筛选条件处理时的最大任务数
+     */
+    private Integer limit = 500;
+}
@@ -0,0 +1,35 @@
+package com.example.workflow.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 数据导出查询DTO
+ */
+@Data
+public class ExportQueryDTO {
+
+    /**
+     * 开始时间（包含），为空时不限
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime from;
+
+    /**
+     * 结束时间（不包含），为空时不限
+     */
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime to;
+
+    /**
+     * 导出格式：NDJSON、CSV
+     */
+    private String format = "NDJSON";
+
+    /**
+     * 是否gzip压缩
+     */
+    private boolean gzip;
+}
@@ -0,0 +1,57 @@
+package com.example.workflow.dto;
+
+import lombok.Getter;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 分页游标
+ * 由排序时间和记录ID组成，编码为不透明字符串返回给前端，下一页从该位置之后继续查询
+ */
+@Getter
+public final class PageCursor {
+
+    /**
+     * 上一页最后一条记录的排序时间
+     */
+    private final LocalDateTime time;
+
+    /**
+     * 上一页最后一条记录的ID
+     */
+    private final Long id;
+
+    private PageCursor(LocalDateTime time, Long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public static PageCursor of(LocalDateTime time, Long id) {
+        return new PageCursor(time, id);
+    }
+
+    /**
+     * 解析游标，空字符串表示第一页，返回null
+     */
+    public static PageCursor decode(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new PageCursor(LocalDateTime.parse(value.substring(0, separator)),
+                Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("分页游标无效");
+        }
+    }
+
+    public String encode() {
+        String value = time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
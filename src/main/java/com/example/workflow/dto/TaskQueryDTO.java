@@ -24,4 +24,14 @@ public class TaskQueryDTO {
      * 每页数量
      */
     private Integer pageSize = 10;
+
+    /**
+     * 分页游标，传入时按游标分页（第一页传空字符串），忽略pageNum
+     */
+    private String cursor;
+
+    /**
+     * 游标分页时是否统计总数
+     */
+    private boolean withTotal;
 }
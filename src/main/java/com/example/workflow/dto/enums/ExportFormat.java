@@ -0,0 +1,9 @@
+package com.example.workflow.dto.enums;
+
+/**
+ * 导出格式枚举
+ */
+public enum ExportFormat {
+    NDJSON,     // 每行一个JSON对象
+    CSV         // 逗号分隔，首行为列名
+}
@@ -8,5 +8,7 @@ public enum NodeType {
     APPROVE,    // 审批节点
     CC,         // 抄送节点
     CONDITION,  // 条件节点
+    PARALLEL_SPLIT,  // 并行分支节点
+    PARALLEL_JOIN,   // 并行汇聚节点
     END         // 结束节点
 }
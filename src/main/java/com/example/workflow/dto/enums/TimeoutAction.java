@@ -0,0 +1,11 @@
+package com.example.workflow.dto.enums;
+
+/**
+ * 审批超时处理方式枚举
+ */
+public enum TimeoutAction {
+    REMIND,       // 提醒审批人
+    AUTO_PASS,    // 自动通过
+    ESCALATE,     // 转交给审批人的上级
+    AUTO_REJECT   // 自动拒绝
+}
@@ -0,0 +1,12 @@
+package com.example.workflow.dto.enums;
+
+/**
+ * 流程令牌状态枚举
+ */
+public enum TokenStatus {
+    ACTIVE,     // 活动
+    WAITING,    // 等待分支汇聚
+    JOINED,     // 已汇聚
+    COMPLETED,  // 已完成
+    CANCELED    // 已取消
+}
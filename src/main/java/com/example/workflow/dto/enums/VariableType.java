@@ -0,0 +1,13 @@
+package com.example.workflow.dto.enums;
+
+/**
+ * 流程变量类型枚举
+ */
+public enum VariableType {
+    STRING,     // 字符串
+    NUMBER,     // 数字
+    BOOLEAN,    // 布尔
+    DATE,       // 日期（按字符串存储）
+    JSON,       // 对象或数组（按JSON存储）
+    NULL        // 空值
+}
@@ -0,0 +1,11 @@
+package com.example.workflow.dto.enums;
+
+/**
+ * 推送事件类型枚举
+ */
+public enum WorkflowEventType {
+    TASK_CREATED,    // 新待办
+    TASK_COMPLETED,  // 待办已处理（同意、拒绝、转交或被取消）
+    CC_CREATED,      // 新抄送
+    RESYNC           // 可能漏掉了事件，需重新加载待办和抄送列表
+}
@@ -0,0 +1,121 @@
+package com.example.workflow.engine;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图
+ * 对数-线性分桶（与HdrHistogram相同的思路）：每个2的幂区间再等分为32个子桶，相对误差约3%，
+ * 0~31毫秒精确记录。桶数固定，记录为O(1)且无锁，可在多线程间并发记录
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * 覆盖全部非负long值所需的桶数
+     */
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder totalCount = new LongAdder();
+
+    private final LongAdder totalMillis = new LongAdder();
+
+    private final LongAccumulator maxMillis = new LongAccumulator(Long::max, 0);
+
+    /**
+     * 记录一次耗时（毫秒），负值按0处理
+     */
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        totalMillis.add(value);
+        maxMillis.accumulate(value);
+    }
+
+    /**
+     * 当前分布的快照
+     */
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = counts.get(i);
+            count += buckets[i];
+        }
+        long max = maxMillis.get();
+        long recorded = totalCount.sum();
+        long mean = recorded > 0 ? totalMillis.sum() / recorded : 0;
+        return new Snapshot(count, mean, max,
+            percentile(buckets, count, 0.50, max),
+            percentile(buckets, count, 0.95, max),
+            percentile(buckets, count, 0.99, max));
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * 桶内的最大值
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private static long percentile(long[] buckets, long count, double quantile, long max) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 分布快照（毫秒）
+     */
+    @Getter
+    public static final class Snapshot {
+
+        private final long count;
+        private final long mean;
+        private final long max;
+        private final long p50;
+        private final long p95;
+        private final long p99;
+
+        Snapshot(long count, long mean, long max, long p50, long p95, long p99) {
+            this.count = count;
+            this.mean = mean;
+            this.max = max;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+        }
+    }
+}
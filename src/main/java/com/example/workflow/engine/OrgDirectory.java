@@ -0,0 +1,211 @@
+package com.example.workflow.engine;
+
+import com.example.workflow.entity.SysDept;
+import com.example.workflow.entity.SysRole;
+import com.example.workflow.entity.SysUser;
+import com.example.workflow.entity.SysUserRole;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 组织架构快照
+ * 由用户、部门、角色和用户角色关联一次性构建，构建完成后不可变，可在多线程间共享
+ * 用户按ID升序存放在并行数组中，角色、部门到用户的索引均为用户ID数组，审批人解析时只做内存查找
+ */
+public final class OrgDirectory {
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * 空快照
+     */
+    public static final OrgDirectory EMPTY_DIRECTORY = new OrgDirectory(0, EMPTY, new String[0], EMPTY,
+        Collections.emptyMap(), Collections.emptyMap());
+
+    /**
+     * 快照版本号，每次重建递增
+     */
+    @Getter
+    private final long version;
+
+    /**
+     * 用户ID（升序）
+     */
+    private final long[] userIds;
+
+    /**
+     * 用户姓名，与userIds下标对应
+     */
+    private final String[] userNames;
+
+    /**
+     * 用户上级领导ID（所在部门负责人），与userIds下标对应，0表示无
+     */
+    private final long[] leaderIds;
+
+    /**
+     * 角色编码 -> 用户ID
+     */
+    private final Map<String, long[]> usersByRole;
+
+    /**
+     * 部门ID -> 用户ID
+     */
+    private final Map<Long, long[]> usersByDept;
+
+    private OrgDirectory(long version, long[] userIds, String[] userNames, long[] leaderIds,
+                         Map<String, long[]> usersByRole, Map<Long, long[]> usersByDept) {
+        this.version = version;
+        this.userIds = userIds;
+        this.userNames = userNames;
+        this.leaderIds = leaderIds;
+        this.usersByRole = usersByRole;
+        this.usersByDept = usersByDept;
+    }
+
+    /**
+     * 用户是否存在
+     */
+    public boolean containsUser(long userId) {
+        return Arrays.binarySearch(userIds, userId) >= 0;
+    }
+
+    /**
+     * 用户姓名，用户不存在时返回null
+     */
+    public String getUserName(long userId) {
+        int index = Arrays.binarySearch(userIds, userId);
+        return index >= 0 ? userNames[index] : null;
+    }
+
+    /**
+     * 用户的上级领导ID，没有时返回0
+     */
+    public long getLeaderId(long userId) {
+        int index = Arrays.binarySearch(userIds, userId);
+        return index >= 0 ? leaderIds[index] : 0;
+    }
+
+    /**
+     * 拥有该角色的用户ID（只读，调用方不得修改）
+     */
+    public long[] getUsersByRole(String roleCode) {
+        long[] ids = roleCode != null ? usersByRole.get(roleCode) : null;
+        return ids != null ? ids : EMPTY;
+    }
+
+    /**
+     * 部门下的用户ID（只读，调用方不得修改）
+     */
+    public long[] getUsersByDept(long deptId) {
+        long[] ids = usersByDept.get(deptId);
+        return ids != null ? ids : EMPTY;
+    }
+
+    /**
+     * 用户数量
+     */
+    public int getUserCount() {
+        return userIds.length;
+    }
+
+    /**
+     * 构建组织架构快照
+     */
+    public static OrgDirectory build(long version, List<SysUser> users, List<SysDept> depts,
+                                     List<SysRole> roles, List<SysUserRole> userRoles) {
+        List<SysUser> sorted = new ArrayList<>(users.size());
+        for (SysUser user : users) {
+            if (user.getId() != null) {
+                sorted.add(user);
+            }
+        }
+        sorted.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+
+        int userCount = sorted.size();
+        long[] userIds = new long[userCount];
+        String[] userNames = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            userIds[i] = sorted.get(i).getId();
+            userNames[i] = sorted.get(i).getRealName();
+        }
+
+        // 部门负责人，负责人必须是有效用户
+        Map<Long, Long> deptLeader = new HashMap<>(depts.size() * 2);
+        for (SysDept dept : depts) {
+            if (dept.getId() != null && dept.getLeaderId() != null
+                && Arrays.binarySearch(userIds, dept.getLeaderId()) >= 0) {
+                deptLeader.put(dept.getId(), dept.getLeaderId());
+            }
+        }
+
+        // 部门 -> 用户，用户 -> 上级领导
+        long[] leaderIds = new long[userCount];
+        Map<Long, LongList> deptUsers = new HashMap<>();
+        for (int i = 0; i < userCount; i++) {
+            Long deptId = sorted.get(i).getDeptId();
+            if (deptId == null) {
+                continue;
+            }
+            deptUsers.computeIfAbsent(deptId, k -> new LongList()).add(userIds[i]);
+            Long leaderId = deptLeader.get(deptId);
+            leaderIds[i] = leaderId != null ? leaderId : 0;
+        }
+
+        // 角色 -> 用户，只保留有效角色和有效用户
+        Map<Long, String> roleCodes = new HashMap<>(roles.size() * 2);
+        for (SysRole role : roles) {
+            if (role.getId() != null && role.getRoleCode() != null) {
+                roleCodes.put(role.getId(), role.getRoleCode());
+            }
+        }
+        Map<String, LongList> roleUsers = new HashMap<>();
+        for (SysUserRole userRole : userRoles) {
+            String roleCode = roleCodes.get(userRole.getRoleId());
+            if (roleCode != null && userRole.getUserId() != null
+                && Arrays.binarySearch(userIds, userRole.getUserId()) >= 0) {
+                roleUsers.computeIfAbsent(roleCode, k -> new LongList()).add(userRole.getUserId());
+            }
+        }
+
+        return new OrgDirectory(version, userIds, userNames, leaderIds,
+            freeze(roleUsers), freeze(deptUsers));
+    }
+
+    private static <K> Map<K, long[]> freeze(Map<K, LongList> source) {
+        Map<K, long[]> result = new HashMap<>(source.size() * 2);
+        for (Map.Entry<K, LongList> entry : source.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toSortedArray());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * 构建期使用的long动态数组
+     */
+    private static final class LongList {
+
+        private long[] values = new long[8];
+
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toSortedArray() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package com.example.workflow.engine;
+
+import com.example.workflow.dto.enums.ApproveMode;
+import com.example.workflow.dto.enums.NodeType;
+import com.example.workflow.engine.expression.ConditionExpression;
+import com.example.workflow.engine.expression.VariableResolver;
+import com.example.workflow.entity.WorkflowApprover;
+import com.example.workflow.entity.WorkflowEdge;
+import com.example.workflow.entity.WorkflowNode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 编译后的流程图
+ * 由流程定义的节点、连线和审批人配置一次性构建，构建完成后不可变，可在多线程间共享
+ * 节点按下标存放，出边按优先级预先排序，引擎路由时只做内存查找
+ */
+@Slf4j
+public final class ProcessGraph {
+
+    /**
+     * 工作流定义ID
+     */
+    @Getter
+    private final Long workflowId;
+
+    /**
+     * 图版本号
+     * 每次构建递增，用于区分同一流程定义的不同编译结果
+     */
+    @Getter
+    private final long version;
+
+    /**
+     * 开始节点下标，-1表示未配置开始节点
+     */
+    @Getter
+    private final int startIndex;
+
+    /**
+     * 是否包含并行网关，不包含时引擎无需维护流程令牌
+     */
+    @Getter
+    private final boolean parallel;
+
+    private final Node[] nodes;
+
+    private final Map<Long, Integer> indexById;
+
+    private ProcessGraph(Long workflowId, long version, Node[] nodes, Map<Long, Integer> indexById, int startIndex,
+                         boolean parallel) {
+        this.workflowId = workflowId;
+        this.version = version;
+        this.nodes = nodes;
+        this.indexById = indexById;
+        this.startIndex = startIndex;
+        this.parallel = parallel;
+    }
+
+    /**
+     * 根据节点ID获取节点，不存在时返回null
+     */
+    public Node getNode(Long nodeId) {
+        Integer index = nodeId != null ? indexById.get(nodeId) : null;
+        return index != null ? nodes[index] : null;
+    }
+
+    /**
+     * 根据下标获取节点
+     */
+    public Node getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * 节点数量
+     */
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * 获取开始节点
+     */
+    public Node getStartNode() {
+        if (startIndex < 0) {
+            throw new RuntimeException("未找到开始节点");
+        }
+        return nodes[startIndex];
+    }
+
+    /**
+     * 构建流程图
+     */
+    public static ProcessGraph build(Long workflowId, long version, List<WorkflowNode> nodeList,
+                                     List<WorkflowEdge> edgeList, List<WorkflowApprover> approverList) {
+        int nodeCount = nodeList.size();
+        Map<Long, Integer> indexById = new HashMap<>(nodeCount * 2);
+        for (int i = 0; i < nodeCount; i++) {
+            indexById.put(nodeList.get(i).getId(), i);
+        }
+
+        // 审批人配置按节点分组
+        Map<Long, List<Approver>> approversByNode = new HashMap<>();
+        for (WorkflowApprover approver : approverList) {
+            approversByNode.computeIfAbsent(approver.getNodeId(), k -> new ArrayList<>())
+                .add(new Approver(approver));
+        }
+
+        // 出边按源节点分组，并按优先级排序（数字越小优先级越高）
+        List<List<WorkflowEdge>> outEdges = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            outEdges.add(new ArrayList<>(2));
+        }
+        for (WorkflowEdge edge : edgeList) {
+            Integer source = indexById.get(edge.getSourceNodeId());
+            if (source == null || !indexById.containsKey(edge.getTargetNodeId())) {
+                log.warn("流程 {} 的连线 {} 引用了不存在的节点，已忽略", workflowId, edge.getId());
+                continue;
+            }
+            outEdges.get(source).add(edge);
+        }
+        Comparator<WorkflowEdge> edgeOrder = Comparator
+            .comparing((WorkflowEdge e) -> e.getPriority() != null ? e.getPriority() : 0)
+            .thenComparing(e -> e.getId() != null ? e.getId() : 0L);
+
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            WorkflowNode node = nodeList.get(i);
+            List<WorkflowEdge> sorted = outEdges.get(i);
+            sorted.sort(edgeOrder);
+            Edge[] edges = new Edge[sorted.size()];
+            for (int j = 0; j < edges.length; j++) {
+                WorkflowEdge edge = sorted.get(j);
+                edges[j] = new Edge(edge.getId(), i, indexById.get(edge.getTargetNodeId()),
+                    edge.getTargetNodeId(), edge.getConditionExpr(),
+                    compileCondition(workflowId, edge.getId(), edge.getConditionExpr()), edge.getPriority());
+            }
+            List<Approver> approvers = approversByNode.getOrDefault(node.getId(), Collections.emptyList());
+            nodes[i] = new Node(i, node, edges, approvers, parseTimeout(workflowId, node));
+        }
+        return assemble(workflowId, version, nodes);
+    }
+
+    /**
+     * 由已按下标排列的节点组装流程图，供构建和编译产物解码共用
+     */
+    static ProcessGraph assemble(Long workflowId, long version, Node[] nodes) {
+        Map<Long, Integer> indexById = new HashMap<>(nodes.length * 2);
+        int startIndex = -1;
+        boolean parallel = false;
+        for (int i = 0; i < nodes.length; i++) {
+            indexById.put(nodes[i].getId(), i);
+            if (startIndex < 0 && nodes[i].getType() == NodeType.START) {
+                startIndex = i;
+            }
+            parallel |= nodes[i].getType() == NodeType.PARALLEL_SPLIT;
+        }
+        return new ProcessGraph(workflowId, version, nodes, Collections.unmodifiableMap(indexById), startIndex,
+            parallel);
+    }
+
+    /**
+     * 发布前校验流程结构：连线条件都能编译，所有节点都能从开始节点到达，且都能到达结束节点，
+     * 每个并行分支节点的各分支都汇聚到同一个并行汇聚节点
+     * 条件连线按可能走通处理；运行时没有满足条件的分支时，{@link Node#route} 抛出配置错误，流转回滚
+     *
+     * @throws RuntimeException 结构不合法，异常信息指出第一个有问题的节点或连线
+     */
+    public void validate() {
+        Node start = getStartNode();
+
+        // 构建时编译失败的条件被替换为永不满足，这里重新编译以报告语法错误
+        for (Node node : nodes) {
+            for (Edge edge : node.getOutEdges()) {
+                try {
+                    ConditionExpression.compile(edge.getConditionExpr());
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("节点【" + node.getNodeName() + "】的连线条件【"
+                        + edge.getConditionExpr() + "】无效：" + e.getMessage());
+                }
+            }
+        }
+
+        // 正向遍历：从开始节点出发可到达的节点
+        boolean[] reachable = new boolean[nodes.length];
+        int[] stack = new int[nodes.length];
+        int top = 0;
+        reachable[start.getIndex()] = true;
+        stack[top++] = start.getIndex();
+        while (top > 0) {
+            for (Edge edge : nodes[stack[--top]].getOutEdges()) {
+                if (!reachable[edge.getTargetIndex()]) {
+                    reachable[edge.getTargetIndex()] = true;
+                    stack[top++] = edge.getTargetIndex();
+                }
+            }
+        }
+
+        // 反向遍历：可以到达任一结束节点的节点
+        List<List<Integer>> inEdges = new ArrayList<>(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            inEdges.add(new ArrayList<>(2));
+        }
+        boolean[] terminating = new boolean[nodes.length];
+        for (Node node : nodes) {
+            for (Edge edge : node.getOutEdges()) {
+                inEdges.get(edge.getTargetIndex()).add(node.getIndex());
+            }
+            if (node.isEnd()) {
+                terminating[node.getIndex()] = true;
+                stack[top++] = node.getIndex();
+            }
+        }
+        while (top > 0) {
+            for (int source : inEdges.get(stack[--top])) {
+                if (!terminating[source]) {
+                    terminating[source] = true;
+                    stack[top++] = source;
+                }
+            }
+        }
+
+        for (Node node : nodes) {
+            if (!reachable[node.getIndex()]) {
+                throw new RuntimeException("节点【" + node.getNodeName() + "】无法从开始节点到达");
+            }
+            if (!terminating[node.getIndex()]) {
+                throw new RuntimeException("节点【" + node.getNodeName() + "】无法到达结束节点");
+            }
+        }
+
+        for (Node node : nodes) {
+            if (node.getType() == NodeType.PARALLEL_SPLIT) {
+                validateJoin(node);
+            }
+        }
+    }
+
+    /**
+     * 校验并行分支节点的各分支都汇聚到同一个汇聚节点，与运行时令牌的嵌套方式一致：
+     * 分支内每经过一个并行分支节点进入下一层，经过一个汇聚节点回到上一层，在本层遇到的汇聚节点即为汇合点
+     *
+     * @throws RuntimeException 某条路径未经汇聚就到达结束节点，或各路径汇聚到不同的节点
+     */
+    private void validateJoin(Node split) {
+        Node join = null;
+        Set<Long> visited = new HashSet<>();
+        Deque<long[]> stack = new ArrayDeque<>();
+        for (Edge edge : split.getOutEdges()) {
+            stack.push(new long[] {edge.getTargetIndex(), 0});
+        }
+        while (!stack.isEmpty()) {
+            long[] state = stack.pop();
+            Node node = nodes[(int) state[0]];
+            long depth = state[1];
+            // 嵌套层数超过节点数说明分支在环路中反复进入并行，不可能汇聚
+            if (depth > nodes.length) {
+                throw new RuntimeException("并行分支节点【" + split.getNodeName() + "】的分支无法汇聚");
+            }
+            if (!visited.add(depth * nodes.length + node.getIndex())) {
+                continue;
+            }
+            if (node.isEnd()) {
+                throw new RuntimeException("并行分支节点【" + split.getNodeName() + "】的分支未经汇聚节点就到达了结束节点");
+            }
+            if (node.getType() == NodeType.PARALLEL_JOIN) {
+                if (depth == 0) {
+                    if (join != null && join != node) {
+                        throw new RuntimeException("并行分支节点【" + split.getNodeName() + "】的分支分别汇聚到了【"
+                            + join.getNodeName() + "】和【" + node.getNodeName() + "】");
+                    }
+                    join = node;
+                    continue;
+                }
+                depth--;
+            } else if (node.getType() == NodeType.PARALLEL_SPLIT) {
+                depth++;
+            }
+            for (Edge edge : node.getOutEdges()) {
+                stack.push(new long[] {edge.getTargetIndex(), depth});
+            }
+        }
+        if (join == null) {
+            throw new RuntimeException("并行分支节点【" + split.getNodeName() + "】没有对应的并行汇聚节点");
+        }
+    }
+
+    /**
+     * 编译连线条件，语法错误的条件视为永不满足，避免错误配置把流程带到错误分支
+     */
+    static ConditionExpression compileCondition(Long workflowId, Long edgeId, String conditionExpr) {
+        try {
+            return ConditionExpression.compile(conditionExpr);
+        } catch (RuntimeException e) {
+            log.error("流程 {} 的连线 {} 条件表达式编译失败：{}", workflowId, edgeId, e.getMessage());
+            return ConditionExpression.NEVER;
+        }
+    }
+
+    /**
+     * 解析节点超时策略，配置错误时忽略超时（任务不会被自动处理）
+     */
+    private static TimeoutPolicy parseTimeout(Long workflowId, WorkflowNode node) {
+        try {
+            return TimeoutPolicy.parse(node.getConfig());
+        } catch (RuntimeException e) {
+            log.error("流程 {} 的节点 {} 超时配置无效：{}", workflowId, node.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 流程节点
+     */
+    @Getter
+    public static final class Node {
+
+        private final int index;
+
+        private final Long id;
+
+        private final String nodeKey;
+
+        private final String nodeName;
+
+        /**
+         * 原始节点类型字符串
+         */
+        private final String nodeType;
+
+        /**
+         * 解析后的节点类型，无法识别时为null
+         */
+        private final NodeType type;
+
+        private final String config;
+
+        /**
+         * 出边，已按优先级排序
+         */
+        private final List<Edge> outEdges;
+
+        /**
+         * 审批人配置
+         */
+        private final List<Approver> approvers;
+
+        /**
+         * 审批模式，取第一条审批人配置，未配置时为或签
+         */
+        private final String approveMode;
+
+        /**
+         * 审批超时策略，未配置时为null
+         */
+        private final TimeoutPolicy timeout;
+
+        private Node(int index, WorkflowNode node, Edge[] outEdges, List<Approver> approvers, TimeoutPolicy timeout) {
+            this(index, node.getId(), node.getNodeKey(), node.getNodeName(), node.getNodeType(), node.getConfig(),
+                outEdges, approvers, timeout);
+        }
+
+        Node(int index, Long id, String nodeKey, String nodeName, String nodeType, String config, Edge[] outEdges,
+             List<Approver> approvers, TimeoutPolicy timeout) {
+            this.index = index;
+            this.id = id;
+            this.nodeKey = nodeKey;
+            this.nodeName = nodeName;
+            this.nodeType = nodeType;
+            this.type = parseNodeType(nodeType);
+            this.config = config;
+            this.outEdges = List.of(outEdges);
+            this.approvers = List.copyOf(approvers);
+            this.approveMode = !approvers.isEmpty() && approvers.get(0).getApproveMode() != null
+                ? approvers.get(0).getApproveMode()
+                : ApproveMode.OR.name();
+            this.timeout = timeout;
+        }
+
+        public boolean isStart() {
+            return type == NodeType.START;
+        }
+
+        public boolean isEnd() {
+            return type == NodeType.END;
+        }
+
+        /**
+         * 选择流转的连线：只有一条出边时直接使用；多条出边时按优先级依次判断，
+         * 无条件连线作为默认路径，条件连线在条件成立时选中。变量在首次判断条件时才获取
+         *
+         * @throws RuntimeException 没有出边，或没有满足条件的分支（编译失败的条件视为不满足）
+         */
+        public Edge route(Supplier<VariableResolver> variables) {
+            if (outEdges.isEmpty()) {
+                throw new RuntimeException("流程配置错误：节点【" + nodeName + "】没有后续节点");
+            }
+            if (outEdges.size() == 1) {
+                return outEdges.get(0);
+            }
+
+            VariableResolver resolver = null;
+            for (Edge edge : outEdges) {
+                if (!edge.isConditional()) {
+                    return edge;
+                }
+                if (resolver == null) {
+                    resolver = variables.get();
+                }
+                if (edge.getCondition().test(resolver)) {
+                    return edge;
+                }
+            }
+            throw new RuntimeException("流程配置错误：节点【" + nodeName + "】没有满足条件的分支");
+        }
+
+        private static NodeType parseNodeType(String nodeType) {
+            if (nodeType == null) {
+                return null;
+            }
+            try {
+                return NodeType.valueOf(nodeType);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 流程连线
+     */
+    @Getter
+    public static final class Edge {
+
+        private final Long id;
+
+        private final int sourceIndex;
+
+        private final int targetIndex;
+
+        private final Long targetNodeId;
+
+        private final String conditionExpr;
+
+        /**
+         * 编译后的条件，无条件连线为 {@link ConditionExpression#ALWAYS}
+         */
+        private final ConditionExpression condition;
+
+        private final Integer priority;
+
+        Edge(Long id, int sourceIndex, int targetIndex, Long targetNodeId, String conditionExpr,
+             ConditionExpression condition, Integer priority) {
+            this.id = id;
+            this.sourceIndex = sourceIndex;
+            this.targetIndex = targetIndex;
+            this.targetNodeId = targetNodeId;
+            this.conditionExpr = conditionExpr;
+            this.condition = condition;
+            this.priority = priority;
+        }
+
+        /**
+         * 是否为带条件的连线
+         */
+        public boolean isConditional() {
+            return condition != ConditionExpression.ALWAYS;
+        }
+    }
+
+    /**
+     * 审批人配置快照
+     */
+    @Getter
+    public static final class Approver {
+
+        private final String approverType;
+
+        private final String approverValue;
+
+        private final String approveMode;
+
+        private final String nobodyHandler;
+
+        private Approver(WorkflowApprover approver) {
+            this(approver.getApproverType(), approver.getApproverValue(), approver.getApproveMode(),
+                approver.getNobodyHandler());
+        }
+
+        Approver(String approverType, String approverValue, String approveMode, String nobodyHandler) {
+            this.approverType = approverType;
+            this.approverValue = approverValue;
+            this.approveMode = approveMode;
+            this.nobodyHandler = nobodyHandler;
+        }
+    }
+}
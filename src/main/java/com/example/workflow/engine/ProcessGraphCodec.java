@@ -0,0 +1,177 @@
+package com.example.workflow.engine;
+
+import com.example.workflow.dto.enums.TimeoutAction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流程图编译产物编解码
+ * 发布时把编译好的流程图写成紧凑的二进制：节点按下标排列，出边已按优先级排序并用目标节点下标表示，
+ * 超时策略已解析为分钟数和处理方式。解码时不查询节点、连线、审批人表，也不解析节点配置JSON，
+ * 只需重新编译连线条件表达式。
+ * 格式：魔数、格式版本，节点ID表，然后逐个节点写出基本信息、超时策略、审批人和出边；
+ * 格式版本不一致时解码失败，调用方回退为按表构建
+ */
+public final class ProcessGraphCodec {
+
+    private static final int MAGIC = 0x57464743;
+
+    private static final int FORMAT = 1;
+
+    private ProcessGraphCodec() {
+    }
+
+    /**
+     * 编码流程图
+     */
+    public static byte[] encode(ProcessGraph graph) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + graph.getNodeCount() * 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT);
+            int nodeCount = graph.getNodeCount();
+            out.writeInt(nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                out.writeLong(graph.getNode(i).getId());
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                writeNode(out, graph.getNode(i));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("流程图编码失败", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码流程图
+     *
+     * @param version 图版本号，由缓存分配
+     * @throws RuntimeException 数据损坏或格式版本不支持
+     */
+    public static ProcessGraph decode(Long workflowId, long version, byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC) {
+                throw new RuntimeException("流程图编译产物格式无效");
+            }
+            int format = in.readUnsignedShort();
+            if (format != FORMAT) {
+                throw new RuntimeException("流程图编译产物格式版本不支持：" + format);
+            }
+            int nodeCount = in.readInt();
+            long[] ids = new long[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                ids[i] = in.readLong();
+            }
+            ProcessGraph.Node[] nodes = new ProcessGraph.Node[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                nodes[i] = readNode(in, workflowId, i, ids);
+            }
+            return ProcessGraph.assemble(workflowId, version, nodes);
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException | NullPointerException e) {
+            throw new RuntimeException("流程图编译产物已损坏", e);
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    private static void writeNode(DataOutputStream out, ProcessGraph.Node node) throws IOException {
+        writeString(out, node.getNodeKey());
+        writeString(out, node.getNodeName());
+        writeString(out, node.getNodeType());
+        writeString(out, node.getConfig());
+
+        TimeoutPolicy timeout = node.getTimeout();
+        if (timeout != null) {
+            out.writeLong(timeout.getMinutes());
+            writeString(out, timeout.getAction().name());
+        } else {
+            out.writeLong(0);
+        }
+
+        List<ProcessGraph.Approver> approvers = node.getApprovers();
+        out.writeShort(approvers.size());
+        for (ProcessGraph.Approver approver : approvers) {
+            writeString(out, approver.getApproverType());
+            writeString(out, approver.getApproverValue());
+            writeString(out, approver.getApproveMode());
+            writeString(out, approver.getNobodyHandler());
+        }
+
+        List<ProcessGraph.Edge> edges = node.getOutEdges();
+        out.writeShort(edges.size());
+        for (ProcessGraph.Edge edge : edges) {
+            out.writeLong(edge.getId() != null ? edge.getId() : 0L);
+            out.writeInt(edge.getTargetIndex());
+            writeString(out, edge.getConditionExpr());
+            out.writeBoolean(edge.getPriority() != null);
+            if (edge.getPriority() != null) {
+                out.writeInt(edge.getPriority());
+            }
+        }
+    }
+
+    private static ProcessGraph.Node readNode(DataInputStream in, Long workflowId, int index, long[] ids)
+            throws IOException {
+        String nodeKey = readString(in);
+        String nodeName = readString(in);
+        String nodeType = readString(in);
+        String config = readString(in);
+
+        TimeoutPolicy timeout = null;
+        long minutes = in.readLong();
+        if (minutes > 0) {
+            timeout = TimeoutPolicy.of(minutes, TimeoutAction.valueOf(readString(in)));
+        }
+
+        int approverCount = in.readUnsignedShort();
+        List<ProcessGraph.Approver> approvers = new ArrayList<>(approverCount);
+        for (int i = 0; i < approverCount; i++) {
+            approvers.add(new ProcessGraph.Approver(readString(in), readString(in), readString(in), readString(in)));
+        }
+
+        int edgeCount = in.readUnsignedShort();
+        ProcessGraph.Edge[] edges = new ProcessGraph.Edge[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            long edgeId = in.readLong();
+            int target = in.readInt();
+            String conditionExpr = readString(in);
+            Integer priority = in.readBoolean() ? in.readInt() : null;
+            edges[i] = new ProcessGraph.Edge(edgeId, index, target, ids[target], conditionExpr,
+                ProcessGraph.compileCondition(workflowId, edgeId, conditionExpr), priority);
+        }
+
+        return new ProcessGraph.Node(index, ids[index], nodeKey, nodeName, nodeType, config, edges, approvers,
+            timeout);
+    }
+
+    /**
+     * 字符串按长度+UTF-8字节写出，长度-1表示null；不用writeUTF，节点配置可能超过64KB
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.workflow.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间有序的64位ID生成器
+ * 41位毫秒时间戳（自2024-01-01起，约69年）+ 10位节点号 + 12位毫秒内序号。
+ * 时间戳和序号合并在一个AtomicLong中用CAS推进，无锁；同一毫秒序号用完或时钟回拨时
+ * 借用下一毫秒继续递增，保证单节点内严格递增，不同节点靠节点号区分
+ */
+public final class SnowflakeIdGenerator {
+
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    /**
+     * 高位为相对时间戳，低12位为序号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    private final long nodeBits;
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点号必须在0~" + MAX_NODE_ID + "之间：" + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public long nextId() {
+        long next;
+        while (true) {
+            long prev = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            next = now > (prev >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : prev + 1;
+            if (state.compareAndSet(prev, next)) {
+                break;
+            }
+        }
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+
+    /**
+     * ID中的生成时间（毫秒）
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.workflow.engine;
+
+import com.example.workflow.dto.enums.TimeoutAction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * 节点审批超时策略
+ * 配置在节点config的timeout属性中，例如 {"timeout":{"minutes":1440,"action":"ESCALATE"}}，
+ * action可选REMIND、AUTO_PASS、ESCALATE、AUTO_REJECT，默认REMIND
+ */
+@Getter
+public final class TimeoutPolicy {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 任务创建后多少分钟超时
+     */
+    private final long minutes;
+
+    private final TimeoutAction action;
+
+    private TimeoutPolicy(long minutes, TimeoutAction action) {
+        this.minutes = minutes;
+        this.action = action;
+    }
+
+    /**
+     * 解析节点配置，未配置超时时返回null
+     *
+     * @throws RuntimeException 配置格式错误
+     */
+    public static TimeoutPolicy parse(String config) {
+        if (!StringUtils.hasText(config)) {
+            return null;
+        }
+        JsonNode timeout;
+        try {
+            timeout = MAPPER.readTree(config).get("timeout");
+        } catch (Exception e) {
+            throw new RuntimeException("节点配置不是有效的JSON");
+        }
+        if (timeout == null || timeout.isNull()) {
+            return null;
+        }
+        long minutes = timeout.path("minutes").asLong(0);
+        if (minutes <= 0) {
+            throw new RuntimeException("超时时间必须大于0分钟");
+        }
+        String action = timeout.path("action").asText(TimeoutAction.REMIND.name());
+        try {
+            return new TimeoutPolicy(minutes, TimeoutAction.valueOf(action.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的超时处理方式：" + action);
+        }
+    }
+
+    /**
+     * 由已解析的值创建，供编译产物解码使用
+     */
+    static TimeoutPolicy of(long minutes, TimeoutAction action) {
+        return new TimeoutPolicy(minutes, action);
+    }
+
+    /**
+     * 从指定时间起算的到期时间
+     */
+    public LocalDateTime dueTime(LocalDateTime from) {
+        return from.plusMinutes(minutes);
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.workflow.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分层时间轮
+ * 最低层每格tickMs，共wheelSize格；超出本层范围的定时器放入上一层（每格为下一层一圈），按需创建。
+ * 添加、取消定时器都是O(1)的链表操作；时钟每走一格只处理当前格，上层的格到期时把其中的定时器降到下层，
+ * 每个定时器最多降级层数次。到期时间按tickMs向上取整，定时器不会早于到期时间触发
+ */
+public final class TimingWheel<T> {
+
+    private final long tickMs;
+
+    private final int wheelSize;
+
+    private final Level root;
+
+    /**
+     * 添加时已到期、等待下一次advance取走的定时器
+     */
+    private final Bucket overdue = new Bucket();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 最低层的当前时间，为tickMs的整数倍
+     */
+    private long currentTime;
+
+    private int size;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs必须大于0，wheelSize至少为2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.root = new Level(tickMs);
+        this.currentTime = startMs - Math.floorMod(startMs, tickMs);
+    }
+
+    /**
+     * 添加定时器
+     *
+     * @param expirationMs 到期时间（毫秒时间戳），不晚于当前时间时在下一次advance时到期
+     */
+    public Timer<T> schedule(T payload, long expirationMs) {
+        long rounded = expirationMs + Math.floorMod(-expirationMs, tickMs);
+        Timer<T> timer = new Timer<>(payload, rounded);
+        lock.lock();
+        try {
+            add(timer);
+            size++;
+        } finally {
+            lock.unlock();
+        }
+        return timer;
+    }
+
+    /**
+     * 取消定时器
+     *
+     * @return 定时器尚未到期且本次取消成功
+     */
+    public boolean cancel(Timer<T> timer) {
+        lock.lock();
+        try {
+            if (timer.bucket == null) {
+                return false;
+            }
+            timer.bucket.remove(timer);
+            size--;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 时钟走到指定时间，返回期间到期的定时器内容
+     */
+    public List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            drainOverdue(expired);
+            while (nowMs - currentTime >= tickMs) {
+                currentTime += tickMs;
+                tick();
+                drainOverdue(expired);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return expired;
+    }
+
+    /**
+     * 尚未到期的定时器数
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    private void add(Timer<T> timer) {
+        long expiration = timer.expiration;
+        if (expiration <= currentTime) {
+            overdue.add(timer);
+            return;
+        }
+        Level level = root;
+        while (true) {
+            long levelTime = currentTime - Math.floorMod(currentTime, level.tick);
+            if (expiration - levelTime < level.interval) {
+                level.buckets[(int) Math.floorMod(expiration / level.tick, (long) wheelSize)].add(timer);
+                return;
+            }
+            if (level.overflow == null) {
+                level.overflow = new Level(level.interval);
+            }
+            level = level.overflow;
+        }
+    }
+
+    /**
+     * 先由高到低把到期的上层格降级，再处理最低层当前格
+     */
+    private void tick() {
+        List<Level> levels = new ArrayList<>();
+        levels.add(root);
+        for (Level level = root.overflow; level != null && Math.floorMod(currentTime, level.tick) == 0;
+             level = level.overflow) {
+            levels.add(level);
+        }
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            Level level = levels.get(i);
+            Bucket bucket = level.buckets[(int) Math.floorMod(currentTime / level.tick, (long) wheelSize)];
+            for (Timer<T> timer = bucket.removeAll(); timer != null; ) {
+                Timer<T> next = timer.next;
+                timer.next = null;
+                add(timer);
+                timer = next;
+            }
+        }
+    }
+
+    private void drainOverdue(List<T> expired) {
+        for (Timer<T> timer = overdue.removeAll(); timer != null; timer = timer.next) {
+            expired.add(timer.payload);
+            size--;
+        }
+    }
+
+    /**
+     * 时间轮的一层
+     */
+    private final class Level {
+
+        private final long tick;
+
+        private final long interval;
+
+        private final Bucket[] buckets;
+
+        private Level overflow;
+
+        @SuppressWarnings("unchecked")
+        Level(long tick) {
+            this.tick = tick;
+            // 层数过多时一圈的时长按Long.MAX_VALUE处理，避免溢出
+            this.interval = tick > Long.MAX_VALUE / wheelSize ? Long.MAX_VALUE : tick * wheelSize;
+            this.buckets = (Bucket[]) new TimingWheel<?>.Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * 时间格：带哨兵的双向链表
+     */
+    private final class Bucket {
+
+        private final Timer<T> head = new Timer<>(null, 0);
+
+        Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void add(Timer<T> timer) {
+            timer.bucket = this;
+            timer.prev = head.prev;
+            timer.next = head;
+            head.prev.next = timer;
+            head.prev = timer;
+        }
+
+        void remove(Timer<T> timer) {
+            timer.prev.next = timer.next;
+            timer.next.prev = timer.prev;
+            timer.prev = null;
+            timer.next = null;
+            timer.bucket = null;
+        }
+
+        /**
+         * 清空本格，返回原有定时器组成的单向链表（沿next遍历，以null结束）
+         */
+        Timer<T> removeAll() {
+            if (head.next == head) {
+                return null;
+            }
+            Timer<T> first = head.next;
+            head.prev.next = null;
+            for (Timer<T> timer = first; timer != null; timer = timer.next) {
+                timer.prev = null;
+                timer.bucket = null;
+            }
+            head.prev = head;
+            head.next = head;
+            return first;
+        }
+    }
+
+    /**
+     * 定时器
+     */
+    public static final class Timer<T> {
+
+        private final T payload;
+
+        private final long expiration;
+
+        private TimingWheel<T>.Bucket bucket;
+
+        private Timer<T> prev;
+
+        private Timer<T> next;
+
+        Timer(T payload, long expiration) {
+            this.payload = payload;
+            this.expiration = expiration;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        /**
+         * 到期时间（按时间格向上取整后的毫秒时间戳）
+         */
+        public long getExpiration() {
+            return expiration;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.workflow.engine.expression;
+
+/**
+ * 编译后的条件表达式
+ * 表达式在流程图构建时解析为求值树，路由时直接对变量求值，不可变且线程安全
+ *
+ * 支持：比较（== != &gt; &gt;= &lt; &lt;=）、逻辑（&amp;&amp; || ! and or not）、
+ * 算术（+ - * / %）、集合判断（in / not in）、嵌套属性与下标（applicant.deptId、items[0]）
+ * 表达式可带 ${...} 或 #{...} 包裹，空表达式恒为真
+ */
+public final class ConditionExpression {
+
+    /**
+     * 恒为真的表达式（无条件连线）
+     */
+    public static final ConditionExpression ALWAYS = new ConditionExpression("", new ExprNode.Literal(Boolean.TRUE));
+
+    /**
+     * 恒为假的表达式（编译失败的连线）
+     */
+    public static final ConditionExpression NEVER = new ConditionExpression("", new ExprNode.Literal(Boolean.FALSE));
+
+    private final String source;
+
+    private final ExprNode root;
+
+    private ConditionExpression(String source, ExprNode root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * 编译表达式，语法错误时抛出异常
+     */
+    public static ConditionExpression compile(String expression) {
+        if (expression == null) {
+            return ALWAYS;
+        }
+        String body = unwrap(expression.trim());
+        if (body.isEmpty()) {
+            return ALWAYS;
+        }
+        return new ConditionExpression(expression, ExpressionParser.parse(body));
+    }
+
+    /**
+     * 判断条件是否成立
+     */
+    public boolean test(VariableResolver vars) {
+        return ExprNode.truthy(root.eval(vars));
+    }
+
+    /**
+     * 计算表达式的值
+     */
+    public Object evaluate(VariableResolver vars) {
+        return root.eval(vars);
+    }
+
+    /**
+     * 是否为常量表达式（结果与变量无关）
+     */
+    public boolean isConstant() {
+        return root.isConstant();
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * 去掉 ${...} / #{...} 包裹
+     */
+    private static String unwrap(String expression) {
+        if (expression.length() >= 3
+            && (expression.startsWith("${") || expression.startsWith("#{"))
+            && expression.endsWith("}")) {
+            return expression.substring(2, expression.length() - 1).trim();
+        }
+        return expression;
+    }
+}
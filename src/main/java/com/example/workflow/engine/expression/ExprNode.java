@@ -0,0 +1,453 @@
+package com.example.workflow.engine.expression;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 表达式语法树节点
+ * 解析完成后即为可执行的求值树，求值过程不再做任何词法或语法分析
+ */
+abstract class ExprNode {
+
+    abstract Object eval(VariableResolver vars);
+
+    /**
+     * 是否为常量（可在编译期折叠）
+     */
+    boolean isConstant() {
+        return false;
+    }
+
+    // ========== 节点实现 ==========
+
+    /**
+     * 常量
+     */
+    static final class Literal extends ExprNode {
+
+        private final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object eval(VariableResolver vars) {
+            return value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+    }
+
+    /**
+     * 变量路径，如 amount、applicant.deptId、items[0].price
+     * 路径在编译期拆分为片段，任一片段为空时整体返回null
+     */
+    static final class Path extends ExprNode {
+
+        private final String name;
+
+        /**
+         * 后续片段：String表示属性名，Integer表示下标
+         */
+        private final Object[] segments;
+
+        Path(String name, Object[] segments) {
+            this.name = name;
+            this.segments = segments;
+        }
+
+        @Override
+        Object eval(VariableResolver vars) {
+            Object current = vars.get(name);
+            for (int i = 0; i < segments.length && current != null; i++) {
+                current = navigate(current, segments[i]);
+            }
+            return current;
+        }
+
+        private static Object navigate(Object target, Object segment) {
+            if (target instanceof Map) {
+                return ((Map<?, ?>) target).get(segment instanceof Integer ? segment.toString() : segment);
+            }
+            if (segment instanceof Integer) {
+                int index = (Integer) segment;
+                if (target instanceof List) {
+                    List<?> list = (List<?>) target;
+                    return index >= 0 && index < list.size() ? list.get(index) : null;
+                }
+                if (target.getClass().isArray()) {
+                    return index >= 0 && index < Array.getLength(target) ? Array.get(target, index) : null;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 列表字面量，如 ['A', 'B']
+     */
+    static final class ListLiteral extends ExprNode {
+
+        private final ExprNode[] items;
+
+        ListLiteral(ExprNode[] items) {
+            this.items = items;
+        }
+
+        @Override
+        Object eval(VariableResolver vars) {
+            Object[] values = new Object[items.length];
+            for (int i = 0; i < items.length; i++) {
+                values[i] = items[i].eval(vars);
+            }
+            return Arrays.asList(values);
+        }
+
+        @Override
+        boolean isConstant() {
+            for (ExprNode item : items) {
+                if (!item.isConstant()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 逻辑非
+     */
+    static final class Not extends ExprNode {
+
+        private final ExprNode operand;
+
+        Not(ExprNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        Object eval(VariableResolver vars) {
+            return !truthy(operand.eval(vars));
+        }
+
+        @Override
+        boolean isConstant() {
+            return operand.isConstant();
+        }
+    }
+
+    /**
+     * 取负
+     */
+    static final class Negate extends ExprNode {
+
+        private final ExprNode operand;
+
+        Negate(ExprNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        Object eval(VariableResolver vars) {
+            double value = toNumber(operand.eval(vars));
+            return Double.isNaN(value) ? null : -value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return operand.isConstant();
+        }
+    }
+
+    /**
+     * 短路与
+     */
+    static final class And extends ExprNode {
+
+        private final ExprNode left;
+        private final ExprNode right;
+
+        And(ExprNode left, ExprNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(VariableResolver vars) {
+            return truthy(left.eval(vars)) && truthy(right.eval(vars));
+        }
+
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+    }
+
+    /**
+     * 短路或
+     */
+    static final class Or extends ExprNode {
+
+        private final ExprNode left;
+        private final ExprNode right;
+
+        Or(ExprNode left, ExprNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(VariableResolver vars) {
+            return truthy(left.eval(vars)) || truthy(right.eval(vars));
+        }
+
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+    }
+
+    /**
+     * 二元运算：比较与算术
+     */
+    static final class Binary extends ExprNode {
+
+        private final Operator operator;
+        private final ExprNode left;
+        private final ExprNode right;
+
+        Binary(Operator operator, ExprNode left, ExprNode right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object eval(VariableResolver vars) {
+            Object l = left.eval(vars);
+            Object r = right.eval(vars);
+            switch (operator) {
+                case EQ:
+                    return looseEquals(l, r);
+                case NE:
+                    return !looseEquals(l, r);
+                case GT:
+                case GE:
+                case LT:
+                case LE:
+                    return relational(operator, compare(l, r));
+                case IN:
+                    return contains(r, l);
+                case NOT_IN:
+                    return r != null && !contains(r, l);
+                case ADD:
+                    return add(l, r);
+                default:
+                    return arithmetic(operator, l, r);
+            }
+        }
+
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+    }
+
+    static boolean relational(Operator operator, int c) {
+        if (c == UNORDERED) {
+            return false;
+        }
+        switch (operator) {
+            case GT:
+                return c > 0;
+            case GE:
+                return c >= 0;
+            case LT:
+                return c < 0;
+            default:
+                return c <= 0;
+        }
+    }
+
+    enum Operator {
+        EQ, NE, GT, GE, LT, LE, IN, NOT_IN, ADD, SUB, MUL, DIV, MOD
+    }
+
+    // ========== 取值规则 ==========
+
+    /**
+     * 无法比较时的返回值，任何关系运算均为false
+     */
+    static final int UNORDERED = Integer.MIN_VALUE;
+
+    /**
+     * 真值判断：null、false、0、空字符串、"false"、空集合为假
+     */
+    static boolean truthy(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue() != 0;
+        }
+        if (value instanceof String) {
+            String s = (String) value;
+            return !s.isEmpty() && !"false".equalsIgnoreCase(s);
+        }
+        if (value instanceof Collection) {
+            return !((Collection<?>) value).isEmpty();
+        }
+        if (value instanceof Map) {
+            return !((Map<?, ?>) value).isEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * 转换为数值，无法转换时返回NaN
+     * 表单中的数字常以字符串提交，这里统一按数值比较
+     */
+    static double toNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            String s = ((String) value).trim();
+            if (!s.isEmpty() && isNumeric(s)) {
+                return Double.parseDouble(s);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static boolean isNumeric(String s) {
+        int i = 0;
+        if (s.charAt(0) == '-' || s.charAt(0) == '+') {
+            i = 1;
+        }
+        boolean digits = false;
+        boolean dot = false;
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    static boolean looseEquals(Object l, Object r) {
+        if (l == null || r == null) {
+            return l == r;
+        }
+        if (l instanceof Number || r instanceof Number) {
+            double a = toNumber(l);
+            double b = toNumber(r);
+            if (!Double.isNaN(a) && !Double.isNaN(b)) {
+                return a == b;
+            }
+        }
+        if (l instanceof Boolean || r instanceof Boolean) {
+            return String.valueOf(l).equalsIgnoreCase(String.valueOf(r));
+        }
+        return Objects.equals(l, r);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compare(Object l, Object r) {
+        if (l == null || r == null) {
+            return UNORDERED;
+        }
+        double a = toNumber(l);
+        double b = toNumber(r);
+        if (!Double.isNaN(a) && !Double.isNaN(b)) {
+            return Double.compare(a, b);
+        }
+        if (l instanceof String && r instanceof String) {
+            return Integer.signum(((String) l).compareTo((String) r));
+        }
+        if (l instanceof Comparable && l.getClass() == r.getClass()) {
+            return Integer.signum(((Comparable) l).compareTo(r));
+        }
+        return UNORDERED;
+    }
+
+    static boolean contains(Object container, Object value) {
+        if (container == null) {
+            return false;
+        }
+        if (container instanceof Collection) {
+            for (Object item : (Collection<?>) container) {
+                if (looseEquals(item, value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (container.getClass().isArray()) {
+            for (int i = 0, n = Array.getLength(container); i < n; i++) {
+                if (looseEquals(Array.get(container, i), value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (container instanceof Map) {
+            return value != null && ((Map<?, ?>) container).containsKey(value.toString());
+        }
+        if (container instanceof String) {
+            return value != null && ((String) container).contains(value.toString());
+        }
+        return false;
+    }
+
+    static Object add(Object l, Object r) {
+        if (l == null || r == null) {
+            return null;
+        }
+        if (l instanceof String && !(r instanceof Number) || r instanceof String && !(l instanceof Number)) {
+            return l.toString() + r;
+        }
+        double a = toNumber(l);
+        double b = toNumber(r);
+        if (Double.isNaN(a) || Double.isNaN(b)) {
+            return l.toString() + r;
+        }
+        return a + b;
+    }
+
+    static Object arithmetic(Operator operator, Object l, Object r) {
+        double a = toNumber(l);
+        double b = toNumber(r);
+        if (Double.isNaN(a) || Double.isNaN(b)) {
+            return null;
+        }
+        switch (operator) {
+            case SUB:
+                return a - b;
+            case MUL:
+                return a * b;
+            case DIV:
+                return b == 0 ? null : a / b;
+            case MOD:
+                return b == 0 ? null : a % b;
+            default:
+                throw new IllegalStateException("未知运算符: " + operator);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.workflow.engine.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 条件表达式解析器（递归下降）
+ *
+ * 语法（优先级由低到高）：
+ * <pre>
+ * or         := and (('||' | 'or') and)*
+ * and        := not (('&&' | 'and') not)*
+ * not        := ('!' | 'not') not | comparison
+ * comparison := additive (('==' | '!=' | '>' | '>=' | '<' | '<=') additive | 'not'? 'in' additive)?
+ * additive   := term (('+' | '-') term)*
+ * term       := unary (('*' | '/' | '%') unary)*
+ * unary      := '-' unary | primary
+ * primary    := number | string | true | false | null | path | list | '(' or ')'
+ * path       := ident (('.' | '?.') ident | '[' (number | string) ']')*
+ * list       := '[' (or (',' or)*)? ']'
+ * </pre>
+ * 常量子表达式在解析时直接折叠
+ */
+final class ExpressionParser {
+
+    private final String source;
+    private final int length;
+    private int pos;
+
+    private ExpressionParser(String source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    static ExprNode parse(String source) {
+        ExpressionParser parser = new ExpressionParser(source);
+        ExprNode node = parser.parseOr();
+        parser.skipWhitespace();
+        if (parser.pos < parser.length) {
+            throw parser.error("无法识别的内容");
+        }
+        return node;
+    }
+
+    // ========== 语法规则 ==========
+
+    private ExprNode parseOr() {
+        ExprNode left = parseAnd();
+        while (matchSymbol("||") || matchKeyword("or")) {
+            left = fold(new ExprNode.Or(left, parseAnd()));
+        }
+        return left;
+    }
+
+    private ExprNode parseAnd() {
+        ExprNode left = parseNot();
+        while (matchSymbol("&&") || matchKeyword("and")) {
+            left = fold(new ExprNode.And(left, parseNot()));
+        }
+        return left;
+    }
+
+    private ExprNode parseNot() {
+        if (peekSymbol("!") && !peekSymbol("!=")) {
+            pos++;
+            return fold(new ExprNode.Not(parseNot()));
+        }
+        if (matchKeyword("not")) {
+            return fold(new ExprNode.Not(parseNot()));
+        }
+        return parseComparison();
+    }
+
+    private ExprNode parseComparison() {
+        ExprNode left = parseAdditive();
+        ExprNode.Operator operator = null;
+        if (matchSymbol("==")) {
+            operator = ExprNode.Operator.EQ;
+        } else if (matchSymbol("!=") || matchSymbol("<>")) {
+            operator = ExprNode.Operator.NE;
+        } else if (matchSymbol(">=")) {
+            operator = ExprNode.Operator.GE;
+        } else if (matchSymbol("<=")) {
+            operator = ExprNode.Operator.LE;
+        } else if (matchSymbol(">")) {
+            operator = ExprNode.Operator.GT;
+        } else if (matchSymbol("<")) {
+            operator = ExprNode.Operator.LT;
+        } else if (matchSymbol("=")) {
+            operator = ExprNode.Operator.EQ;
+        } else if (matchKeyword("in")) {
+            operator = ExprNode.Operator.IN;
+        } else {
+            int mark = pos;
+            if (matchKeyword("not")) {
+                if (matchKeyword("in")) {
+                    operator = ExprNode.Operator.NOT_IN;
+                } else {
+                    pos = mark;
+                }
+            }
+        }
+        if (operator == null) {
+            return left;
+        }
+        return fold(new ExprNode.Binary(operator, left, parseAdditive()));
+    }
+
+    private ExprNode parseAdditive() {
+        ExprNode left = parseTerm();
+        while (true) {
+            if (matchSymbol("+")) {
+                left = fold(new ExprNode.Binary(ExprNode.Operator.ADD, left, parseTerm()));
+            } else if (matchSymbol("-")) {
+                left = fold(new ExprNode.Binary(ExprNode.Operator.SUB, left, parseTerm()));
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private ExprNode parseTerm() {
+        ExprNode left = parseUnary();
+        while (true) {
+            if (matchSymbol("*")) {
+                left = fold(new ExprNode.Binary(ExprNode.Operator.MUL, left, parseUnary()));
+            } else if (matchSymbol("/")) {
+                left = fold(new ExprNode.Binary(ExprNode.Operator.DIV, left, parseUnary()));
+            } else if (matchSymbol("%")) {
+                left = fold(new ExprNode.Binary(ExprNode.Operator.MOD, left, parseUnary()));
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private ExprNode parseUnary() {
+        if (matchSymbol("-")) {
+            return fold(new ExprNode.Negate(parseUnary()));
+        }
+        return parsePrimary();
+    }
+
+    private ExprNode parsePrimary() {
+        skipWhitespace();
+        if (pos >= length) {
+            throw error("表达式不完整");
+        }
+        char c = source.charAt(pos);
+        if (c == '(') {
+            pos++;
+            ExprNode inner = parseOr();
+            expect(')');
+            return inner;
+        }
+        if (c == '[') {
+            pos++;
+            List<ExprNode> items = new ArrayList<>();
+            if (!matchSymbol("]")) {
+                do {
+                    items.add(parseOr());
+                } while (matchSymbol(","));
+                expect(']');
+            }
+            return fold(new ExprNode.ListLiteral(items.toArray(new ExprNode[0])));
+        }
+        if (c == '\'' || c == '"') {
+            return new ExprNode.Literal(readString());
+        }
+        if (isDigit(c) || c == '.' && pos + 1 < length && isDigit(source.charAt(pos + 1))) {
+            return new ExprNode.Literal(readNumber());
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            String name = readIdentifier();
+            switch (name.toLowerCase()) {
+                case "true":
+                    return new ExprNode.Literal(Boolean.TRUE);
+                case "false":
+                    return new ExprNode.Literal(Boolean.FALSE);
+                case "null":
+                    return new ExprNode.Literal(null);
+                default:
+                    return parsePath(name);
+            }
+        }
+        throw error("无法识别的字符 '" + c + "'");
+    }
+
+    private ExprNode parsePath(String name) {
+        List<Object> segments = new ArrayList<>();
+        while (true) {
+            if (matchSymbol("?.") || matchSymbol(".")) {
+                skipWhitespace();
+                if (pos >= length || !Character.isJavaIdentifierStart(source.charAt(pos))) {
+                    throw error("属性名缺失");
+                }
+                segments.add(readIdentifier());
+            } else if (peekSymbol("[")) {
+                pos++;
+                skipWhitespace();
+                if (pos < length && (source.charAt(pos) == '\'' || source.charAt(pos) == '"')) {
+                    segments.add(readString());
+                } else {
+                    Object index = readNumber();
+                    if (!(index instanceof Long)) {
+                        throw error("下标必须为整数");
+                    }
+                    segments.add(((Long) index).intValue());
+                }
+                expect(']');
+            } else {
+                return new ExprNode.Path(name, segments.toArray());
+            }
+        }
+    }
+
+    /**
+     * 常量折叠：所有操作数均为常量时在编译期求值
+     */
+    private static ExprNode fold(ExprNode node) {
+        return node.isConstant() ? new ExprNode.Literal(node.eval(VariableResolver.EMPTY)) : node;
+    }
+
+    // ========== 词法 ==========
+
+    private String readIdentifier() {
+        int start = pos;
+        while (pos < length && Character.isJavaIdentifierPart(source.charAt(pos))) {
+            pos++;
+        }
+        return source.substring(start, pos);
+    }
+
+    private Object readNumber() {
+        skipWhitespace();
+        int start = pos;
+        boolean decimal = false;
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (isDigit(c)) {
+                pos++;
+            } else if (c == '.' && !decimal && pos + 1 < length && isDigit(source.charAt(pos + 1))) {
+                decimal = true;
+                pos++;
+            } else {
+                break;
+            }
+        }
+        if (start == pos) {
+            throw error("缺少数字");
+        }
+        String text = source.substring(start, pos);
+        if (decimal || text.length() > 18) {
+            return Double.parseDouble(text);
+        }
+        return Long.parseLong(text);
+    }
+
+    private String readString() {
+        char quote = source.charAt(pos++);
+        StringBuilder sb = new StringBuilder();
+        while (pos < length) {
+            char c = source.charAt(pos++);
+            if (c == quote) {
+                return sb.toString();
+            }
+            if (c == '\\' && pos < length) {
+                char next = source.charAt(pos++);
+                switch (next) {
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    default:
+                        sb.append(next);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        throw error("字符串未闭合");
+    }
+
+    private boolean matchSymbol(String symbol) {
+        if (peekSymbol(symbol)) {
+            pos += symbol.length();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean peekSymbol(String symbol) {
+        skipWhitespace();
+        return source.startsWith(symbol, pos);
+    }
+
+    /**
+     * 匹配关键字（不区分大小写，且后面不能紧跟标识符字符）
+     */
+    private boolean matchKeyword(String keyword) {
+        skipWhitespace();
+        int end = pos + keyword.length();
+        if (end > length || !source.regionMatches(true, pos, keyword, 0, keyword.length())) {
+            return false;
+        }
+        if (end < length && Character.isJavaIdentifierPart(source.charAt(end))) {
+            return false;
+        }
+        pos = end;
+        return true;
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (pos >= length || source.charAt(pos) != c) {
+            throw error("缺少 '" + c + "'");
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < length && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private RuntimeException error(String message) {
+        return new RuntimeException("条件表达式语法错误：" + message + "（位置 " + pos + "）：" + source);
+    }
+}
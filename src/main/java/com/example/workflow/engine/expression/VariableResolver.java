@@ -0,0 +1,19 @@
+package com.example.workflow.engine.expression;
+
+/**
+ * 表达式变量解析器
+ * 按顶层变量名返回已解析的值（String、Number、Boolean、Map、List或null）
+ */
+@FunctionalInterface
+public interface VariableResolver {
+
+    /**
+     * 空变量表
+     */
+    VariableResolver EMPTY = name -> null;
+
+    /**
+     * 获取顶层变量值，不存在时返回null
+     */
+    Object get(String name);
+}
@@ -15,9 +15,9 @@ public class WorkflowCc {
 
     /**
      * 抄送记录ID
-     * 主键，自增
+     * 主键，从号段分配（见IdService）
      */
-    @TableId(type = IdType.AUTO)
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
 
     /**
@@ -51,7 +51,7 @@ public class WorkflowDefinition {
 
     /**
      * 版本号
-     * 工作流的版本，从1开始递增
+     * 最新发布的版本，0表示尚未发布；每次发布递增并生成该版本的节点、连线快照
      */
     private Integer version;
     
@@ -63,6 +63,12 @@ public class WorkflowEdge {
      */
     private Integer priority;
 
+    /**
+     * 定义版本
+     * 0-草稿（保存配置时修改），大于0-发布时生成的快照，生成后不再修改
+     */
+    private Integer definitionVersion;
+
     /**
      * 创建时间
      * 连线配置的创建时间
@@ -0,0 +1,70 @@
+package com.example.workflow.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待办收件箱实体
+ * 待办任务列表的读模型：任务创建时写入，任务处理、取消或转交时删除或改派，
+ * 冗余保存任务列表展示所需的实例信息，查询待办时不再关联流程实例
+ */
+@Data
+@TableName("workflow_inbox")
+public class WorkflowInbox {
+
+    /**
+     * 任务ID
+     * 关联到workflow_task表的id字段
+     */
+    @TableId(type = IdType.INPUT)
+    private Long taskId;
+
+    /**
+     * 处理人ID
+     */
+    private String assigneeId;
+
+    /**
+     * 流程实例ID
+     */
+    private Long instanceId;
+
+    /**
+     * 流程实例编号
+     */
+    private String instanceNo;
+
+    /**
+     * 工作流名称
+     */
+    private String workflowName;
+
+    /**
+     * 节点名称
+     */
+    private String nodeName;
+
+    /**
+     * 流程标题
+     */
+    private String title;
+
+    /**
+     * 发起人姓名
+     */
+    private String startUserName;
+
+    /**
+     * 优先级：0-普通，1-紧急，2-特急
+     */
+    private Integer priority;
+
+    /**
+     * 任务创建时间
+     */
+    private LocalDateTime createTime;
+}
@@ -14,9 +14,9 @@ public class WorkflowInstance {
     
     /**
      * 实例ID
-     * 主键，自增
+     * 主键，从号段分配（见IdService）
      */
-    @TableId(type = IdType.AUTO)
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
     
     /**
@@ -31,6 +31,12 @@ public class WorkflowInstance {
      */
     private Long workflowId;
     
+    /**
+     * 流程定义版本
+     * 发起时使用的已发布版本，实例始终按该版本的节点和连线流转；为空表示按草稿配置流转（版本化之前发起的实例）
+     */
+    private Integer definitionVersion;
+    
     /**
      * 工作流Key
      * 工作流的唯一标识
@@ -116,6 +122,13 @@ public class WorkflowInstance {
      */
     private Integer priority;
     
+    /**
+     * 版本号
+     * 乐观锁版本，每次更新实例时递增
+     */
+    @Version
+    private Integer version;
+    
     /**
      * 删除标记
      * 逻辑删除标记，0-未删除，1-已删除
@@ -62,6 +62,12 @@ public class WorkflowNode {
      */
     private String config;
 
+    /**
+     * 定义版本
+     * 0-草稿（保存配置时修改），大于0-发布时生成的快照，生成后不再修改
+     */
+    private Integer definitionVersion;
+
     /**
      * 创建时间
      * 节点的创建时间
@@ -0,0 +1,71 @@
+package com.example.workflow.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 工作流统计快照实体
+ * 内存计数器定期写入的快照，每个统计范围（全局、用户、工作流）一行
+ */
+@Data
+@TableName("workflow_statistics")
+public class WorkflowStatistics {
+
+    /**
+     * 主键，自增
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 统计范围：GLOBAL-全局，USER-用户，WORKFLOW-工作流
+     */
+    private String scopeType;
+
+    /**
+     * 范围标识：用户ID或工作流ID，全局为*
+     */
+    private String scopeKey;
+
+    /**
+     * 待办任务数
+     */
+    private Long pendingTaskCount;
+
+    /**
+     * 已完成任务数（同意或拒绝）
+     */
+    private Long completedTaskCount;
+
+    /**
+     * 发起的流程数
+     */
+    private Long startedInstanceCount;
+
+    /**
+     * 总流程数
+     */
+    private Long totalInstanceCount;
+
+    /**
+     * 运行中的流程数
+     */
+    private Long runningInstanceCount;
+
+    /**
+     * 已通过的流程数
+     */
+    private Long approvedInstanceCount;
+
+    /**
+     * 已拒绝的流程数
+     */
+    private Long rejectedInstanceCount;
+
+    /**
+     * 快照时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -14,9 +14,9 @@ public class WorkflowTask {
     
     /**
      * 任务ID
-     * 主键，自增
+     * 主键，从号段分配（见IdService）
      */
-    @TableId(type = IdType.AUTO)
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
     
     /**
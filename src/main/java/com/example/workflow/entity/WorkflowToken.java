@@ -0,0 +1,64 @@
+package com.example.workflow.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 流程令牌实体
+ * 用于并行网关：分支节点为每条分支创建子令牌，父令牌在分支节点等待，
+ * 子令牌全部到达汇聚节点后父令牌继续流转
+ */
+@Data
+@TableName("workflow_token")
+public class WorkflowToken {
+
+    /**
+     * 令牌ID
+     * 主键，自增
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 流程实例ID
+     * 关联到workflow_instance表的id字段
+     */
+    private Long instanceId;
+
+    /**
+     * 令牌所在节点ID
+     */
+    private Long nodeId;
+
+    /**
+     * 父令牌ID
+     * 顶层令牌为空
+     */
+    private Long parentId;
+
+    /**
+     * 令牌状态
+     * ACTIVE-活动，WAITING-等待分支汇聚，JOINED-已汇聚，COMPLETED-已完成，CANCELED-已取消
+     */
+    private String status;
+
+    /**
+     * 未汇聚的子令牌数量
+     * 仅在WAITING状态下有意义，减到0时父令牌继续流转
+     */
+    private Integer activeChildren;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
@@ -23,4 +23,12 @@ public interface SysDeptMapper extends BaseMapper<SysDept> {
      */
     @Select("SELECT COUNT(*) FROM sys_user WHERE deleted = 0 AND dept_id = #{deptId}")
     Long countUsers(@Param("deptId") Long deptId);
+
+    /**
+     * 表数据指纹（未删除行数、最大ID、最近更新时间），用于检测组织架构变更
+     * 逻辑删除只改deleted，按未删除行数统计才能发现
+     */
+    @Select("SELECT CONCAT_WS(':', SUM(CASE WHEN deleted = 0 THEN 1 ELSE 0 END), MAX(id), MAX(update_time)) " +
+            "FROM sys_dept")
+    String selectFingerprint();
 }
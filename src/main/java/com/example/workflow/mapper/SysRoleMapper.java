@@ -25,4 +25,12 @@ public interface SysRoleMapper extends BaseMapper<SysRole> {
      */
     @Select("SELECT r.* FROM sys_role r INNER JOIN sys_user_role ur ON r.id = ur.role_id WHERE r.deleted = 0 AND ur.user_id = #{userId}")
     List<SysRole> selectByUserId(@Param("userId") Long userId);
+
+    /**
+     * 表数据指纹（未删除行数、最大ID、最近更新时间），用于检测组织架构变更
+     * 逻辑删除只改deleted，按未删除行数统计才能发现
+     */
+    @Select("SELECT CONCAT_WS(':', SUM(CASE WHEN deleted = 0 THEN 1 ELSE 0 END), MAX(id), MAX(update_time)) " +
+            "FROM sys_role")
+    String selectFingerprint();
 }
@@ -23,4 +23,11 @@ public interface SysUserRoleMapper extends BaseMapper<SysUserRole> {
             "WHERE r.role_code = #{roleCode}" +
             "</script>")
     List<Integer> selectUserIdsByRoleCode(@Param("roleCode") String roleCode);
+
+    /**
+     * 表数据指纹（行数、最大ID、按ID加权的用户ID与角色ID之和），用于检测组织架构变更
+     * 关联表没有更新时间，原地修改user_id或role_id时只有加权和会变化
+     */
+    @Select("SELECT CONCAT_WS(':', COUNT(*), MAX(id), SUM(id * user_id), SUM(id * role_id)) FROM sys_user_role")
+    String selectFingerprint();
 }
@@ -0,0 +1,175 @@
+package com.example.workflow.mapper;
+
+import com.example.workflow.entity.WorkflowCc;
+import com.example.workflow.entity.WorkflowHistory;
+import com.example.workflow.entity.WorkflowInstance;
+import com.example.workflow.entity.WorkflowTask;
+import com.example.workflow.entity.WorkflowVariable;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 流程归档Mapper
+ * 在原表和归档表之间按实例ID批量搬移数据，以及从归档表读取已归档的实例。
+ * 列表查询与原表的游标分页使用相同的（时间, ID）倒序，由调用方与原表结果合并；
+ * 按页码分页时由数据库合并两张表，只返回当前页
+ */
+@Mapper
+public interface WorkflowArchiveMapper {
+
+    String IDS = "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>";
+
+    String INSTANCE_COLUMNS = "id, instance_no, workflow_id, definition_version, workflow_key, workflow_name, form_id, " +
+            "form_data, status, current_node_id, start_user_id, start_user_name, start_time, end_time, duration, " +
+            "business_key, title, priority, version, deleted";
+
+    String TASK_COLUMNS = "id, instance_id, instance_no, node_id, node_key, node_name, node_type, assignee_id, " +
+            "assignee_name, status, comment, attachments, create_time, claim_time, complete_time, due_time, priority";
+
+    String HISTORY_COLUMNS = "id, instance_id, task_id, node_id, node_name, action, operator_id, operator_name, " +
+            "comment, attachments, duration, operate_time";
+
+    String CC_COLUMNS = "id, instance_id, instance_no, node_id, node_name, cc_user_id, cc_user_name, status, " +
+            "read_time, create_time";
+
+    String VARIABLE_COLUMNS = "id, instance_id, var_key, var_value, var_type, create_time, update_time";
+
+    /**
+     * 结束时间早于指定时间的已结束实例ID
+     */
+    @Select("SELECT id FROM workflow_instance " +
+            "WHERE status IN ('APPROVED', 'REJECTED', 'CANCELED', 'TERMINATED') AND end_time < #{before} " +
+            "ORDER BY end_time, id LIMIT #{limit}")
+    List<Long> selectArchivableIds(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    // ========== 复制到归档表 ==========
+
+    @Insert("<script>INSERT INTO workflow_instance_archive (" + INSTANCE_COLUMNS + ") " +
+            "SELECT " + INSTANCE_COLUMNS + " FROM workflow_instance WHERE id IN " + IDS + "</script>")
+    int copyInstances(@Param("ids") List<Long> ids);
+
+    @Insert("<script>INSERT INTO workflow_task_archive (" + TASK_COLUMNS + ") " +
+            "SELECT " + TASK_COLUMNS + " FROM workflow_task WHERE instance_id IN " + IDS + "</script>")
+    int copyTasks(@Param("ids") List<Long> ids);
+
+    @Insert("<script>INSERT INTO workflow_history_archive (" + HISTORY_COLUMNS + ") " +
+            "SELECT " + HISTORY_COLUMNS + " FROM workflow_history WHERE instance_id IN " + IDS + "</script>")
+    int copyHistory(@Param("ids") List<Long> ids);
+
+    @Insert("<script>INSERT INTO workflow_cc_archive (" + CC_COLUMNS + ") " +
+            "SELECT " + CC_COLUMNS + " FROM workflow_cc WHERE instance_id IN " + IDS + "</script>")
+    int copyCc(@Param("ids") List<Long> ids);
+
+    @Insert("<script>INSERT INTO workflow_variable_archive (" + VARIABLE_COLUMNS + ") " +
+            "SELECT " + VARIABLE_COLUMNS + " FROM workflow_variable WHERE instance_id IN " + IDS + "</script>")
+    int copyVariables(@Param("ids") List<Long> ids);
+
+    // ========== 从原表删除 ==========
+
+    @Delete("<script>DELETE FROM workflow_instance WHERE id IN " + IDS + "</script>")
+    int deleteInstances(@Param("ids") List<Long> ids);
+
+    @Delete("<script>DELETE FROM workflow_task WHERE instance_id IN " + IDS + "</script>")
+    int deleteTasks(@Param("ids") List<Long> ids);
+
+    @Delete("<script>DELETE FROM workflow_history WHERE instance_id IN " + IDS + "</script>")
+    int deleteHistory(@Param("ids") List<Long> ids);
+
+    @Delete("<script>DELETE FROM workflow_cc WHERE instance_id IN " + IDS + "</script>")
+    int deleteCc(@Param("ids") List<Long> ids);
+
+    @Delete("<script>DELETE FROM workflow_variable WHERE instance_id IN " + IDS + "</script>")
+    int deleteVariables(@Param("ids") List<Long> ids);
+
+    /**
+     * 令牌只在流程运行期间使用，归档时直接删除
+     */
+    @Delete("<script>DELETE FROM workflow_token WHERE instance_id IN " + IDS + "</script>")
+    int deleteTokens(@Param("ids") List<Long> ids);
+
+    @Delete("<script>DELETE FROM workflow_inbox WHERE instance_id IN " + IDS + "</script>")
+    int deleteInbox(@Param("ids") List<Long> ids);
+
+    // ========== 读取归档 ==========
+
+    @Select("SELECT " + INSTANCE_COLUMNS + " FROM workflow_instance_archive WHERE id = #{id}")
+    WorkflowInstance selectInstance(@Param("id") Long id);
+
+    @Select("SELECT " + TASK_COLUMNS + " FROM workflow_task_archive WHERE instance_id = #{instanceId} " +
+            "ORDER BY create_time, id")
+    List<WorkflowTask> selectTasks(@Param("instanceId") Long instanceId);
+
+    @Select("SELECT " + HISTORY_COLUMNS + " FROM workflow_history_archive WHERE instance_id = #{instanceId} " +
+            "ORDER BY operate_time, id")
+    List<WorkflowHistory> selectHistory(@Param("instanceId") Long instanceId);
+
+    @Select("SELECT " + VARIABLE_COLUMNS + " FROM workflow_variable_archive WHERE instance_id = #{instanceId}")
+    List<WorkflowVariable> selectVariables(@Param("instanceId") Long instanceId);
+
+    /**
+     * 发起人已归档的实例，按（发起时间, ID）倒序，time为空时从第一条开始
+     */
+    @Select("<script>SELECT " + INSTANCE_COLUMNS + " FROM workflow_instance_archive " +
+            "WHERE start_user_id = #{userId} AND deleted = 0" +
+            "<if test='status != null'> AND status = #{status}</if>" +
+            "<if test='time != null'> AND (start_time &lt; #{time} OR (start_time = #{time} AND id &lt; #{id}))</if>" +
+            " ORDER BY start_time DESC, id DESC LIMIT #{limit}</script>")
+    List<WorkflowInstance> selectInstancesByStartUser(@Param("userId") String userId, @Param("status") String status,
+                                                      @Param("time") LocalDateTime time, @Param("id") Long id,
+                                                      @Param("limit") int limit);
+
+    @Select("<script>SELECT COUNT(*) FROM workflow_instance_archive WHERE start_user_id = #{userId} AND deleted = 0" +
+            "<if test='status != null'> AND status = #{status}</if></script>")
+    long countInstancesByStartUser(@Param("userId") String userId, @Param("status") String status);
+
+    /**
+     * 抄送给用户的已归档记录，按（抄送时间, ID）倒序，time为空时从第一条开始
+     */
+    @Select("<script>SELECT " + CC_COLUMNS + " FROM workflow_cc_archive WHERE cc_user_id = #{userId}" +
+            "<if test='time != null'> AND (create_time &lt; #{time} OR (create_time = #{time} AND id &lt; #{id}))</if>" +
+            " ORDER BY create_time DESC, id DESC LIMIT #{limit}</script>")
+    List<WorkflowCc> selectCcByUser(@Param("userId") String userId, @Param("time") LocalDateTime time,
+                                    @Param("id") Long id, @Param("limit") int limit);
+
+    @Select("SELECT COUNT(*) FROM workflow_cc_archive WHERE cc_user_id = #{userId}")
+    long countCcByUser(@Param("userId") String userId);
+
+    /**
+     * 已归档的抄送标记为已读，返回0表示归档表中也没有该记录
+     */
+    @Update("UPDATE workflow_cc_archive SET status = 1, read_time = #{readTime} WHERE id = #{id}")
+    int markCcRead(@Param("id") Long id, @Param("readTime") LocalDateTime readTime);
+
+    // ========== 原表与归档表合并分页 ==========
+
+    /**
+     * 发起人的实例（原表和归档表合并），按（发起时间, ID）倒序取一页
+     */
+    @Select("<script>SELECT " + INSTANCE_COLUMNS + " FROM (" +
+            "SELECT " + INSTANCE_COLUMNS + " FROM workflow_instance WHERE start_user_id = #{userId} AND deleted = 0" +
+            "<if test='status != null'> AND status = #{status}</if>" +
+            " UNION ALL " +
+            "SELECT " + INSTANCE_COLUMNS + " FROM workflow_instance_archive WHERE start_user_id = #{userId} AND deleted = 0" +
+            "<if test='status != null'> AND status = #{status}</if>" +
+            ") t ORDER BY start_time DESC, id DESC LIMIT #{limit} OFFSET #{offset}</script>")
+    List<WorkflowInstance> selectAllInstancesByStartUser(@Param("userId") String userId, @Param("status") String status,
+                                                         @Param("offset") long offset, @Param("limit") int limit);
+
+    /**
+     * 抄送给用户的记录（原表和归档表合并），按（抄送时间, ID）倒序取一页
+     */
+    @Select("SELECT " + CC_COLUMNS + " FROM (" +
+            "SELECT " + CC_COLUMNS + " FROM workflow_cc WHERE cc_user_id = #{userId}" +
+            " UNION ALL " +
+            "SELECT " + CC_COLUMNS + " FROM workflow_cc_archive WHERE cc_user_id = #{userId}" +
+            ") t ORDER BY create_time DESC, id DESC LIMIT #{limit} OFFSET #{offset}")
+    List<WorkflowCc> selectAllCcByUser(@Param("userId") String userId, @Param("offset") long offset,
+                                       @Param("limit") int limit);
+}
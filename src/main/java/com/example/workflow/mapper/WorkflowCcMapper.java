@@ -2,11 +2,28 @@ package com.example.workflow.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.workflow.entity.WorkflowCc;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 工作流抄送Mapper
  */
 @Mapper
 public interface WorkflowCcMapper extends BaseMapper<WorkflowCc> {
+
+    /**
+     * 批量插入抄送记录（多行INSERT），不经过自动填充，id和createTime需由调用方设置
+     */
+    @Insert("<script>" +
+            "INSERT INTO workflow_cc (id, instance_id, instance_no, node_id, node_name, cc_user_id, cc_user_name, " +
+            "status, create_time) VALUES " +
+            "<foreach collection='list' item='c' separator=','>" +
+            "(#{c.id}, #{c.instanceId}, #{c.instanceNo}, #{c.nodeId}, #{c.nodeName}, #{c.ccUserId}, #{c.ccUserName}, " +
+            "#{c.status}, #{c.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<WorkflowCc> ccList);
 }
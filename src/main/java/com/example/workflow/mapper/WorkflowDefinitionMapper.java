@@ -2,11 +2,43 @@ package com.example.workflow.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.workflow.entity.WorkflowDefinition;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 /**
  * 工作流定义Mapper
  */
 @Mapper
 public interface WorkflowDefinitionMapper extends BaseMapper<WorkflowDefinition> {
+
+    /**
+     * 发布：版本号仍为current时递增为current+1并启用，返回0表示已被并发发布
+     */
+    @Update("UPDATE workflow_definition SET version = #{current} + 1, status = 1, update_time = CURRENT_TIMESTAMP " +
+            "WHERE id = #{id} AND COALESCE(version, 0) = #{current} AND deleted = 0")
+    int claimNextVersion(@Param("id") Long id, @Param("current") int current);
+
+    /**
+     * 加锁读取当前版本号，可重复读隔离级别下也能读到其他事务已提交的发布
+     */
+    @Select("SELECT COALESCE(version, 0) FROM workflow_definition WHERE id = #{id} AND deleted = 0 FOR UPDATE")
+    Integer selectVersionForUpdate(@Param("id") Long id);
+
+    /**
+     * 保存版本快照的编译产物
+     */
+    @Insert("INSERT INTO workflow_definition_artifact (workflow_id, definition_version, data) " +
+            "VALUES (#{workflowId}, #{definitionVersion}, #{data})")
+    int insertArtifact(@Param("workflowId") Long workflowId, @Param("definitionVersion") int definitionVersion,
+                       @Param("data") byte[] data);
+
+    /**
+     * 读取版本快照的编译产物，不存在（引入编译产物之前发布的快照）时返回null
+     */
+    @Select("SELECT data FROM workflow_definition_artifact " +
+            "WHERE workflow_id = #{workflowId} AND definition_version = #{definitionVersion}")
+    byte[] selectArtifact(@Param("workflowId") Long workflowId, @Param("definitionVersion") int definitionVersion);
 }
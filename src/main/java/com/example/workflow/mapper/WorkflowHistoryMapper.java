@@ -2,11 +2,51 @@ package com.example.workflow.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.workflow.entity.WorkflowHistory;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 工作流历史Mapper
  */
 @Mapper
 public interface WorkflowHistoryMapper extends BaseMapper<WorkflowHistory> {
+
+    /**
+     * 批量插入历史记录（多行INSERT），不经过自动填充，operateTime需由调用方设置
+     */
+    @Insert("<script>" +
+            "INSERT INTO workflow_history (instance_id, task_id, node_id, node_name, action, operator_id, " +
+            "operator_name, comment, attachments, duration, operate_time) VALUES " +
+            "<foreach collection='list' item='h' separator=','>" +
+            "(#{h.instanceId}, #{h.taskId}, #{h.nodeId}, #{h.nodeName}, #{h.action}, #{h.operatorId}, " +
+            "#{h.operatorName}, #{h.comment}, #{h.attachments}, #{h.duration}, #{h.operateTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<WorkflowHistory> histories);
+
+    /**
+     * 按操作时间范围逐行读取历史（只进游标，需在事务中遍历）
+     * 同时读取归档表，已归档的历史不会从导出中遗漏
+     * MySQL需在连接串中开启useCursorFetch=true，fetchSize才会生效
+     */
+    @Select("<script>" +
+            "SELECT " + WorkflowArchiveMapper.HISTORY_COLUMNS + " FROM workflow_history WHERE 1 = 1" +
+            "<if test='from != null'> AND operate_time &gt;= #{from}</if>" +
+            "<if test='to != null'> AND operate_time &lt; #{to}</if>" +
+            " UNION ALL SELECT " + WorkflowArchiveMapper.HISTORY_COLUMNS +
+            " FROM workflow_history_archive WHERE 1 = 1" +
+            "<if test='from != null'> AND operate_time &gt;= #{from}</if>" +
+            "<if test='to != null'> AND operate_time &lt; #{to}</if>" +
+            " ORDER BY operate_time, id" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<WorkflowHistory> streamByOperateTime(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,46 @@
+package com.example.workflow.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.workflow.entity.WorkflowInbox;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 待办收件箱Mapper
+ */
+@Mapper
+public interface WorkflowInboxMapper extends BaseMapper<WorkflowInbox> {
+
+    /**
+     * 批量写入待办（多行INSERT）
+     */
+    @Insert("<script>" +
+            "INSERT INTO workflow_inbox (task_id, assignee_id, instance_id, instance_no, workflow_name, node_name, " +
+            "title, start_user_name, priority, create_time) VALUES " +
+            "<foreach collection='list' item='i' separator=','>" +
+            "(#{i.taskId}, #{i.assigneeId}, #{i.instanceId}, #{i.instanceNo}, #{i.workflowName}, #{i.nodeName}, " +
+            "#{i.title}, #{i.startUserName}, #{i.priority}, #{i.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<WorkflowInbox> inboxList);
+
+    /**
+     * 转交：待办改派给新任务和新处理人
+     */
+    @Update("UPDATE workflow_inbox SET task_id = #{newTaskId}, assignee_id = #{assigneeId}, create_time = #{createTime} " +
+            "WHERE task_id = #{taskId}")
+    int reassign(@Param("taskId") Long taskId, @Param("newTaskId") Long newTaskId,
+                 @Param("assigneeId") String assigneeId, @Param("createTime") LocalDateTime createTime);
+
+    /**
+     * 删除实例的全部待办（流程结束、拒绝或撤销）
+     */
+    @Delete("DELETE FROM workflow_inbox WHERE instance_id = #{instanceId}")
+    int deleteByInstanceId(@Param("instanceId") Long instanceId);
+}
@@ -2,11 +2,63 @@ package com.example.workflow.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.workflow.entity.WorkflowInstance;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 工作流实例Mapper
  */
 @Mapper
 public interface WorkflowInstanceMapper extends BaseMapper<WorkflowInstance> {
+
+    /**
+     * 按版本号占用实例（只递增版本号），版本不一致时返回0
+     */
+    @Update("UPDATE workflow_instance SET version = COALESCE(version, 0) + 1 " +
+            "WHERE id = #{id} AND COALESCE(version, 0) = #{version}")
+    int claimVersion(@Param("id") Long id, @Param("version") int version);
+
+    /**
+     * 批量插入实例（多行INSERT），不经过自动填充，id和startTime需由调用方设置
+     */
+    @Insert("<script>" +
+            "INSERT INTO workflow_instance (id, instance_no, workflow_id, definition_version, workflow_key, " +
+            "workflow_name, form_id, " +
+            "form_data, status, current_node_id, start_user_id, start_user_name, start_time, end_time, duration, " +
+            "business_key, title, priority, version, deleted) VALUES " +
+            "<foreach collection='list' item='i' separator=','>" +
+            "(#{i.id}, #{i.instanceNo}, #{i.workflowId}, #{i.definitionVersion}, #{i.workflowKey}, " +
+            "#{i.workflowName}, #{i.formId}, " +
+            "#{i.formData}, #{i.status}, #{i.currentNodeId}, #{i.startUserId}, #{i.startUserName}, #{i.startTime}, " +
+            "#{i.endTime}, #{i.duration}, #{i.businessKey}, #{i.title}, #{i.priority}, #{i.version}, 0)" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<WorkflowInstance> instances);
+
+    /**
+     * 按发起时间范围逐行读取实例（只进游标，需在事务中遍历）
+     * 同时读取归档表，已归档的实例不会从导出中遗漏
+     * MySQL需在连接串中开启useCursorFetch=true，fetchSize才会生效
+     */
+    @Select("<script>" +
+            "SELECT " + WorkflowArchiveMapper.INSTANCE_COLUMNS + " FROM workflow_instance WHERE deleted = 0" +
+            "<if test='from != null'> AND start_time &gt;= #{from}</if>" +
+            "<if test='to != null'> AND start_time &lt; #{to}</if>" +
+            " UNION ALL SELECT " + WorkflowArchiveMapper.INSTANCE_COLUMNS +
+            " FROM workflow_instance_archive WHERE deleted = 0" +
+            "<if test='from != null'> AND start_time &gt;= #{from}</if>" +
+            "<if test='to != null'> AND start_time &lt; #{to}</if>" +
+            " ORDER BY start_time, id" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<WorkflowInstance> streamByStartTime(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
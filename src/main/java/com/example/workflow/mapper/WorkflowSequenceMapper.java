@@ -0,0 +1,31 @@
+package com.example.workflow.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 号段Mapper（hi/lo主键分配）
+ */
+@Mapper
+public interface WorkflowSequenceMapper {
+
+    /**
+     * 把号段起点后移size，返回更新行数（号段不存在时为0）
+     */
+    @Update("UPDATE workflow_sequence SET next_value = next_value + #{size}, update_time = CURRENT_TIMESTAMP " +
+            "WHERE seq_name = #{name}")
+    int advance(@Param("name") String name, @Param("size") int size);
+
+    @Select("SELECT next_value FROM workflow_sequence WHERE seq_name = #{name}")
+    Long selectNextValue(@Param("name") String name);
+
+    /**
+     * 创建号段，从表中现有最大ID之后开始（表名由调用方校验）
+     */
+    @Insert("INSERT INTO workflow_sequence (seq_name, next_value) " +
+            "SELECT #{name}, COALESCE(MAX(id), 0) + 1 FROM ${table}")
+    int init(@Param("name") String name, @Param("table") String table);
+}
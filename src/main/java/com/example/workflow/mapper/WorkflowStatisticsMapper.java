@@ -0,0 +1,73 @@
+package com.example.workflow.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.workflow.entity.WorkflowStatistics;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 工作流统计Mapper
+ */
+@Mapper
+public interface WorkflowStatisticsMapper extends BaseMapper<WorkflowStatistics> {
+
+    /**
+     * 批量写入快照，已存在的范围覆盖计数
+     */
+    @Insert("<script>" +
+            "INSERT INTO workflow_statistics (scope_type, scope_key, pending_task_count, completed_task_count, " +
+            "started_instance_count, total_instance_count, running_instance_count, approved_instance_count, " +
+            "rejected_instance_count, update_time) VALUES " +
+            "<foreach collection='list' item='s' separator=','>" +
+            "(#{s.scopeType}, #{s.scopeKey}, #{s.pendingTaskCount}, #{s.completedTaskCount}, " +
+            "#{s.startedInstanceCount}, #{s.totalInstanceCount}, #{s.runningInstanceCount}, " +
+            "#{s.approvedInstanceCount}, #{s.rejectedInstanceCount}, #{s.updateTime})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE pending_task_count = VALUES(pending_task_count), " +
+            "completed_task_count = VALUES(completed_task_count), " +
+            "started_instance_count = VALUES(started_instance_count), " +
+            "total_instance_count = VALUES(total_instance_count), " +
+            "running_instance_count = VALUES(running_instance_count), " +
+            "approved_instance_count = VALUES(approved_instance_count), " +
+            "rejected_instance_count = VALUES(rejected_instance_count), " +
+            "update_time = VALUES(update_time)" +
+            "</script>")
+    int upsertBatch(@Param("list") List<WorkflowStatistics> statistics);
+
+    /**
+     * 按处理人汇总任务数（含已归档任务）
+     */
+    @Select("SELECT 'USER' AS scope_type, assignee_id AS scope_key, " +
+            "SUM(CASE WHEN status = 'PENDING' THEN 1 ELSE 0 END) AS pending_task_count, " +
+            "SUM(CASE WHEN status IN ('APPROVED', 'REJECTED') THEN 1 ELSE 0 END) AS completed_task_count " +
+            "FROM (SELECT assignee_id, status FROM workflow_task " +
+            "UNION ALL SELECT assignee_id, status FROM workflow_task_archive) t " +
+            "WHERE assignee_id IS NOT NULL GROUP BY assignee_id")
+    List<WorkflowStatistics> aggregateTasksByAssignee();
+
+    /**
+     * 按发起人汇总流程数（含已归档实例）
+     */
+    @Select("SELECT 'USER' AS scope_type, start_user_id AS scope_key, COUNT(*) AS started_instance_count " +
+            "FROM (SELECT start_user_id FROM workflow_instance " +
+            "UNION ALL SELECT start_user_id FROM workflow_instance_archive) i " +
+            "WHERE start_user_id IS NOT NULL GROUP BY start_user_id")
+    List<WorkflowStatistics> aggregateInstancesByStartUser();
+
+    /**
+     * 按工作流汇总流程数（含已归档实例）
+     */
+    @Select("SELECT 'WORKFLOW' AS scope_type, workflow_id AS scope_key, " +
+            "COUNT(*) AS total_instance_count, " +
+            "SUM(CASE WHEN status = 'RUNNING' THEN 1 ELSE 0 END) AS running_instance_count, " +
+            "SUM(CASE WHEN status = 'APPROVED' THEN 1 ELSE 0 END) AS approved_instance_count, " +
+            "SUM(CASE WHEN status = 'REJECTED' THEN 1 ELSE 0 END) AS rejected_instance_count " +
+            "FROM (SELECT workflow_id, status FROM workflow_instance " +
+            "UNION ALL SELECT workflow_id, status FROM workflow_instance_archive) i " +
+            "GROUP BY workflow_id")
+    List<WorkflowStatistics> aggregateInstancesByWorkflow();
+}
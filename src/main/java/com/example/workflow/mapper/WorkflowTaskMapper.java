@@ -2,11 +2,94 @@ package com.example.workflow.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.workflow.entity.WorkflowTask;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 工作流任务Mapper
  */
 @Mapper
 public interface WorkflowTaskMapper extends BaseMapper<WorkflowTask> {
+
+    /**
+     * 批量插入任务（多行INSERT），不经过自动填充，id和createTime需由调用方设置
+     */
+    @Insert("<script>" +
+            "INSERT INTO workflow_task (id, instance_id, instance_no, node_id, node_key, node_name, node_type, " +
+            "assignee_id, assignee_name, status, create_time, due_time, priority) VALUES " +
+            "<foreach collection='list' item='t' separator=','>" +
+            "(#{t.id}, #{t.instanceId}, #{t.instanceNo}, #{t.nodeId}, #{t.nodeKey}, #{t.nodeName}, #{t.nodeType}, " +
+            "#{t.assigneeId}, #{t.assigneeName}, #{t.status}, #{t.createTime}, #{t.dueTime}, #{t.priority})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<WorkflowTask> tasks);
+
+    /**
+     * 批量完成待办任务，只更新仍为PENDING的任务，返回更新行数
+     */
+    @Update("<script>" +
+            "UPDATE workflow_task SET status = #{status}, comment = #{comment}, attachments = #{attachments}, " +
+            "complete_time = #{completeTime} WHERE status = 'PENDING' AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int completeBatch(@Param("ids") List<Long> ids, @Param("status") String status,
+                      @Param("comment") String comment, @Param("attachments") String attachments,
+                      @Param("completeTime") LocalDateTime completeTime);
+
+    /**
+     * 逐行读取设置了到期时间的待办任务（启动时重建超时时间轮，只进游标，需在事务中遍历）
+     */
+    @Select("SELECT id, due_time FROM workflow_task WHERE status = 'PENDING' AND due_time IS NOT NULL")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<WorkflowTask> streamPendingDue();
+
+    /**
+     * 清除待办任务的到期时间（超时提醒只触发一次）
+     */
+    @Update("UPDATE workflow_task SET due_time = NULL WHERE id = #{id} AND status = 'PENDING'")
+    int clearDueTime(@Param("id") Long id);
+
+    /**
+     * 审批人的待办任务，可按工作流、节点筛选，按创建时间先后返回
+     */
+    @Select("<script>" +
+            "SELECT t.* FROM workflow_task t" +
+            "<if test='workflowId != null'>" +
+            " JOIN workflow_instance i ON i.id = t.instance_id AND i.workflow_id = #{workflowId}" +
+            "</if>" +
+            " WHERE t.assignee_id = #{assigneeId} AND t.status = 'PENDING'" +
+            "<if test='nodeId != null'> AND t.node_id = #{nodeId}</if>" +
+            " ORDER BY t.create_time, t.id LIMIT #{limit}" +
+            "</script>")
+    List<WorkflowTask> selectPendingByAssignee(@Param("assigneeId") String assigneeId,
+                                               @Param("workflowId") Long workflowId,
+                                               @Param("nodeId") Long nodeId,
+                                               @Param("limit") int limit);
+
+    /**
+     * 按创建时间范围逐行读取任务（只进游标，需在事务中遍历）
+     * 同时读取归档表，已归档的任务不会从导出中遗漏
+     * MySQL需在连接串中开启useCursorFetch=true，fetchSize才会生效
+     */
+    @Select("<script>" +
+            "SELECT " + WorkflowArchiveMapper.TASK_COLUMNS + " FROM workflow_task WHERE 1 = 1" +
+            "<if test='from != null'> AND create_time &gt;= #{from}</if>" +
+            "<if test='to != null'> AND create_time &lt; #{to}</if>" +
+            " UNION ALL SELECT " + WorkflowArchiveMapper.TASK_COLUMNS +
+            " FROM workflow_task_archive WHERE 1 = 1" +
+            "<if test='from != null'> AND create_time &gt;= #{from}</if>" +
+            "<if test='to != null'> AND create_time &lt; #{to}</if>" +
+            " ORDER BY create_time, id" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<WorkflowTask> streamByCreateTime(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,42 @@
+package com.example.workflow.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.workflow.entity.WorkflowToken;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 流程令牌Mapper
+ */
+@Mapper
+public interface WorkflowTokenMapper extends BaseMapper<WorkflowToken> {
+
+    /**
+     * 查询停留在节点上的活动令牌
+     */
+    @Select("SELECT * FROM workflow_token WHERE instance_id = #{instanceId} AND node_id = #{nodeId} " +
+            "AND status = 'ACTIVE' ORDER BY id DESC LIMIT 1")
+    WorkflowToken selectActiveByNode(@Param("instanceId") Long instanceId, @Param("nodeId") Long nodeId);
+
+    /**
+     * 子令牌到达汇聚节点，父令牌计数减一（行锁保证并发分支只有一个看到计数归零）
+     */
+    @Update("UPDATE workflow_token SET active_children = active_children - 1, update_time = CURRENT_TIMESTAMP " +
+            "WHERE id = #{id} AND status = 'WAITING' AND active_children > 0")
+    int decrementActiveChildren(@Param("id") Long id);
+
+    /**
+     * 查询父令牌剩余的未汇聚分支数
+     */
+    @Select("SELECT active_children FROM workflow_token WHERE id = #{id}")
+    Integer selectActiveChildren(@Param("id") Long id);
+
+    /**
+     * 取消实例下所有未结束的令牌
+     */
+    @Update("UPDATE workflow_token SET status = 'CANCELED', update_time = CURRENT_TIMESTAMP " +
+            "WHERE instance_id = #{instanceId} AND status IN ('ACTIVE', 'WAITING')")
+    int cancelByInstanceId(@Param("instanceId") Long instanceId);
+}
@@ -1,12 +1,27 @@
 package com.example.workflow.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.example.workflow.entity.*;
+import com.example.workflow.entity.WorkflowVariable;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 工作流变量Mapper
  */
 @Mapper
-interface WorkflowVariableMapper extends BaseMapper<WorkflowVariable> {
+public interface WorkflowVariableMapper extends BaseMapper<WorkflowVariable> {
+
+    /**
+     * 批量插入变量（多行INSERT），不经过自动填充，createTime和updateTime需由调用方设置
+     */
+    @Insert("<script>" +
+            "INSERT INTO workflow_variable (instance_id, var_key, var_value, var_type, create_time, update_time) VALUES " +
+            "<foreach collection='list' item='v' separator=','>" +
+            "(#{v.instanceId}, #{v.varKey}, #{v.varValue}, #{v.varType}, #{v.createTime}, #{v.updateTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<WorkflowVariable> variables);
 }
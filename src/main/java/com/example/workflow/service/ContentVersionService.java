@@ -0,0 +1,44 @@
+package com.example.workflow.service;
+
+/**
+ * 内容版本服务
+ * 在内存中记录流程定义、表单和流程实例的内容版本，生成ETag，条件请求命中时无需查询数据库即可返回304。
+ * 版本只记录本节点提交的变更，多节点部署时见实现类说明；ETag方法在关闭条件请求时返回null
+ */
+public interface ContentVersionService {
+
+    /**
+     * 流程定义已变更（事务提交后生效）
+     */
+    void definitionChanged(Long workflowId);
+
+    /**
+     * 表单已变更（事务提交后生效）
+     */
+    void formChanged(Long formId);
+
+    /**
+     * 流程实例状态或任务已变更（事务提交后生效）
+     */
+    void instanceChanged(Long instanceId);
+
+    /**
+     * 流程定义详情的ETag
+     */
+    String definitionETag(Long workflowId);
+
+    /**
+     * 流程配置的ETag（包含关联表单）
+     */
+    String configETag(Long workflowId);
+
+    /**
+     * 表单详情的ETag
+     */
+    String formETag(Long formId);
+
+    /**
+     * 流程实例流程图、表单数据的ETag（包含流程定义和表单）
+     */
+    String instanceETag(Long instanceId);
+}
@@ -0,0 +1,31 @@
+package com.example.workflow.service;
+
+/**
+ * ID服务
+ * 实体主键按表从数据库号段（hi/lo）中批量领取，一个号段用完前不再访问数据库；
+ * 流程实例编号由时间有序的64位ID生成，跨节点不重复且按发起时间排序
+ */
+public interface IdService {
+
+    /**
+     * 领取一个主键
+     *
+     * @param table 表名，每张表一个号段
+     */
+    long nextId(String table);
+
+    /**
+     * 一次领取多个主键，用于批量写入前预先分配
+     */
+    long[] nextIds(String table, int count);
+
+    /**
+     * 时间有序的64位ID
+     */
+    long nextTimeOrderedId();
+
+    /**
+     * 流程实例编号：WF + 13位定长36进制，字典序与生成顺序一致
+     */
+    String nextInstanceNo();
+}
@@ -0,0 +1,27 @@
+package com.example.workflow.service;
+
+import com.example.workflow.dto.TaskApproveDTO;
+import com.example.workflow.dto.TaskTransferDTO;
+
+/**
+ * 流程实例命令调度器
+ * 按实例ID把审批、转交、撤销命令分配到固定的处理队列，同一实例的命令串行执行，不同实例并行执行；
+ * 同一实例排队中的多条命令合并为一次引擎流转、一次提交。未启用时直接调用工作流服务
+ */
+public interface InstanceDispatcher {
+
+    /**
+     * 审批任务
+     */
+    void approveTask(Long taskId, TaskApproveDTO dto);
+
+    /**
+     * 转交任务
+     */
+    void transferTask(Long taskId, TaskTransferDTO dto);
+
+    /**
+     * 撤销流程
+     */
+    void cancelInstance(Long instanceId, String reason);
+}
@@ -0,0 +1,26 @@
+package com.example.workflow.service;
+
+import com.example.workflow.engine.OrgDirectory;
+
+/**
+ * 组织架构快照服务
+ * 在内存中维护用户、部门、角色的索引快照，审批人解析不再逐个查询数据库
+ */
+public interface OrgDirectoryService {
+
+    /**
+     * 获取当前快照（首次调用时构建）
+     */
+    OrgDirectory getDirectory();
+
+    /**
+     * 检查组织架构表是否变更，只重新加载发生变更的表并重建快照
+     */
+    void refresh();
+
+    /**
+     * 不比对指纹，立即重新加载全部表并重建快照
+     * 组织架构由外部系统写入，写入后调用此方法（或对应接口）使变更立即生效，不必等待定时检测
+     */
+    void reload();
+}
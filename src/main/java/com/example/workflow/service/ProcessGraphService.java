@@ -0,0 +1,42 @@
+package com.example.workflow.service;
+
+import com.example.workflow.engine.ProcessGraph;
+import com.example.workflow.entity.WorkflowInstance;
+
+/**
+ * 流程图缓存服务
+ * 按流程定义ID和版本缓存编译后的流程图，引擎路由不再查询节点、连线和审批人配置
+ */
+public interface ProcessGraphService {
+
+    /**
+     * 获取指定版本的流程图（缓存未命中时从数据库构建），版本0为草稿
+     */
+    ProcessGraph getGraph(Long workflowId, int definitionVersion);
+
+    /**
+     * 获取流程实例发起时版本的流程图，未记录版本的实例使用草稿
+     */
+    ProcessGraph getGraph(WorkflowInstance instance);
+
+    /**
+     * 根据节点ID获取所属流程图
+     */
+    ProcessGraph getGraphByNodeId(Long nodeId);
+
+    /**
+     * 使指定版本的流程图缓存失效，事务结束后再失效一次
+     * 保存配置后失效草稿；发布时失效新版本，事务回滚后不会留下按未提交快照构建的流程图
+     */
+    void evict(Long workflowId, int definitionVersion);
+
+    /**
+     * 使流程定义所有版本（含草稿）的流程图缓存失效，事务结束后再失效一次，删除流程定义时调用
+     */
+    void evictAll(Long workflowId);
+
+    /**
+     * 预热指定版本的流程图（发布流程后调用，事务提交后构建）
+     */
+    void preload(Long workflowId, int definitionVersion);
+}
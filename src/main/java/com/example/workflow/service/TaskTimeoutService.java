@@ -0,0 +1,23 @@
+package com.example.workflow.service;
+
+import com.example.workflow.entity.WorkflowTask;
+
+import java.util.List;
+
+/**
+ * 审批超时服务
+ * 待办任务的到期时间（workflow_task.due_time）由节点超时策略计算；到期定时器保存在内存中的分层时间轮里，
+ * 启动时按due_time索引重建，不需要定时扫描任务表。到期后按节点配置提醒、自动通过、升级给上级或自动拒绝
+ */
+public interface TaskTimeoutService {
+
+    /**
+     * 为新建的待办任务登记超时定时器（在事务中调用时，事务提交后才登记）
+     */
+    void schedule(List<WorkflowTask> tasks);
+
+    /**
+     * 任务已处理，取消其超时定时器（在事务中调用时，事务提交后才取消）
+     */
+    void cancel(Long taskId);
+}
@@ -0,0 +1,33 @@
+package com.example.workflow.service;
+
+import com.example.workflow.vo.NodeBottleneckVO;
+
+import java.util.List;
+
+/**
+ * 流程节点耗时分析服务
+ * 按节点维护耗时直方图（事务提交后记录），用于定位审批瓶颈
+ */
+public interface WorkflowAnalyticsService {
+
+    /**
+     * 审批人处理完一个任务（同意、拒绝或转交）
+     *
+     * @param durationMillis 从任务创建到完成的耗时
+     */
+    void onTaskCompleted(Long nodeId, String nodeName, long durationMillis);
+
+    /**
+     * 流程离开一个审批节点
+     *
+     * @param dwellMillis 从节点产生第一个任务到流转离开的耗时
+     */
+    void onNodeCompleted(Long nodeId, String nodeName, long dwellMillis);
+
+    /**
+     * 瓶颈报告：按节点停留时间P95从高到低排序
+     *
+     * @param workflowId 工作流ID，为空时统计全部工作流
+     */
+    List<NodeBottleneckVO> getBottlenecks(Long workflowId, int limit);
+}
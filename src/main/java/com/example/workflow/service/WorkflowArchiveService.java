@@ -0,0 +1,16 @@
+package com.example.workflow.service;
+
+/**
+ * 流程归档服务
+ * 把结束超过保留天数的流程实例连同任务、历史、抄送、变量分批搬到归档表，
+ * 运行中的数据留在原表，原表和索引保持较小的规模
+ */
+public interface WorkflowArchiveService {
+
+    /**
+     * 执行一轮归档，直到没有可归档的实例
+     *
+     * @return 归档的实例数
+     */
+    int archive();
+}
@@ -0,0 +1,31 @@
+package com.example.workflow.service;
+
+import com.example.workflow.dto.BatchTaskApproveDTO;
+import com.example.workflow.vo.BatchItemResultVO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 批量操作服务
+ * 请求体边读边处理，按批提交；单批失败时逐条重试，返回每一条的处理结果
+ */
+public interface WorkflowBulkService {
+
+    /**
+     * 批量发起流程
+     *
+     * @param in WorkflowStartDTO的JSON数组，或每行一个的NDJSON
+     * @return 按请求顺序排列的每条结果
+     */
+    List<BatchItemResultVO> startWorkflows(InputStream in) throws IOException;
+
+    /**
+     * 批量同意或拒绝操作人的待办任务
+     * 任务按实例分组，同一实例的任务在同一事务中完成并只流转一次
+     *
+     * @return 按任务ID列表（或筛选结果）顺序排列的每条结果
+     */
+    List<BatchItemResultVO> approveTasks(BatchTaskApproveDTO dto);
+}
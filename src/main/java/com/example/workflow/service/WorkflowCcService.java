@@ -1,6 +1,7 @@
 package com.example.workflow.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.workflow.vo.CursorPage;
 import com.example.workflow.vo.WorkflowCcVO;
 
 /**
@@ -13,6 +14,11 @@ public interface WorkflowCcService {
      */
     Page<WorkflowCcVO> getMyCc(String userId, Integer pageNum, Integer pageSize);
     
+    /**
+     * 获取我的抄送（游标分页）
+     */
+    CursorPage<WorkflowCcVO> getMyCcByCursor(String userId, String cursor, Integer pageSize, boolean withTotal);
+    
     /**
      * 标记为已读
      */
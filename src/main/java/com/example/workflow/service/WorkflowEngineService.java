@@ -1,5 +1,9 @@
 package com.example.workflow.service;
 
+import com.example.workflow.entity.WorkflowInstance;
+
+import java.util.List;
+
 /**
  * 工作流引擎服务
  * 负责流程的流转逻辑
@@ -11,18 +15,28 @@ public interface WorkflowEngineService {
      */
     void startProcess(Long instanceId);
     
+    /**
+     * 批量启动流程：实例尚未写入、已分配ID，推进到第一个审批节点后与任务、抄送一起批量写入
+     */
+    void startProcesses(List<WorkflowInstance> instances);
+    
     /**
      * 处理任务（根据审批结果流转到下一节点）
      */
     void processTask(Long instanceId, Long taskId, boolean approved);
     
+    /**
+     * 批量处理同一实例下已同意的任务（只占用一次实例版本，各节点依次流转）
+     */
+    void processTasks(Long instanceId, List<Long> taskIds);
+    
     /**
      * 计算下一个节点
      */
     Long calculateNextNode(Long currentNodeId, Long instanceId, boolean approved);
     
     /**
-     * 创建任务
+     * 进入节点并创建任务（抄送、条件等自动节点会继续流转到下一个审批节点）
      */
     void createTasks(Long instanceId, Long nodeId);
 }
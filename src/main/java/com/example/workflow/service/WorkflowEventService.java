@@ -0,0 +1,38 @@
+package com.example.workflow.service;
+
+import com.example.workflow.entity.WorkflowCc;
+import com.example.workflow.entity.WorkflowTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * 待办和抄送变更推送服务
+ * 每个用户可建立若干SSE连接，任务、抄送变更在事务提交后推送给相关用户，前端无需轮询待办和抄送列表。
+ * 只推送本节点产生的变更，多节点部署时见实现类说明
+ */
+public interface WorkflowEventService {
+
+    /**
+     * 建立用户的推送连接
+     *
+     * @param lastEventId 客户端重连时带上的最后收到的事件ID，首次连接为null；
+     *                    能补发时补发其后的事件，否则推送RESYNC事件
+     */
+    SseEmitter subscribe(String userId, String lastEventId);
+
+    /**
+     * 新建了待办任务
+     */
+    void onTasksCreated(List<WorkflowTask> tasks);
+
+    /**
+     * 待办任务已处理或被取消（任务状态为处理后的状态）
+     */
+    void onTaskCompleted(WorkflowTask task);
+
+    /**
+     * 新建了抄送
+     */
+    void onCcCreated(List<WorkflowCc> ccList);
+}
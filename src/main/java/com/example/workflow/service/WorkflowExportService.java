@@ -0,0 +1,28 @@
+package com.example.workflow.service;
+
+import com.example.workflow.dto.ExportQueryDTO;
+import com.example.workflow.dto.enums.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 数据导出服务
+ * 按时间范围从只进游标逐行读取流程实例、任务、历史，直接写入输出流，内存占用与导出行数无关
+ */
+public interface WorkflowExportService {
+
+    /**
+     * 校验导出参数，返回导出格式（开始写出之前调用，参数错误时仍可返回错误信息）
+     *
+     * @param table 导出的表：workflow_instance、workflow_task、workflow_history
+     */
+    ExportFormat validate(String table, ExportQueryDTO query);
+
+    /**
+     * 导出数据到输出流（不关闭输出流）
+     *
+     * @return 导出的行数
+     */
+    long export(String table, ExportQueryDTO query, OutputStream out) throws IOException;
+}
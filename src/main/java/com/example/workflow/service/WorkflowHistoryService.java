@@ -0,0 +1,20 @@
+package com.example.workflow.service;
+
+import com.example.workflow.entity.WorkflowHistory;
+
+/**
+ * 流程历史写入服务
+ * 历史记录在业务事务提交后进入有界队列，由后台线程批量写入，不占用审批事务的时间
+ */
+public interface WorkflowHistoryService {
+
+    /**
+     * 记录历史（在事务中调用时，事务提交后才写入；事务回滚则丢弃）
+     */
+    void record(WorkflowHistory history);
+
+    /**
+     * 将队列中的历史立即写入数据库
+     */
+    void flush();
+}
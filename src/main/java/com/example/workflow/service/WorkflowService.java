@@ -1,6 +1,8 @@
 package com.example.workflow.service;
 
 import com.example.workflow.dto.*;
+import com.example.workflow.entity.WorkflowInstance;
+import com.example.workflow.entity.WorkflowTask;
 import com.example.workflow.vo.*;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 
@@ -50,12 +52,31 @@ public interface WorkflowService {
      * 启动工作流
      */
     Long startWorkflow(WorkflowStartDTO dto);
+
+    /**
+     * 批量启动工作流（同一事务，任一失败则全部回滚）
+     * 定义一次加载，实例、变量、任务按批合并写入
+     *
+     * @return 与入参顺序一致的已启动实例
+     */
+    List<WorkflowInstance> startWorkflows(List<WorkflowStartDTO> dtos);
     
     /**
      * 审批任务
      */
     void approveTask(Long taskId, TaskApproveDTO dto);
     
+    /**
+     * 完成任务（更新任务状态并记录历史，不触发流程流转）
+     */
+    WorkflowTask completeTask(Long taskId, TaskApproveDTO dto);
+    
+    /**
+     * 批量完成待办任务（一条UPDATE更新全部任务，不触发流程流转）
+     * 任一任务已不是待办状态时抛出异常，由调用方回滚
+     */
+    void completeTasks(List<WorkflowTask> tasks, TaskApproveDTO dto);
+    
     /**
      * 转交任务
      */
@@ -71,11 +92,21 @@ public interface WorkflowService {
      */
     Page<TaskVO> getMyPendingTasks(TaskQueryDTO query);
     
+    /**
+     * 获取我的待办任务（游标分页）
+     */
+    CursorPage<TaskVO> getMyPendingTasksByCursor(TaskQueryDTO query);
+    
     /**
      * 获取我发起的流程
      */
     Page<InstanceVO> getMyInstances(InstanceQueryDTO query);
     
+    /**
+     * 获取我发起的流程（游标分页）
+     */
+    CursorPage<InstanceVO> getMyInstancesByCursor(InstanceQueryDTO query);
+    
     /**
      * 获取流程实例详情（完整信息）
      */
@@ -0,0 +1,32 @@
+package com.example.workflow.service;
+
+import com.example.workflow.entity.WorkflowDefinition;
+
+/**
+ * 流程定义快照服务
+ * 保存配置只修改草稿（版本0）的节点、连线和审批人；发布时把草稿复制为新版本的快照，快照生成后不再修改。
+ * 流程实例记录发起时的版本，始终按该版本流转，修改或重新发布流程定义不影响运行中的实例
+ */
+public interface WorkflowSnapshotService {
+
+    /**
+     * 草稿版本号
+     */
+    int DRAFT = 0;
+
+    /**
+     * 发布：把当前草稿复制为新版本并启用流程定义，返回新版本号
+     */
+    int publish(Long workflowId);
+
+    /**
+     * 发起流程时使用的版本
+     * 已启用但还没有快照的流程定义（版本化之前发布的）在此补建快照
+     */
+    int currentVersion(WorkflowDefinition definition);
+
+    /**
+     * 为全部已启用但还没有快照的流程定义补建快照，启动时执行，发起流程时不必再补建
+     */
+    void backfill();
+}
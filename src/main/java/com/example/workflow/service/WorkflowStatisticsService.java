@@ -0,0 +1,69 @@
+package com.example.workflow.service;
+
+import com.example.workflow.entity.WorkflowTask;
+import com.example.workflow.vo.WorkflowStatisticsVO;
+
+import java.util.List;
+
+/**
+ * 工作流统计服务
+ * 在内存中按全局、用户、工作流维度维护计数器，由流程状态变化增量更新（事务提交后生效），
+ * 查询时直接读取计数器，定期写入统计快照表
+ */
+public interface WorkflowStatisticsService {
+
+    /**
+     * 获取用户统计（待办数、已办数、发起数）
+     */
+    WorkflowStatisticsVO getUserStatistics(String userId);
+
+    /**
+     * 获取工作流统计（总数、运行中、已通过、已拒绝）
+     */
+    WorkflowStatisticsVO getWorkflowStatistics(Long workflowId);
+
+    /**
+     * 获取全局统计
+     */
+    WorkflowStatisticsVO getGlobalStatistics();
+
+    /**
+     * 任务已创建
+     */
+    void onTasksCreated(List<WorkflowTask> tasks);
+
+    /**
+     * 任务已处理（同意或拒绝）
+     */
+    void onTaskCompleted(String assigneeId);
+
+    /**
+     * 待办任务已取消
+     */
+    void onTaskCanceled(String assigneeId);
+
+    /**
+     * 待办任务已转交
+     */
+    void onTaskTransferred(String fromAssigneeId, String toAssigneeId);
+
+    /**
+     * 流程已发起
+     */
+    void onInstanceStarted(Long workflowId, String startUserId);
+
+    /**
+     * 流程已结束（通过、拒绝或撤销）
+     */
+    void onInstanceFinished(Long workflowId, String status);
+
+    /**
+     * 从业务表重新汇总全部计数器
+     */
+    void rebuild();
+
+    /**
+     * 将有变化的计数器写入统计快照表
+     */
+    void snapshot();
+}
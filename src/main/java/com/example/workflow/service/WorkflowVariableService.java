@@ -0,0 +1,38 @@
+package com.example.workflow.service;
+
+import com.example.workflow.entity.WorkflowInstance;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流程变量服务
+ * 表单数据在发起时解析一次并持久化到workflow_variable，之后引擎路由、审批人解析和查询接口共用同一份实例变量
+ */
+public interface WorkflowVariableService {
+
+    /**
+     * 解析表单数据并保存为流程变量（发起流程时调用）
+     */
+    void initVariables(Long instanceId, String formData);
+
+    /**
+     * 批量解析多个实例的表单数据并保存为流程变量（批量发起时调用，所有变量合并写入）
+     */
+    void initVariables(List<WorkflowInstance> instances);
+
+    /**
+     * 获取实例变量（只读）
+     */
+    Map<String, Object> getVariables(Long instanceId);
+
+    /**
+     * 按路径获取变量值，支持嵌套属性和数组下标，如 applicant.userId、items[0].amount
+     */
+    Object getValue(Long instanceId, String path);
+
+    /**
+     * 移除实例变量缓存
+     */
+    void evict(Long instanceId);
+}
@@ -0,0 +1,43 @@
+package com.example.workflow.service.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 事务提交后执行的内存状态变更
+ * 同一事务登记的回调合并到一个事务同步中，提交后按登记顺序执行，回滚则丢弃；不在事务中时立即执行
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.run();
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Callbacks) {
+                ((Callbacks) synchronization).callbacks.add(callback);
+                return;
+            }
+        }
+        Callbacks callbacks = new Callbacks();
+        callbacks.callbacks.add(callback);
+        TransactionSynchronizationManager.registerSynchronization(callbacks);
+    }
+
+    private static final class Callbacks implements TransactionSynchronization {
+
+        private final List<Runnable> callbacks = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            callbacks.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.service.ContentVersionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 内容版本服务实现
+ * 版本按ID分片保存在定长数组中，内存占用固定；同一分片内任一对象变更都会使分片版本递增，
+ * 只会让个别请求多返回一次200。
+ * 版本在事务提交后递增，读取时先取版本再查询数据，因此ETag只会比内容旧、不会比内容新。
+ * 实例接口不知道实例关联的流程定义和表单，改用流程定义、表单的全局版本，定义和表单很少修改，影响不大。
+ * ETag带启动标识，重启后版本从0开始也不会与重启前的ETag相同。
+ * 版本只在发生变更的节点上递增，只有单节点部署时304才一定对应最新内容：多节点部署时，
+ * 客户端从A节点取得ETag，变更发生在B节点，再次请求A节点会收到304和过期内容。
+ * 多节点部署且不能按流程定义或实例做会话保持时，应通过workflow.etag.enabled关闭条件请求
+ */
+@Service
+public class ContentVersionServiceImpl implements ContentVersionService {
+
+    private static final int STRIPES = 4096;
+
+    /**
+     * 是否生成ETag，关闭时所有接口都返回完整内容
+     */
+    @Value("${workflow.etag.enabled:true}")
+    private boolean enabled;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Versions definitions = new Versions();
+
+    private final Versions forms = new Versions();
+
+    private final Versions instances = new Versions();
+
+    @Override
+    public void definitionChanged(Long workflowId) {
+        AfterCommit.run(() -> definitions.increment(workflowId));
+    }
+
+    @Override
+    public void formChanged(Long formId) {
+        AfterCommit.run(() -> forms.increment(formId));
+    }
+
+    @Override
+    public void instanceChanged(Long instanceId) {
+        AfterCommit.run(() -> instances.increment(instanceId));
+    }
+
+    @Override
+    public String definitionETag(Long workflowId) {
+        return etag("d", workflowId, definitions.get(workflowId));
+    }
+
+    @Override
+    public String configETag(Long workflowId) {
+        return etag("c", workflowId, definitions.get(workflowId) + "." + forms.global.get());
+    }
+
+    @Override
+    public String formETag(Long formId) {
+        return etag("f", formId, forms.get(formId));
+    }
+
+    @Override
+    public String instanceETag(Long instanceId) {
+        return etag("i", instanceId,
+            instances.get(instanceId) + "." + definitions.global.get() + "." + forms.global.get());
+    }
+
+    // ========== 私有方法 ==========
+
+    private String etag(String type, Long id, Object version) {
+        if (!enabled) {
+            return null;
+        }
+        return "\"" + type + id + "-" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * 一类对象的分片版本和全局版本
+     */
+    private static final class Versions {
+
+        private final AtomicLongArray stripes = new AtomicLongArray(STRIPES);
+
+        private final AtomicLong global = new AtomicLong();
+
+        long get(Long id) {
+            return stripes.get(stripe(id));
+        }
+
+        void increment(Long id) {
+            if (id != null) {
+                stripes.incrementAndGet(stripe(id));
+            }
+            global.incrementAndGet();
+        }
+
+        private static int stripe(Long id) {
+            return id != null ? (int) Math.floorMod(id, (long) STRIPES) : 0;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.engine.SnowflakeIdGenerator;
+import com.example.workflow.mapper.WorkflowSequenceMapper;
+import com.example.workflow.service.IdService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * ID服务实现
+ * 号段在独立事务中领取并立即提交，业务事务回滚不会退回号段（主键可能有空洞，但不会重复）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdServiceImpl implements IdService {
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[a-z][a-z0-9_]*");
+
+    private static final int INSTANCE_NO_WIDTH = 13;
+
+    private final WorkflowSequenceMapper workflowSequenceMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 节点号（0~1023），多节点部署时每个节点必须不同
+     */
+    @Value("${workflow.id.node-id:0}")
+    private int nodeId;
+
+    /**
+     * 每次从数据库领取的主键数
+     */
+    @Value("${workflow.id.block-size:1000}")
+    private int blockSize;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    private SnowflakeIdGenerator snowflake;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        snowflake = new SnowflakeIdGenerator(nodeId);
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        log.info("ID服务已启动：nodeId={}, blockSize={}", nodeId, blockSize);
+    }
+
+    @Override
+    public long nextId(String table) {
+        return nextIds(table, 1)[0];
+    }
+
+    @Override
+    public long[] nextIds(String table, int count) {
+        long[] ids = new long[count];
+        Block block = blocks.computeIfAbsent(table, this::newBlock);
+        block.lock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                if (block.next >= block.limit) {
+                    // 批量领取时一次取够，避免多次访问数据库
+                    int size = Math.max(Math.max(1, blockSize), count - i);
+                    block.next = allocate(table, size);
+                    block.limit = block.next + size;
+                }
+                ids[i] = block.next++;
+            }
+        } finally {
+            block.lock.unlock();
+        }
+        return ids;
+    }
+
+    @Override
+    public long nextTimeOrderedId() {
+        return snowflake.nextId();
+    }
+
+    @Override
+    public String nextInstanceNo() {
+        String value = Long.toString(snowflake.nextId(), 36).toUpperCase();
+        StringBuilder no = new StringBuilder(2 + INSTANCE_NO_WIDTH).append("WF");
+        for (int i = value.length(); i < INSTANCE_NO_WIDTH; i++) {
+            no.append('0');
+        }
+        return no.append(value).toString();
+    }
+
+    // ========== 私有方法 ==========
+
+    private Block newBlock(String table) {
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new RuntimeException("表名无效：" + table);
+        }
+        return new Block();
+    }
+
+    /**
+     * 领取[起点, 起点+size)号段，返回起点
+     */
+    private long allocate(String table, int size) {
+        Long end = requiresNew.execute(status -> {
+            if (workflowSequenceMapper.advance(table, size) == 0) {
+                try {
+                    workflowSequenceMapper.init(table, table);
+                } catch (DuplicateKeyException e) {
+                    // 其他节点已创建
+                }
+                workflowSequenceMapper.advance(table, size);
+            }
+            return workflowSequenceMapper.selectNextValue(table);
+        });
+        if (end == null) {
+            throw new RuntimeException("主键号段分配失败：" + table);
+        }
+        log.debug("领取主键号段：table={}, from={}, size={}", table, end - size, size);
+        return end - size;
+    }
+
+    /**
+     * 一张表当前使用的号段
+     * 号段用完时持有锁访问数据库领取新号段，同一张表的其他线程等待领取完成
+     */
+    private static final class Block {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next;
+        private long limit;
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.config.WorkerThreadFactory;
+import com.example.workflow.dto.TaskApproveDTO;
+import com.example.workflow.dto.TaskTransferDTO;
+import com.example.workflow.entity.WorkflowTask;
+import com.example.workflow.mapper.WorkflowTaskMapper;
+import com.example.workflow.service.InstanceDispatcher;
+import com.example.workflow.service.WorkflowEngineService;
+import com.example.workflow.service.WorkflowService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流程实例命令调度器实现
+ * 每个处理队列由一个线程消费：取出一条命令后顺带取走队列中已积压的命令，按实例分组，
+ * 同一实例的命令在一个事务内依次执行，连续的同意合并为一次引擎流转。合并执行失败时逐条重新执行，
+ * 保证每条命令得到与单独执行相同的结果
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InstanceDispatcherImpl implements InstanceDispatcher {
+
+    private final WorkflowService workflowService;
+    private final WorkflowEngineService workflowEngineService;
+    private final WorkflowTaskMapper workflowTaskMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final WorkerThreadFactory workerThreadFactory;
+
+    @Value("${workflow.dispatcher.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 处理队列数，0表示使用CPU核数
+     */
+    @Value("${workflow.dispatcher.lanes:0}")
+    private int laneCount;
+
+    /**
+     * 每个队列的最大积压命令数
+     */
+    @Value("${workflow.dispatcher.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * 单次取出合并处理的最大命令数
+     */
+    @Value("${workflow.dispatcher.max-batch:64}")
+    private int maxBatch;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Lane[] lanes;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        running = true;
+        lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = new Lane(i);
+            lanes[i].thread.start();
+        }
+        log.info("流程实例命令调度器已启动：lanes={}, queueCapacity={}, maxBatch={}", count, queueCapacity, maxBatch);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        // 停止后仍未处理的命令直接失败，避免调用方一直等待
+        for (Lane lane : lanes) {
+            List<Command> pending = new ArrayList<>();
+            lane.queue.drainTo(pending);
+            pending.forEach(c -> c.future.completeExceptionally(new RuntimeException("审批调度器已停止")));
+        }
+        log.info("流程实例命令调度器已停止");
+    }
+
+    @Override
+    public void approveTask(Long taskId, TaskApproveDTO dto) {
+        if (!running) {
+            workflowService.approveTask(taskId, dto);
+            return;
+        }
+        dispatch(new Command(findInstanceId(taskId), taskId, dto, null));
+    }
+
+    @Override
+    public void transferTask(Long taskId, TaskTransferDTO dto) {
+        if (!running) {
+            workflowService.transferTask(taskId, dto);
+            return;
+        }
+        dispatch(new Command(findInstanceId(taskId), taskId, null, () -> workflowService.transferTask(taskId, dto)));
+    }
+
+    @Override
+    public void cancelInstance(Long instanceId, String reason) {
+        if (!running) {
+            workflowService.cancelInstance(instanceId, reason);
+            return;
+        }
+        dispatch(new Command(instanceId, null, null, () -> workflowService.cancelInstance(instanceId, reason)));
+    }
+
+    // ========== 私有方法 ==========
+
+    private Long findInstanceId(Long taskId) {
+        WorkflowTask task = workflowTaskMapper.selectById(taskId);
+        if (task == null) {
+            throw new RuntimeException("任务不存在");
+        }
+        return task.getInstanceId();
+    }
+
+    /**
+     * 提交命令并等待其所在事务提交
+     */
+    private void dispatch(Command command) {
+        Lane lane = lanes[Math.floorMod(Long.hashCode(command.instanceId), lanes.length)];
+        if (!lane.queue.offer(command)) {
+            throw new RuntimeException("审批处理繁忙，请稍后重试");
+        }
+        try {
+            command.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待审批处理被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * 执行同一实例的一组命令
+     */
+    private void execute(Long instanceId, List<Command> commands) {
+        if (commands.size() > 1) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(instanceId, commands));
+                commands.forEach(c -> c.future.complete(null));
+                log.debug("流程实例 {} 合并执行 {} 条命令", instanceId, commands.size());
+                return;
+            } catch (RuntimeException e) {
+                log.debug("流程实例 {} 合并执行失败，逐条执行：{}", instanceId, e.getMessage());
+            }
+        }
+        for (Command command : commands) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    apply(instanceId, Collections.singletonList(command)));
+                command.future.complete(null);
+            } catch (Throwable e) {
+                command.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 在当前事务内依次执行命令，连续的同意只在遇到其他命令或结束时统一流转一次，保持与逐条执行相同的先后顺序
+     */
+    private void apply(Long instanceId, List<Command> commands) {
+        List<Long> approvedTaskIds = new ArrayList<>();
+        for (Command command : commands) {
+            if (command.approve != null && command.approve.isApproved()) {
+                workflowService.completeTask(command.taskId, command.approve);
+                approvedTaskIds.add(command.taskId);
+                continue;
+            }
+            flush(instanceId, approvedTaskIds);
+            if (command.approve != null) {
+                workflowService.approveTask(command.taskId, command.approve);
+            } else {
+                command.action.run();
+            }
+        }
+        flush(instanceId, approvedTaskIds);
+    }
+
+    private void flush(Long instanceId, List<Long> approvedTaskIds) {
+        if (!approvedTaskIds.isEmpty()) {
+            workflowEngineService.processTasks(instanceId, new ArrayList<>(approvedTaskIds));
+            approvedTaskIds.clear();
+        }
+    }
+
+    /**
+     * 处理队列
+     */
+    private final class Lane implements Runnable {
+
+        private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        private final Thread thread;
+
+        Lane(int index) {
+            thread = workerThreadFactory.newThread("instance-lane-" + index, this);
+        }
+
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(maxBatch);
+            while (running) {
+                Command first;
+                try {
+                    first = queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+
+                // 按实例分组，组内保持到达顺序
+                Map<Long, List<Command>> groups = new LinkedHashMap<>();
+                for (Command command : batch) {
+                    groups.computeIfAbsent(command.instanceId, k -> new ArrayList<>()).add(command);
+                }
+                batch.clear();
+
+                for (Map.Entry<Long, List<Command>> group : groups.entrySet()) {
+                    try {
+                        execute(group.getKey(), group.getValue());
+                    } catch (Throwable e) {
+                        log.error("流程实例 {} 命令执行异常", group.getKey(), e);
+                        group.getValue().forEach(c -> c.future.completeExceptionally(e));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 命令：审批命令携带审批参数，其余命令为待执行的操作
+     */
+    private static final class Command {
+
+        private final Long instanceId;
+
+        private final Long taskId;
+
+        private final TaskApproveDTO approve;
+
+        private final Runnable action;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Command(Long instanceId, Long taskId, TaskApproveDTO approve, Runnable action) {
+            this.instanceId = instanceId;
+            this.taskId = taskId;
+            this.approve = approve;
+            this.action = action;
+        }
+    }
+}
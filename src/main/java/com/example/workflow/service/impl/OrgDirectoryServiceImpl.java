@@ -0,0 +1,126 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.engine.OrgDirectory;
+import com.example.workflow.entity.SysDept;
+import com.example.workflow.entity.SysRole;
+import com.example.workflow.entity.SysUser;
+import com.example.workflow.entity.SysUserRole;
+import com.example.workflow.mapper.SysDeptMapper;
+import com.example.workflow.mapper.SysRoleMapper;
+import com.example.workflow.mapper.SysUserMapper;
+import com.example.workflow.mapper.SysUserRoleMapper;
+import com.example.workflow.service.OrgDirectoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 组织架构快照服务实现
+ * 定时比对各表指纹，只重新加载发生变更的表，再由内存中的表数据重建索引；
+ * 指纹只能发现大部分变更，外部系统写入组织架构后应调用reload立即生效
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrgDirectoryServiceImpl implements OrgDirectoryService {
+
+    private final SysUserMapper sysUserMapper;
+    private final SysDeptMapper sysDeptMapper;
+    private final SysRoleMapper sysRoleMapper;
+    private final SysUserRoleMapper sysUserRoleMapper;
+
+    private volatile OrgDirectory directory;
+
+    /**
+     * 刷新锁，保证同一时刻只有一个线程比对指纹并重新加载
+     */
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    /**
+     * 最近一次加载的表数据及指纹，仅在持有刷新锁时访问
+     */
+    private List<SysUser> users = Collections.emptyList();
+    private List<SysDept> depts = Collections.emptyList();
+    private List<SysRole> roles = Collections.emptyList();
+    private List<SysUserRole> userRoles = Collections.emptyList();
+    private String userFingerprint;
+    private String deptFingerprint;
+    private String roleFingerprint;
+    private String userRoleFingerprint;
+    private long version;
+
+    @Override
+    public OrgDirectory getDirectory() {
+        OrgDirectory current = directory;
+        if (current == null) {
+            refresh();
+            current = directory;
+        }
+        return current;
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${workflow.org-directory.refresh-interval:30000}",
+        fixedDelayString = "${workflow.org-directory.refresh-interval:30000}")
+    public void refresh() {
+        load(false);
+    }
+
+    @Override
+    public void reload() {
+        load(true);
+    }
+
+    // ========== 私有方法 ==========
+
+    private void load(boolean force) {
+        refreshLock.lock();
+        try {
+            boolean initial = force || directory == null;
+            boolean changed = initial;
+
+            // 先取指纹再加载数据，加载期间发生的变更会在下一轮被发现
+            String fingerprint = sysUserMapper.selectFingerprint();
+            if (initial || !Objects.equals(fingerprint, userFingerprint)) {
+                users = sysUserMapper.selectList(null);
+                userFingerprint = fingerprint;
+                changed = true;
+            }
+
+            fingerprint = sysDeptMapper.selectFingerprint();
+            if (initial || !Objects.equals(fingerprint, deptFingerprint)) {
+                depts = sysDeptMapper.selectList(null);
+                deptFingerprint = fingerprint;
+                changed = true;
+            }
+
+            fingerprint = sysRoleMapper.selectFingerprint();
+            if (initial || !Objects.equals(fingerprint, roleFingerprint)) {
+                roles = sysRoleMapper.selectList(null);
+                roleFingerprint = fingerprint;
+                changed = true;
+            }
+
+            fingerprint = sysUserRoleMapper.selectFingerprint();
+            if (initial || !Objects.equals(fingerprint, userRoleFingerprint)) {
+                userRoles = sysUserRoleMapper.selectList(null);
+                userRoleFingerprint = fingerprint;
+                changed = true;
+            }
+
+            if (changed) {
+                directory = OrgDirectory.build(++version, users, depts, roles, userRoles);
+                log.info("组织架构快照已重建：version={}, users={}, depts={}, roles={}",
+                    version, users.size(), depts.size(), roles.size());
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
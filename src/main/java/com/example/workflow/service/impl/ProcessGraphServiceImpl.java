@@ -0,0 +1,233 @@
+package com.example.workflow.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.workflow.engine.ProcessGraph;
+import com.example.workflow.engine.ProcessGraphCodec;
+import com.example.workflow.entity.WorkflowApprover;
+import com.example.workflow.entity.WorkflowEdge;
+import com.example.workflow.entity.WorkflowInstance;
+import com.example.workflow.entity.WorkflowNode;
+import com.example.workflow.mapper.WorkflowApproverMapper;
+import com.example.workflow.mapper.WorkflowDefinitionMapper;
+import com.example.workflow.mapper.WorkflowEdgeMapper;
+import com.example.workflow.mapper.WorkflowNodeMapper;
+import com.example.workflow.service.ProcessGraphService;
+import com.example.workflow.service.WorkflowSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 流程图缓存服务实现
+ * 按（流程定义ID, 版本）缓存。发布生成的快照提交后不再修改，其流程图一经构建即可一直使用；草稿的流程图在保存配置后失效。
+ * 快照优先从发布时生成的编译产物解码，一次读取即可得到整个流程图；没有编译产物或解码失败时按节点、连线、审批人表构建
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProcessGraphServiceImpl implements ProcessGraphService {
+
+    private final WorkflowNodeMapper workflowNodeMapper;
+    private final WorkflowEdgeMapper workflowEdgeMapper;
+    private final WorkflowApproverMapper workflowApproverMapper;
+    private final WorkflowDefinitionMapper workflowDefinitionMapper;
+
+    /**
+     * （流程定义ID, 版本） -> 流程图
+     */
+    private final Map<GraphKey, ProcessGraph> graphCache = new ConcurrentHashMap<>();
+
+    /**
+     * 节点ID -> 所属流程图
+     */
+    private final Map<Long, GraphKey> nodeIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 图版本序列
+     */
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    /**
+     * 失效计数，构建期间发生失效时放弃写入缓存，避免旧数据覆盖
+     */
+    private final AtomicLong evictSequence = new AtomicLong();
+
+    @Override
+    public ProcessGraph getGraph(Long workflowId, int definitionVersion) {
+        GraphKey key = new GraphKey(workflowId, definitionVersion);
+        ProcessGraph graph = graphCache.get(key);
+        if (graph != null) {
+            return graph;
+        }
+
+        long evictMark = evictSequence.get();
+        graph = buildGraph(key);
+        if (evictMark == evictSequence.get()) {
+            ProcessGraph existing = graphCache.putIfAbsent(key, graph);
+            if (existing != null) {
+                return existing;
+            }
+            for (int i = 0; i < graph.getNodeCount(); i++) {
+                nodeIndex.put(graph.getNode(i).getId(), key);
+            }
+        }
+        return graph;
+    }
+
+    @Override
+    public ProcessGraph getGraph(WorkflowInstance instance) {
+        Integer version = instance.getDefinitionVersion();
+        return getGraph(instance.getWorkflowId(), version != null ? version : WorkflowSnapshotService.DRAFT);
+    }
+
+    @Override
+    public ProcessGraph getGraphByNodeId(Long nodeId) {
+        GraphKey key = nodeIndex.get(nodeId);
+        if (key == null) {
+            WorkflowNode node = workflowNodeMapper.selectById(nodeId);
+            if (node == null) {
+                throw new RuntimeException("流程节点不存在");
+            }
+            key = new GraphKey(node.getWorkflowId(),
+                node.getDefinitionVersion() != null ? node.getDefinitionVersion() : WorkflowSnapshotService.DRAFT);
+        }
+        return getGraph(key.getWorkflowId(), key.getDefinitionVersion());
+    }
+
+    @Override
+    public void evict(Long workflowId, int definitionVersion) {
+        GraphKey key = new GraphKey(workflowId, definitionVersion);
+        evictNowAndAfterCompletion(() -> doEvict(key));
+    }
+
+    @Override
+    public void evictAll(Long workflowId) {
+        evictNowAndAfterCompletion(() -> doEvictAll(workflowId));
+    }
+
+    @Override
+    public void preload(Long workflowId, int definitionVersion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        getGraph(workflowId, definitionVersion);
+                    }
+                }
+            });
+        } else {
+            getGraph(workflowId, definitionVersion);
+        }
+    }
+
+    /**
+     * 立即失效，事务结束后再失效一次，防止并发请求在提交前读取旧配置写回缓存
+     */
+    private void evictNowAndAfterCompletion(Runnable evict) {
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private void doEvict(GraphKey key) {
+        evictSequence.incrementAndGet();
+        ProcessGraph removed = graphCache.remove(key);
+        if (removed != null) {
+            nodeIndex.values().removeIf(key::equals);
+            log.debug("流程图缓存已失效：workflowId={}, version={}", key.getWorkflowId(), removed.getVersion());
+        }
+    }
+
+    private void doEvictAll(Long workflowId) {
+        evictSequence.incrementAndGet();
+        graphCache.keySet().removeIf(key -> key.getWorkflowId().equals(workflowId));
+        nodeIndex.values().removeIf(key -> key.getWorkflowId().equals(workflowId));
+        log.debug("流程图缓存已失效：workflowId={}, 全部版本", workflowId);
+    }
+
+    private ProcessGraph buildGraph(GraphKey key) {
+        Long workflowId = key.getWorkflowId();
+        if (key.getDefinitionVersion() > WorkflowSnapshotService.DRAFT) {
+            ProcessGraph graph = loadArtifact(key);
+            if (graph != null) {
+                return graph;
+            }
+        }
+
+        List<WorkflowNode> nodes = workflowNodeMapper.selectList(
+            new LambdaQueryWrapper<WorkflowNode>()
+                .eq(WorkflowNode::getWorkflowId, workflowId)
+                .eq(WorkflowNode::getDefinitionVersion, key.getDefinitionVersion())
+        );
+
+        List<WorkflowEdge> edges = workflowEdgeMapper.selectList(
+            new LambdaQueryWrapper<WorkflowEdge>()
+                .eq(WorkflowEdge::getWorkflowId, workflowId)
+                .eq(WorkflowEdge::getDefinitionVersion, key.getDefinitionVersion())
+        );
+
+        List<WorkflowApprover> approvers = Collections.emptyList();
+        if (!nodes.isEmpty()) {
+            List<Long> nodeIds = nodes.stream()
+                .map(WorkflowNode::getId)
+                .collect(Collectors.toList());
+            approvers = workflowApproverMapper.selectList(
+                new LambdaQueryWrapper<WorkflowApprover>()
+                    .in(WorkflowApprover::getNodeId, nodeIds)
+            );
+        }
+
+        ProcessGraph graph = ProcessGraph.build(workflowId, versionSequence.incrementAndGet(), nodes, edges, approvers);
+        log.info("构建流程图：workflowId={}, definitionVersion={}, version={}, nodes={}, edges={}",
+            workflowId, key.getDefinitionVersion(), graph.getVersion(), nodes.size(), edges.size());
+        return graph;
+    }
+
+    /**
+     * 从编译产物解码快照的流程图，没有编译产物或无法解码时返回null
+     */
+    private ProcessGraph loadArtifact(GraphKey key) {
+        byte[] data = workflowDefinitionMapper.selectArtifact(key.getWorkflowId(), key.getDefinitionVersion());
+        if (data == null) {
+            return null;
+        }
+        try {
+            ProcessGraph graph = ProcessGraphCodec.decode(key.getWorkflowId(), versionSequence.incrementAndGet(), data);
+            log.info("加载流程图编译产物：workflowId={}, definitionVersion={}, version={}, nodes={}, bytes={}",
+                key.getWorkflowId(), key.getDefinitionVersion(), graph.getVersion(), graph.getNodeCount(), data.length);
+            return graph;
+        } catch (RuntimeException e) {
+            log.warn("流程图编译产物无法解码，改为按表构建：workflowId={}, definitionVersion={}, {}",
+                key.getWorkflowId(), key.getDefinitionVersion(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 流程图缓存键
+     */
+    @Value
+    private static class GraphKey {
+
+        Long workflowId;
+
+        int definitionVersion;
+    }
+}
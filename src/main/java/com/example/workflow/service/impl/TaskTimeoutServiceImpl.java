@@ -0,0 +1,351 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.config.WorkerThreadFactory;
+import com.example.workflow.dto.TaskApproveDTO;
+import com.example.workflow.dto.TaskTransferDTO;
+import com.example.workflow.dto.enums.TaskStatus;
+import com.example.workflow.dto.enums.TimeoutAction;
+import com.example.workflow.engine.OrgDirectory;
+import com.example.workflow.engine.ProcessGraph;
+import com.example.workflow.engine.TimeoutPolicy;
+import com.example.workflow.engine.TimingWheel;
+import com.example.workflow.entity.WorkflowHistory;
+import com.example.workflow.entity.WorkflowTask;
+import com.example.workflow.mapper.WorkflowTaskMapper;
+import com.example.workflow.service.InstanceDispatcher;
+import com.example.workflow.service.OrgDirectoryService;
+import com.example.workflow.service.ProcessGraphService;
+import com.example.workflow.service.TaskTimeoutService;
+import com.example.workflow.service.WorkflowHistoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 审批超时服务实现
+ * 一个后台线程按时间格推进时间轮，到期任务在该线程上依次处理。处理前重新读取任务，
+ * 已处理、已归档或到期时间已变更的任务直接跳过，因此被取消或被或签、拒绝连带取消的任务不会误触发。
+ * 自动通过、拒绝和升级通过流程实例命令调度器执行，与用户的审批操作按实例串行。
+ * 默认关闭；多节点部署时只应在一个节点开启，否则同一任务会被多个节点处理
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskTimeoutServiceImpl implements TaskTimeoutService {
+
+    private static final String SYSTEM_OPERATOR_ID = "system";
+    private static final String SYSTEM_OPERATOR_NAME = "系统";
+
+    /**
+     * 处理失败后首次重试的间隔，之后每次加倍
+     */
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 最多重试次数，仍然失败时清除到期时间并记录历史，不再自动处理
+     */
+    private static final int MAX_RETRIES = 5;
+
+    private final WorkflowTaskMapper workflowTaskMapper;
+    private final ProcessGraphService processGraphService;
+    private final OrgDirectoryService orgDirectoryService;
+    private final WorkflowHistoryService workflowHistoryService;
+    private final ObjectProvider<InstanceDispatcher> instanceDispatcher;
+    private final PlatformTransactionManager transactionManager;
+    private final WorkerThreadFactory workerThreadFactory;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${workflow.timeout.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 时间轮每格的毫秒数
+     */
+    @Value("${workflow.timeout.tick-ms:1000}")
+    private long tickMs;
+
+    /**
+     * 时间轮每层的格数
+     */
+    @Value("${workflow.timeout.wheel-size:512}")
+    private int wheelSize;
+
+    /**
+     * 任务ID -> 定时器，用于取消
+     */
+    private final Map<Long, TimingWheel.Timer<Long>> timers = new ConcurrentHashMap<>();
+
+    /**
+     * 任务ID -> 连续处理失败次数
+     */
+    private final Map<Long, Integer> failures = new ConcurrentHashMap<>();
+
+    private TimingWheel<Long> wheel;
+
+    private Thread ticker;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        long begin = System.currentTimeMillis();
+        int count = rebuild();
+        meterRegistry.gauge("workflow.timeout.timers", timers, Map::size);
+
+        running = true;
+        ticker = workerThreadFactory.newThread("task-timeout", this::run);
+        ticker.start();
+        log.info("审批超时时间轮已启动：恢复 {} 个定时器，耗时 {} ms，tickMs={}, wheelSize={}",
+            count, System.currentTimeMillis() - begin, tickMs, wheelSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        ticker.interrupt();
+        try {
+            ticker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("审批超时时间轮已停止，剩余 {} 个定时器将在下次启动时恢复", timers.size());
+    }
+
+    @Override
+    public void schedule(List<WorkflowTask> tasks) {
+        if (!enabled) {
+            return;
+        }
+        List<WorkflowTask> due = new ArrayList<>();
+        for (WorkflowTask task : tasks) {
+            if (task.getDueTime() != null) {
+                due.add(task);
+            }
+        }
+        if (!due.isEmpty()) {
+            AfterCommit.run(() -> due.forEach(task -> register(task.getId(), toMillis(task.getDueTime()))));
+        }
+    }
+
+    @Override
+    public void cancel(Long taskId) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            failures.remove(taskId);
+            TimingWheel.Timer<Long> timer = timers.remove(taskId);
+            if (timer != null) {
+                wheel.cancel(timer);
+            }
+        });
+    }
+
+    // ========== 私有方法 ==========
+
+    /**
+     * 从due_time索引恢复全部定时器，逐行读取，不一次载入内存
+     */
+    private int rebuild() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Integer count = readOnly.execute(status -> {
+            int rows = 0;
+            try (Cursor<WorkflowTask> cursor = workflowTaskMapper.streamPendingDue()) {
+                for (WorkflowTask task : cursor) {
+                    register(task.getId(), toMillis(task.getDueTime()));
+                    rows++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return rows;
+        });
+        return count != null ? count : 0;
+    }
+
+    private void register(Long taskId, long dueMillis) {
+        TimingWheel.Timer<Long> previous = timers.put(taskId, wheel.schedule(taskId, dueMillis));
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(tickMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+            for (Long taskId : wheel.advance(System.currentTimeMillis())) {
+                timers.remove(taskId);
+                try {
+                    handle(taskId);
+                    failures.remove(taskId);
+                } catch (RuntimeException e) {
+                    retryOrGiveUp(taskId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按指数退避重试；超过最多重试次数时清除到期时间并记录一条历史，由人工处理
+     */
+    private void retryOrGiveUp(Long taskId, RuntimeException error) {
+        int attempt = failures.merge(taskId, 1, Integer::sum);
+        if (attempt <= MAX_RETRIES) {
+            long delay = RETRY_DELAY_MILLIS << (attempt - 1);
+            log.warn("任务 {} 超时处理失败，{} 秒后第 {} 次重试：{}", taskId, delay / 1000, attempt, error.getMessage());
+            register(taskId, System.currentTimeMillis() + delay);
+            return;
+        }
+        failures.remove(taskId);
+        meterRegistry.counter("workflow.timeout.abandoned").increment();
+        log.error("任务 {} 超时处理连续失败 {} 次，不再自动处理", taskId, attempt, error);
+        try {
+            WorkflowTask task = workflowTaskMapper.selectById(taskId);
+            if (task == null || workflowTaskMapper.clearDueTime(taskId) == 0) {
+                return;
+            }
+            WorkflowHistory history = new WorkflowHistory();
+            history.setInstanceId(task.getInstanceId());
+            history.setTaskId(taskId);
+            history.setNodeId(task.getNodeId());
+            history.setNodeName(task.getNodeName());
+            history.setAction("REMIND");
+            history.setOperatorId(SYSTEM_OPERATOR_ID);
+            history.setOperatorName(SYSTEM_OPERATOR_NAME);
+            history.setComment("审批超时自动处理失败，已停止自动处理：" + error.getMessage());
+            workflowHistoryService.record(history);
+        } catch (RuntimeException e) {
+            log.error("任务 {} 清除到期时间失败", taskId, e);
+        }
+    }
+
+    private void handle(Long taskId) {
+        WorkflowTask task = workflowTaskMapper.selectById(taskId);
+        if (task == null || !TaskStatus.PENDING.name().equals(task.getStatus()) || task.getDueTime() == null) {
+            return;
+        }
+        if (task.getDueTime().isAfter(LocalDateTime.now())) {
+            // 到期时间已被推迟
+            register(taskId, toMillis(task.getDueTime()));
+            return;
+        }
+
+        ProcessGraph.Node node = processGraphService.getGraphByNodeId(task.getNodeId()).getNode(task.getNodeId());
+        TimeoutPolicy policy = node != null ? node.getTimeout() : null;
+        TimeoutAction action = policy != null ? policy.getAction() : TimeoutAction.REMIND;
+        switch (action) {
+            case AUTO_PASS:
+                approve(task, true, "审批超时，自动通过");
+                break;
+            case AUTO_REJECT:
+                approve(task, false, "审批超时，自动拒绝");
+                break;
+            case ESCALATE:
+                escalate(task);
+                break;
+            default:
+                remind(task);
+                break;
+        }
+        meterRegistry.counter("workflow.timeout.fired", "action", action.name()).increment();
+    }
+
+    /**
+     * 提醒审批人：记录一条提醒历史，清除到期时间使提醒只触发一次
+     */
+    private void remind(WorkflowTask task) {
+        if (workflowTaskMapper.clearDueTime(task.getId()) == 0) {
+            return;
+        }
+        WorkflowHistory history = new WorkflowHistory();
+        history.setInstanceId(task.getInstanceId());
+        history.setTaskId(task.getId());
+        history.setNodeId(task.getNodeId());
+        history.setNodeName(task.getNodeName());
+        history.setAction("REMIND");
+        history.setOperatorId(SYSTEM_OPERATOR_ID);
+        history.setOperatorName(SYSTEM_OPERATOR_NAME);
+        history.setComment("审批超时，已提醒 " + task.getAssigneeName());
+        workflowHistoryService.record(history);
+        log.info("审批超时提醒：taskId={}, assignee={}", task.getId(), task.getAssigneeId());
+    }
+
+    private void approve(WorkflowTask task, boolean approved, String comment) {
+        TaskApproveDTO dto = new TaskApproveDTO();
+        dto.setApproved(approved);
+        dto.setOperatorId(SYSTEM_OPERATOR_ID);
+        dto.setOperatorName(SYSTEM_OPERATOR_NAME);
+        dto.setComment(comment);
+        instanceDispatcher.getObject().approveTask(task.getId(), dto);
+        log.info("{}：taskId={}, instanceId={}", comment, task.getId(), task.getInstanceId());
+    }
+
+    /**
+     * 转交给审批人的上级，新任务按节点策略重新计时，仍未处理时继续向上升级；
+     * 没有上级或审批人就是本部门负责人时改为提醒，避免反复转交给同一个人
+     */
+    private void escalate(WorkflowTask task) {
+        String[] leader = findLeader(task.getAssigneeId());
+        if (leader == null) {
+            log.info("任务 {} 的审批人 {} 没有上级，改为提醒", task.getId(), task.getAssigneeId());
+            remind(task);
+            return;
+        }
+        TaskTransferDTO dto = new TaskTransferDTO();
+        dto.setOperatorId(SYSTEM_OPERATOR_ID);
+        dto.setOperatorName(SYSTEM_OPERATOR_NAME);
+        dto.setTargetUserId(leader[0]);
+        dto.setTargetUserName(leader[1]);
+        dto.setReason("审批超时，升级至上级");
+        instanceDispatcher.getObject().transferTask(task.getId(), dto);
+        log.info("审批超时升级：taskId={}, from={}, to={}", task.getId(), task.getAssigneeId(), leader[0]);
+    }
+
+    private String[] findLeader(String userId) {
+        try {
+            OrgDirectory directory = orgDirectoryService.getDirectory();
+            long assigneeId = Long.parseLong(userId);
+            long leaderId = directory.getLeaderId(assigneeId);
+            if (leaderId != 0 && leaderId != assigneeId) {
+                return new String[]{String.valueOf(leaderId), directory.getUserName(leaderId)};
+            }
+        } catch (NumberFormatException e) {
+            log.warn("用户ID格式错误: {}", userId);
+        }
+        return null;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
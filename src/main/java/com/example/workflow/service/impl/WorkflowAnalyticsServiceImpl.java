@@ -0,0 +1,126 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.engine.LatencyHistogram;
+import com.example.workflow.engine.ProcessGraph;
+import com.example.workflow.service.ProcessGraphService;
+import com.example.workflow.service.WorkflowAnalyticsService;
+import com.example.workflow.vo.NodeBottleneckVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 流程节点耗时分析服务实现
+ * 每个节点两个直方图：节点停留时间（含等待会签、依次审批的时间）和单个任务的处理时间。
+ * 直方图只在内存中累计，应用重启后重新统计
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowAnalyticsServiceImpl implements WorkflowAnalyticsService {
+
+    private static final int MAX_LIMIT = 200;
+
+    private final ProcessGraphService processGraphService;
+
+    private final Map<Long, NodeLatency> nodes = new ConcurrentHashMap<>();
+
+    @Override
+    public void onTaskCompleted(Long nodeId, String nodeName, long durationMillis) {
+        NodeLatency latency = node(nodeId, nodeName);
+        if (latency != null) {
+            AfterCommit.run(() -> latency.task.record(durationMillis));
+        }
+    }
+
+    @Override
+    public void onNodeCompleted(Long nodeId, String nodeName, long dwellMillis) {
+        NodeLatency latency = node(nodeId, nodeName);
+        if (latency != null) {
+            AfterCommit.run(() -> latency.node.record(dwellMillis));
+        }
+    }
+
+    @Override
+    public List<NodeBottleneckVO> getBottlenecks(Long workflowId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return nodes.entrySet().stream()
+            .filter(e -> workflowId == null || workflowId.equals(e.getValue().workflowId))
+            .map(e -> toVO(e.getKey(), e.getValue()))
+            .filter(vo -> vo.getNodeCount() > 0 || vo.getTaskCount() > 0)
+            .sorted(Comparator.comparing(NodeBottleneckVO::getNodeP95)
+                .thenComparing(NodeBottleneckVO::getTaskP95)
+                .reversed())
+            .limit(size)
+            .collect(Collectors.toList());
+    }
+
+    // ========== 私有方法 ==========
+
+    /**
+     * 节点的直方图，首次出现时从流程图解析所属工作流（在事务内完成，提交后只做内存记录）
+     */
+    private NodeLatency node(Long nodeId, String nodeName) {
+        if (nodeId == null) {
+            return null;
+        }
+        NodeLatency latency = nodes.get(nodeId);
+        if (latency != null) {
+            return latency;
+        }
+        Long workflowId = null;
+        try {
+            ProcessGraph graph = processGraphService.getGraphByNodeId(nodeId);
+            workflowId = graph.getWorkflowId();
+        } catch (RuntimeException e) {
+            log.warn("节点 {} 所属工作流解析失败：{}", nodeId, e.getMessage());
+        }
+        NodeLatency created = new NodeLatency(workflowId, nodeName);
+        NodeLatency existing = nodes.putIfAbsent(nodeId, created);
+        return existing != null ? existing : created;
+    }
+
+    private static NodeBottleneckVO toVO(Long nodeId, NodeLatency latency) {
+        LatencyHistogram.Snapshot node = latency.node.snapshot();
+        LatencyHistogram.Snapshot task = latency.task.snapshot();
+        NodeBottleneckVO vo = new NodeBottleneckVO();
+        vo.setWorkflowId(latency.workflowId);
+        vo.setNodeId(nodeId);
+        vo.setNodeName(latency.nodeName);
+        vo.setNodeCount(node.getCount());
+        vo.setNodeMean(node.getMean());
+        vo.setNodeP50(node.getP50());
+        vo.setNodeP95(node.getP95());
+        vo.setNodeP99(node.getP99());
+        vo.setNodeMax(node.getMax());
+        vo.setTaskCount(task.getCount());
+        vo.setTaskMean(task.getMean());
+        vo.setTaskP50(task.getP50());
+        vo.setTaskP95(task.getP95());
+        vo.setTaskP99(task.getP99());
+        vo.setTaskMax(task.getMax());
+        return vo;
+    }
+
+    /**
+     * 一个节点的耗时直方图
+     */
+    private static final class NodeLatency {
+
+        private final Long workflowId;
+        private final String nodeName;
+        private final LatencyHistogram node = new LatencyHistogram();
+        private final LatencyHistogram task = new LatencyHistogram();
+
+        NodeLatency(Long workflowId, String nodeName) {
+            this.workflowId = workflowId;
+            this.nodeName = nodeName;
+        }
+    }
+}
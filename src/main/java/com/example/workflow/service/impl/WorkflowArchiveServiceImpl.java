@@ -0,0 +1,104 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.mapper.WorkflowArchiveMapper;
+import com.example.workflow.service.WorkflowArchiveService;
+import com.example.workflow.service.WorkflowVariableService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 流程归档服务实现
+ * 每批实例在一个事务中先复制到归档表再从原表删除，批与批之间提交，避免长事务和大范围锁
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowArchiveServiceImpl implements WorkflowArchiveService {
+
+    private final WorkflowArchiveMapper workflowArchiveMapper;
+    private final WorkflowVariableService workflowVariableService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${workflow.archive.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 流程结束后在原表保留的天数
+     */
+    @Value("${workflow.archive.retention-days:180}")
+    private int retentionDays;
+
+    @Value("${workflow.archive.batch-size:200}")
+    private int batchSize;
+
+    private final ReentrantLock archiveLock = new ReentrantLock();
+
+    @Scheduled(cron = "${workflow.archive.cron:0 30 2 * * ?}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    @Override
+    public int archive() {
+        if (!archiveLock.tryLock()) {
+            log.info("归档正在执行，跳过本次");
+            return 0;
+        }
+        try {
+            LocalDateTime before = LocalDateTime.now().minusDays(Math.max(1, retentionDays));
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            long start = System.currentTimeMillis();
+            int total = 0;
+            while (true) {
+                List<Long> ids = workflowArchiveMapper.selectArchivableIds(before, batchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> archiveBatch(ids));
+                total += ids.size();
+                if (ids.size() < batchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                log.info("归档流程实例 {} 个（结束时间早于 {}），耗时 {} ms",
+                    total, before, System.currentTimeMillis() - start);
+            }
+            return total;
+        } finally {
+            archiveLock.unlock();
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    private void archiveBatch(List<Long> ids) {
+        workflowArchiveMapper.copyInstances(ids);
+        int tasks = workflowArchiveMapper.copyTasks(ids);
+        int histories = workflowArchiveMapper.copyHistory(ids);
+        workflowArchiveMapper.copyCc(ids);
+        workflowArchiveMapper.copyVariables(ids);
+
+        workflowArchiveMapper.deleteInbox(ids);
+        workflowArchiveMapper.deleteTokens(ids);
+        workflowArchiveMapper.deleteVariables(ids);
+        workflowArchiveMapper.deleteCc(ids);
+        workflowArchiveMapper.deleteHistory(ids);
+        workflowArchiveMapper.deleteTasks(ids);
+        workflowArchiveMapper.deleteInstances(ids);
+
+        AfterCommit.run(() -> ids.forEach(workflowVariableService::evict));
+        log.debug("归档一批：实例 {} 个，任务 {} 条，历史 {} 条", ids.size(), tasks, histories);
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.dto.BatchTaskApproveDTO;
+import com.example.workflow.dto.TaskApproveDTO;
+import com.example.workflow.dto.WorkflowStartDTO;
+import com.example.workflow.dto.enums.TaskStatus;
+import com.example.workflow.entity.WorkflowInstance;
+import com.example.workflow.entity.WorkflowTask;
+import com.example.workflow.mapper.WorkflowTaskMapper;
+import com.example.workflow.service.WorkflowBulkService;
+import com.example.workflow.service.WorkflowEngineService;
+import com.example.workflow.service.WorkflowService;
+import com.example.workflow.vo.BatchItemResultVO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 批量操作服务实现
+ * 每批在一个事务中完成：定义只加载一次，实例、变量、任务、收件箱各用少量多行INSERT写入，
+ * 避免逐条发起时每个实例单独开事务、单独插入和更新。
+ * 批量审批同样按批提交：任务状态一条UPDATE更新，同一实例的多个任务只占用一次实例版本、只流转一次
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowBulkServiceImpl implements WorkflowBulkService {
+
+    private final WorkflowService workflowService;
+    private final WorkflowEngineService workflowEngineService;
+    private final WorkflowTaskMapper workflowTaskMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    /**
+     * 每个事务处理的条数
+     */
+    @Value("${workflow.bulk.chunk-size:200}")
+    private int chunkSize;
+
+    /**
+     * 批量审批单次最多处理的任务数
+     */
+    @Value("${workflow.bulk.max-tasks:1000}")
+    private int maxTasks;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    @Override
+    public List<BatchItemResultVO> startWorkflows(InputStream in) throws IOException {
+        long start = System.currentTimeMillis();
+        List<BatchItemResultVO> results = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        List<WorkflowStartDTO> chunk = new ArrayList<>();
+
+        // 顶层为数组时逐个读取数组元素，否则按空白分隔逐个读取（NDJSON）
+        int index = 0;
+        try (MappingIterator<WorkflowStartDTO> iterator =
+                 objectMapper.readerFor(WorkflowStartDTO.class).readValues(in)) {
+            while (iterator.hasNextValue()) {
+                WorkflowStartDTO dto;
+                try {
+                    dto = iterator.nextValue();
+                } catch (JsonProcessingException e) {
+                    // 格式错误之后无法定位下一条，已提交的批次保留
+                    results.add(BatchItemResultVO.failure(index, "数据格式错误：" + e.getOriginalMessage()));
+                    break;
+                }
+
+                String error = validate(dto);
+                if (error != null) {
+                    results.add(BatchItemResultVO.failure(index++, error));
+                    continue;
+                }
+                indexes.add(index++);
+                chunk.add(dto);
+                if (chunk.size() >= Math.max(1, chunkSize)) {
+                    startChunk(indexes, chunk, results);
+                }
+            }
+        }
+        startChunk(indexes, chunk, results);
+
+        results.sort(Comparator.comparing(BatchItemResultVO::getIndex));
+        long failed = results.stream().filter(r -> !r.getSuccess()).count();
+        log.info("批量发起完成：共 {} 条，失败 {} 条，耗时 {} ms",
+            results.size(), failed, System.currentTimeMillis() - start);
+        return results;
+    }
+
+    @Override
+    public List<BatchItemResultVO> approveTasks(BatchTaskApproveDTO dto) {
+        long start = System.currentTimeMillis();
+        List<BatchItemResultVO> results = new ArrayList<>();
+        Map<Long, Integer> indexes = new HashMap<>();
+        List<WorkflowTask> tasks = selectTasks(dto, indexes, results);
+        TaskApproveDTO approve = toApproveDTO(dto);
+
+        // 按实例分组，一个实例的任务不拆到两个事务中
+        Map<Long, List<WorkflowTask>> groups = new LinkedHashMap<>();
+        for (WorkflowTask task : tasks) {
+            groups.computeIfAbsent(task.getInstanceId(), k -> new ArrayList<>()).add(task);
+        }
+        List<List<WorkflowTask>> chunk = new ArrayList<>();
+        int chunkTasks = 0;
+        for (List<WorkflowTask> group : groups.values()) {
+            chunk.add(group);
+            chunkTasks += group.size();
+            if (chunkTasks >= Math.max(1, chunkSize)) {
+                approveChunk(chunk, approve, indexes, results);
+                chunk.clear();
+                chunkTasks = 0;
+            }
+        }
+        approveChunk(chunk, approve, indexes, results);
+
+        results.sort(Comparator.comparing(BatchItemResultVO::getIndex));
+        long failed = results.stream().filter(r -> !r.getSuccess()).count();
+        log.info("批量{}完成：操作人={}，共 {} 个任务，失败 {} 个，涉及 {} 个实例，耗时 {} ms",
+            approve.isApproved() ? "同意" : "拒绝", dto.getOperatorId(), results.size(), failed, groups.size(),
+            System.currentTimeMillis() - start);
+        return results;
+    }
+
+    // ========== 私有方法 ==========
+
+    /**
+     * 读取要处理的待办任务；指定的任务不存在、已处理或不属于操作人时直接记为失败
+     *
+     * @param indexes 任务ID -> 结果序号
+     */
+    private List<WorkflowTask> selectTasks(BatchTaskApproveDTO dto, Map<Long, Integer> indexes,
+                                           List<BatchItemResultVO> results) {
+        List<WorkflowTask> tasks = new ArrayList<>();
+        if (dto.getTaskIds() == null || dto.getTaskIds().isEmpty()) {
+            int limit = dto.getLimit() != null && dto.getLimit() > 0 ? Math.min(dto.getLimit(), maxTasks) : maxTasks;
+            tasks = workflowTaskMapper.selectPendingByAssignee(dto.getOperatorId(), dto.getWorkflowId(),
+                dto.getNodeId(), limit);
+            for (int i = 0; i < tasks.size(); i++) {
+                indexes.put(tasks.get(i).getId(), i);
+            }
+            return tasks;
+        }
+
+        Set<Long> taskIds = new LinkedHashSet<>(dto.getTaskIds());
+        taskIds.remove(null);
+        if (taskIds.size() > maxTasks) {
+            throw new RuntimeException("单次最多处理 " + maxTasks + " 个任务");
+        }
+        Map<Long, WorkflowTask> loaded = new HashMap<>(taskIds.size() * 2);
+        for (WorkflowTask task : workflowTaskMapper.selectBatchIds(taskIds)) {
+            loaded.put(task.getId(), task);
+        }
+        int index = 0;
+        for (Long taskId : taskIds) {
+            indexes.put(taskId, index);
+            WorkflowTask task = loaded.get(taskId);
+            if (task == null) {
+                results.add(taskFailure(index, taskId, null, "任务不存在"));
+            } else if (!TaskStatus.PENDING.name().equals(task.getStatus())) {
+                results.add(taskFailure(index, taskId, task.getInstanceNo(), "任务已处理"));
+            } else if (!Objects.equals(task.getAssigneeId(), dto.getOperatorId())) {
+                results.add(taskFailure(index, taskId, task.getInstanceNo(), "任务不属于当前操作人"));
+            } else {
+                tasks.add(task);
+            }
+            index++;
+        }
+        return tasks;
+    }
+
+    /**
+     * 一批实例在一个事务中完成；失败时整批回滚，再按实例逐个执行，一个实例失败不影响其他实例
+     */
+    private void approveChunk(List<List<WorkflowTask>> groups, TaskApproveDTO approve, Map<Long, Integer> indexes,
+                              List<BatchItemResultVO> results) {
+        if (groups.isEmpty()) {
+            return;
+        }
+        if (groups.size() > 1) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> approveGroups(groups, approve));
+                groups.forEach(group -> addResults(group, indexes, null, results));
+                return;
+            } catch (RuntimeException e) {
+                log.warn("批量审批失败，改为逐个实例处理：{} 个实例，原因：{}", groups.size(), e.getMessage());
+            }
+        }
+        for (List<WorkflowTask> group : groups) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    approveGroups(Collections.singletonList(group), approve));
+                addResults(group, indexes, null, results);
+            } catch (RuntimeException e) {
+                addResults(group, indexes, e.getMessage(), results);
+            }
+        }
+    }
+
+    /**
+     * 在当前事务内完成全部任务，再逐个实例流转：同意时同一节点只流转一次，拒绝时结束实例
+     */
+    private void approveGroups(List<List<WorkflowTask>> groups, TaskApproveDTO approve) {
+        List<WorkflowTask> tasks = new ArrayList<>();
+        groups.forEach(tasks::addAll);
+        workflowService.completeTasks(tasks, approve);
+        for (List<WorkflowTask> group : groups) {
+            Long instanceId = group.get(0).getInstanceId();
+            if (approve.isApproved()) {
+                List<Long> taskIds = group.stream().map(WorkflowTask::getId).collect(Collectors.toList());
+                workflowEngineService.processTasks(instanceId, taskIds);
+            } else {
+                workflowEngineService.processTask(instanceId, group.get(0).getId(), false);
+            }
+        }
+    }
+
+    private void addResults(List<WorkflowTask> group, Map<Long, Integer> indexes, String error,
+                            List<BatchItemResultVO> results) {
+        for (WorkflowTask task : group) {
+            int index = indexes.get(task.getId());
+            results.add(error == null
+                ? BatchItemResultVO.success(index, task.getId(), task.getInstanceNo())
+                : taskFailure(index, task.getId(), task.getInstanceNo(), error));
+        }
+    }
+
+    private static BatchItemResultVO taskFailure(int index, Long taskId, String instanceNo, String message) {
+        BatchItemResultVO result = BatchItemResultVO.failure(index, message);
+        result.setId(taskId);
+        result.setInstanceNo(instanceNo);
+        return result;
+    }
+
+    private static TaskApproveDTO toApproveDTO(BatchTaskApproveDTO dto) {
+        TaskApproveDTO approve = new TaskApproveDTO();
+        approve.setApproved(dto.getApproved());
+        approve.setOperatorId(dto.getOperatorId());
+        approve.setOperatorName(dto.getOperatorName());
+        approve.setComment(dto.getComment());
+        approve.setAttachments(dto.getAttachments());
+        return approve;
+    }
+
+    /**
+     * 整批在一个事务中发起；失败时整批回滚，再逐条发起以找出失败的条目
+     */
+    private void startChunk(List<Integer> indexes, List<WorkflowStartDTO> chunk, List<BatchItemResultVO> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            List<WorkflowInstance> instances = workflowService.startWorkflows(chunk);
+            for (int i = 0; i < instances.size(); i++) {
+                WorkflowInstance instance = instances.get(i);
+                results.add(BatchItemResultVO.success(indexes.get(i), instance.getId(), instance.getInstanceNo()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("批量发起失败，改为逐条发起：{} 条，原因：{}", chunk.size(), e.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    // 单条也走批量发起，返回的实例带流程编号
+                    WorkflowInstance instance = workflowService.startWorkflows(
+                        Collections.singletonList(chunk.get(i))).get(0);
+                    results.add(BatchItemResultVO.success(indexes.get(i), instance.getId(), instance.getInstanceNo()));
+                } catch (RuntimeException itemError) {
+                    results.add(BatchItemResultVO.failure(indexes.get(i), itemError.getMessage()));
+                }
+            }
+        }
+        indexes.clear();
+        chunk.clear();
+    }
+
+    private String validate(WorkflowStartDTO dto) {
+        if (dto == null) {
+            return "数据不能为空";
+        }
+        Set<ConstraintViolation<WorkflowStartDTO>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("；"));
+    }
+}
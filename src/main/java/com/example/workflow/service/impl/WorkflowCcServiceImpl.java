@@ -2,11 +2,14 @@ package com.example.workflow.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.workflow.dto.PageCursor;
 import com.example.workflow.entity.WorkflowCc;
 import com.example.workflow.entity.WorkflowInstance;
+import com.example.workflow.mapper.WorkflowArchiveMapper;
 import com.example.workflow.mapper.WorkflowCcMapper;
 import com.example.workflow.mapper.WorkflowInstanceMapper;
 import com.example.workflow.service.WorkflowCcService;
+import com.example.workflow.vo.CursorPage;
 import com.example.workflow.vo.WorkflowCcVO;
 
 import lombok.RequiredArgsConstructor;
@@ -14,36 +17,44 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * 工作流抄送服务实现
+ * 流程归档后抄送记录搬到归档表，列表同时读取原表和归档表并按（抄送时间, ID）倒序合并
  */
 @Service
 @RequiredArgsConstructor
 class WorkflowCcServiceImpl implements WorkflowCcService {
 
+    private static final Comparator<WorkflowCc> CC_ORDER = Comparator
+            .comparing(WorkflowCc::getCreateTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(WorkflowCc::getId)
+            .reversed();
+
     private final WorkflowCcMapper workflowCcMapper;
     private final WorkflowInstanceMapper workflowInstanceMapper;
+    private final WorkflowArchiveMapper workflowArchiveMapper;
 
     @Override
     public Page<WorkflowCcVO> getMyCc(String userId, Integer pageNum, Integer pageSize) {
-        Page<WorkflowCc> page = new Page<>(pageNum, pageSize);
-
-        LambdaQueryWrapper<WorkflowCc> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(WorkflowCc::getCcUserId, userId)
-                .orderByDesc(WorkflowCc::getCreateTime);
+        long current = pageNum != null ? Math.max(pageNum, 1) : 1;
+        int size = CursorPage.normalizeSize(pageSize);
 
-        Page<WorkflowCc> ccPage = workflowCcMapper.selectPage(page, wrapper);
+        // 原表和归档表在数据库中合并排序，只取当前页
+        List<WorkflowCc> rows = workflowArchiveMapper.selectAllCcByUser(userId, (current - 1) * size, size);
+        long total = workflowCcMapper.selectCount(new LambdaQueryWrapper<WorkflowCc>().eq(WorkflowCc::getCcUserId, userId))
+                + workflowArchiveMapper.countCcByUser(userId);
 
         // 转换为VO
         Page<WorkflowCcVO> voPage = new Page<>();
-        voPage.setCurrent(ccPage.getCurrent());
-        voPage.setSize(ccPage.getSize());
-        voPage.setTotal(ccPage.getTotal());
+        voPage.setCurrent(current);
+        voPage.setSize(size);
+        voPage.setTotal(total);
 
-        List<WorkflowCcVO> voList = ccPage.getRecords().stream()
+        List<WorkflowCcVO> voList = rows.stream()
                 .map(this::convertToVO)
                 .collect(Collectors.toList());
         voPage.setRecords(voList);
@@ -51,12 +62,44 @@ class WorkflowCcServiceImpl implements WorkflowCcService {
         return voPage;
     }
 
+    @Override
+    public CursorPage<WorkflowCcVO> getMyCcByCursor(String userId, String cursor, Integer pageSize, boolean withTotal) {
+        int size = CursorPage.normalizeSize(pageSize);
+        PageCursor position = PageCursor.decode(cursor);
+
+        // 按（抄送时间, ID）倒序从游标位置继续扫描，多取一条判断是否还有下一页
+        LambdaQueryWrapper<WorkflowCc> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(WorkflowCc::getCcUserId, userId);
+        if (position != null) {
+            wrapper.and(w -> w.lt(WorkflowCc::getCreateTime, position.getTime())
+                    .or(o -> o.eq(WorkflowCc::getCreateTime, position.getTime())
+                            .lt(WorkflowCc::getId, position.getId())));
+        }
+        wrapper.orderByDesc(WorkflowCc::getCreateTime)
+                .orderByDesc(WorkflowCc::getId)
+                .last("LIMIT " + (size + 1));
+        List<WorkflowCc> rows = CursorPage.merge(workflowCcMapper.selectList(wrapper),
+                workflowArchiveMapper.selectCcByUser(userId, position != null ? position.getTime() : null,
+                        position != null ? position.getId() : null, size + 1),
+                CC_ORDER, size + 1);
+
+        Long total = withTotal
+                ? workflowCcMapper.selectCount(new LambdaQueryWrapper<WorkflowCc>().eq(WorkflowCc::getCcUserId, userId))
+                        + workflowArchiveMapper.countCcByUser(userId)
+                : null;
+        return CursorPage.of(rows, size, r -> PageCursor.of(r.getCreateTime(), r.getId()), this::convertToVO, total);
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void markAsRead(Long id) {
         WorkflowCc cc = workflowCcMapper.selectById(id);
         if (cc == null) {
-            throw new RuntimeException("抄送记录不存在");
+            // 流程已归档时在归档表中标记
+            if (workflowArchiveMapper.markCcRead(id, LocalDateTime.now()) == 0) {
+                throw new RuntimeException("抄送记录不存在");
+            }
+            return;
         }
 
         cc.setStatus(1); // 已读
@@ -74,8 +117,11 @@ class WorkflowCcServiceImpl implements WorkflowCcService {
         vo.setCreateTime(cc.getCreateTime());
         vo.setReadTime(cc.getReadTime());
 
-        // 获取流程实例信息
+        // 获取流程实例信息，已归档的从归档表读取
         WorkflowInstance instance = workflowInstanceMapper.selectById(cc.getInstanceId());
+        if (instance == null) {
+            instance = workflowArchiveMapper.selectInstance(cc.getInstanceId());
+        }
         if (instance != null) {
             vo.setWorkflowName(instance.getWorkflowName());
             vo.setTitle(instance.getTitle());
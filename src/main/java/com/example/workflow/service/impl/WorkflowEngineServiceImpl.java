@@ -2,20 +2,44 @@ package com.example.workflow.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.example.workflow.dto.enums.*;
+import com.example.workflow.engine.OrgDirectory;
+import com.example.workflow.engine.ProcessGraph;
+import com.example.workflow.engine.TimeoutPolicy;
+import com.example.workflow.engine.expression.VariableResolver;
 import com.example.workflow.entity.*;
 import com.example.workflow.mapper.*;
+import com.example.workflow.service.ContentVersionService;
+import com.example.workflow.service.IdService;
+import com.example.workflow.service.OrgDirectoryService;
+import com.example.workflow.service.ProcessGraphService;
+import com.example.workflow.service.TaskTimeoutService;
+import com.example.workflow.service.WorkflowAnalyticsService;
+import com.example.workflow.service.WorkflowEventService;
 import com.example.workflow.service.WorkflowEngineService;
+import com.example.workflow.service.WorkflowStatisticsService;
+import com.example.workflow.service.WorkflowVariableService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * 工作流引擎服务实现
@@ -25,16 +49,27 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class WorkflowEngineServiceImpl implements WorkflowEngineService {
     
-    private final WorkflowNodeMapper workflowNodeMapper;
-    private final WorkflowEdgeMapper workflowEdgeMapper;
-    private final WorkflowApproverMapper workflowApproverMapper;
+    private final ProcessGraphService processGraphService;
     private final WorkflowInstanceMapper workflowInstanceMapper;
     private final WorkflowTaskMapper workflowTaskMapper;
     private final WorkflowCcMapper workflowCcMapper;
-    private final SysUserMapper sysUserMapper;
-    private final SysRoleMapper sysRoleMapper;
-    private final SysDeptMapper sysDeptMapper;
-    private final SysUserRoleMapper sysUserRoleMapper;
+    private final WorkflowTokenMapper workflowTokenMapper;
+    private final WorkflowInboxMapper workflowInboxMapper;
+    private final OrgDirectoryService orgDirectoryService;
+    private final WorkflowVariableService workflowVariableService;
+    private final WorkflowStatisticsService workflowStatisticsService;
+    private final WorkflowAnalyticsService workflowAnalyticsService;
+    private final TaskTimeoutService taskTimeoutService;
+    private final WorkflowEventService workflowEventService;
+    private final ContentVersionService contentVersionService;
+    private final IdService idService;
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * 任务、抄送批量写入的每批行数
+     */
+    @Value("${workflow.fan-out.batch-size:500}")
+    private int fanOutBatchSize;
     
     /**
      * 系统管理员用户ID（用于处理无审批人转交管理员的情况）
@@ -42,6 +77,16 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
     private static final String SYSTEM_ADMIN_ID = "admin";
     private static final String SYSTEM_ADMIN_NAME = "系统管理员";
     
+    /**
+     * 实例版本冲突时的最大重试次数
+     */
+    private static final int MAX_CONFLICT_RETRIES = 5;
+    
+    /**
+     * 版本冲突后首次重试前的等待时间（毫秒），之后每次翻倍并加随机抖动
+     */
+    private static final long CONFLICT_BACKOFF_MILLIS = 10;
+    
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void startProcess(Long instanceId) {
@@ -51,41 +96,138 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
         }
         
         // 查找开始节点
-        WorkflowNode startNode = workflowNodeMapper.selectOne(
-            new LambdaQueryWrapper<WorkflowNode>()
-                .eq(WorkflowNode::getWorkflowId, instance.getWorkflowId())
-                .eq(WorkflowNode::getNodeType, NodeType.START.name())
-        );
-        
-        if (startNode == null) {
-            throw new RuntimeException("未找到开始节点");
-        }
+        ProcessGraph graph = processGraphService.getGraph(instance);
+        ProcessGraph.Node startNode = graph.getStartNode();
         
         // 查找开始节点的下一个节点
-        Long nextNodeId = calculateNextNode(startNode.getId(), instanceId, true);
+        ProcessGraph.Node nextNode = nextNode(graph, startNode, instance);
         
-        if (nextNodeId == null) {
+        if (nextNode == null) {
             throw new RuntimeException("流程配置错误：开始节点没有后续节点");
         }
         
-        // 更新实例当前节点
-        instance.setCurrentNodeId(nextNodeId);
-        workflowInstanceMapper.updateById(instance);
-        
-        // 创建任务
-        createTasks(instanceId, nextNodeId);
+        // 推进到第一个需要人工处理的节点
+        advance(instance, graph, nextNode, null);
+        contentVersionService.instanceChanged(instanceId);
     }
     
     @Override
     @Transactional(rollbackFor = Exception.class)
+    public void startProcesses(List<WorkflowInstance> instances) {
+        FanOut fanOut = new FanOut();
+        List<WorkflowInstance> finished = new ArrayList<>();
+        for (WorkflowInstance instance : instances) {
+            ProcessGraph graph = processGraphService.getGraph(instance);
+            ProcessGraph.Node nextNode = nextNode(graph, graph.getStartNode(), instance);
+            if (nextNode == null) {
+                throw new RuntimeException("流程配置错误：开始节点没有后续节点");
+            }
+            if (walk(instance, graph, nextNode, null, fanOut)) {
+                finished.add(instance);
+            }
+        }
+        
+        // 实例推进完成后按最终状态一次写入，省去逐个插入再更新
+        insertInChunks(instances, workflowInstanceMapper::insertBatch);
+        writeFanOut(fanOut);
+        for (WorkflowInstance instance : finished) {
+            workflowStatisticsService.onInstanceFinished(instance.getWorkflowId(), InstanceStatus.APPROVED.name());
+        }
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class, isolation = Isolation.READ_COMMITTED)
     public void processTask(Long instanceId, Long taskId, boolean approved) {
         WorkflowTask task = workflowTaskMapper.selectById(taskId);
-        WorkflowInstance instance = workflowInstanceMapper.selectById(instanceId);
-        
-        if (task == null || instance == null) {
+        if (task == null) {
             throw new RuntimeException("任务或流程实例不存在");
         }
         
+        processTask(claimInstance(instanceId), task, approved);
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class, isolation = Isolation.READ_COMMITTED)
+    public void processTasks(Long instanceId, List<Long> taskIds) {
+        if (taskIds == null || taskIds.isEmpty()) {
+            return;
+        }
+        
+        // 同一节点只需推进一次，按提交顺序保留每个节点的第一个任务
+        Map<Long, WorkflowTask> tasks = new HashMap<>(taskIds.size() * 2);
+        for (WorkflowTask task : workflowTaskMapper.selectBatchIds(taskIds)) {
+            if (!instanceId.equals(task.getInstanceId())) {
+                throw new RuntimeException("任务不属于该流程实例");
+            }
+            tasks.put(task.getId(), task);
+        }
+        Map<Long, WorkflowTask> nodeTasks = new LinkedHashMap<>();
+        for (Long taskId : taskIds) {
+            WorkflowTask task = tasks.get(taskId);
+            if (task == null) {
+                throw new RuntimeException("任务或流程实例不存在");
+            }
+            nodeTasks.putIfAbsent(task.getNodeId(), task);
+        }
+        
+        // 整批只占用一次实例版本
+        WorkflowInstance instance = claimInstance(instanceId);
+        for (WorkflowTask task : nodeTasks.values()) {
+            if (!InstanceStatus.RUNNING.name().equals(instance.getStatus())) {
+                break;
+            }
+            processTask(instance, task, true);
+        }
+    }
+    
+    /**
+     * 先按版本号占用实例，再读取节点任务做流转判断
+     * 占用的UPDATE会锁住实例行直到事务结束，并发审批同一实例时实际上是排队执行：
+     * 后到的事务等前一个提交后版本不匹配，退避后重新读取实例重试，重试时能看到已提交的审批结果
+     */
+    private WorkflowInstance claimInstance(Long instanceId) {
+        for (int attempt = 1; ; attempt++) {
+            WorkflowInstance instance = workflowInstanceMapper.selectById(instanceId);
+            if (instance == null) {
+                throw new RuntimeException("任务或流程实例不存在");
+            }
+            if (!InstanceStatus.RUNNING.name().equals(instance.getStatus())) {
+                throw new RuntimeException("流程已结束");
+            }
+            int version = instance.getVersion() != null ? instance.getVersion() : 0;
+            if (workflowInstanceMapper.claimVersion(instanceId, version) > 0) {
+                instance.setVersion(version + 1);
+                contentVersionService.instanceChanged(instanceId);
+                return instance;
+            }
+            if (attempt >= MAX_CONFLICT_RETRIES) {
+                throw new RuntimeException("流程实例并发更新冲突，请稍后重试");
+            }
+            log.debug("流程实例 {} 版本冲突，第 {} 次重试", instanceId, attempt);
+            backoff(attempt);
+        }
+    }
+    
+    /**
+     * 版本冲突后的指数退避，避免多个冲突的事务同时重读同时再撞
+     */
+    private void backoff(int attempt) {
+        long delay = CONFLICT_BACKOFF_MILLIS << (attempt - 1);
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("流程实例并发更新冲突，请稍后重试");
+        }
+    }
+    
+    /**
+     * 在已占用的实例上处理任务
+     */
+    private void processTask(WorkflowInstance instance, WorkflowTask task, boolean approved) {
+        Long instanceId = instance.getId();
+        Long taskId = task.getId();
+        
         // 如果是拒绝，直接结束流程
         if (!approved) {
             instance.setStatus(InstanceStatus.REJECTED.name());
@@ -93,10 +235,12 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
             instance.setDuration(
                 java.time.Duration.between(instance.getStartTime(), LocalDateTime.now()).toMillis()
             );
-            workflowInstanceMapper.updateById(instance);
+            updateInstance(instance);
             
-            // 取消其他待办任务
+            // 取消其他待办任务和并行分支
             cancelPendingTasks(instanceId);
+            workflowTokenMapper.cancelByInstanceId(instanceId);
+            workflowStatisticsService.onInstanceFinished(instance.getWorkflowId(), InstanceStatus.REJECTED.name());
             return;
         }
         
@@ -109,13 +253,13 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
         );
         
         // 获取审批模式
-        WorkflowApprover approver = workflowApproverMapper.selectOne(
-            new LambdaQueryWrapper<WorkflowApprover>()
-                .eq(WorkflowApprover::getNodeId, currentNodeId)
-                .last("LIMIT 1")
-        );
+        ProcessGraph graph = processGraphService.getGraph(instance);
+        ProcessGraph.Node currentNode = graph.getNode(currentNodeId);
+        if (currentNode == null) {
+            throw new RuntimeException("流程节点不存在");
+        }
         
-        String approveMode = approver != null ? approver.getApproveMode() : ApproveMode.OR.name();
+        String approveMode = currentNode.getApproveMode();
         
         // 判断是否可以流转到下一节点
         boolean canMoveNext = false;
@@ -141,135 +285,321 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
         
         // 如果是或签，取消其他待办任务
         if (ApproveMode.OR.name().equals(approveMode)) {
+            List<Long> canceledIds = new ArrayList<>();
             nodeTasks.stream()
                 .filter(t -> TaskStatus.PENDING.name().equals(t.getStatus()) && !t.getId().equals(taskId))
                 .forEach(t -> {
                     t.setStatus(TaskStatus.CANCELED.name());
                     workflowTaskMapper.updateById(t);
+                    canceledIds.add(t.getId());
+                    workflowStatisticsService.onTaskCanceled(t.getAssigneeId());
+                    workflowEventService.onTaskCompleted(t);
                 });
+            if (!canceledIds.isEmpty()) {
+                workflowInboxMapper.deleteBatchIds(canceledIds);
+            }
         }
         
-        // 计算下一个节点
-        Long nextNodeId = calculateNextNode(currentNodeId, instanceId, true);
-        
-        if (nextNodeId == null) {
-            // 没有下一个节点，流程结束
-            instance.setStatus(InstanceStatus.APPROVED.name());
-            instance.setEndTime(LocalDateTime.now());
-            instance.setDuration(
-                java.time.Duration.between(instance.getStartTime(), LocalDateTime.now()).toMillis()
-            );
-            workflowInstanceMapper.updateById(instance);
-            log.info("流程 {} 已结束", instanceId);
-            return;
-        }
-        
-        // 更新实例当前节点
-        instance.setCurrentNodeId(nextNodeId);
-        workflowInstanceMapper.updateById(instance);
-        
-        // 创建下一个节点的任务
-        createTasks(instanceId, nextNodeId);
+        // 节点停留时间：从节点产生第一个任务到流转离开
+        nodeTasks.stream()
+            .map(WorkflowTask::getCreateTime)
+            .filter(Objects::nonNull)
+            .min(Comparator.naturalOrder())
+            .ifPresent(enteredAt -> workflowAnalyticsService.onNodeCompleted(currentNodeId, currentNode.getNodeName(),
+                java.time.Duration.between(enteredAt, LocalDateTime.now()).toMillis()));
+        
+        // 并行分支内的节点由所在分支的令牌继续推进
+        WorkflowToken token = graph.isParallel()
+            ? workflowTokenMapper.selectActiveByNode(instanceId, currentNodeId)
+            : null;
+        
+        // 计算下一个节点并推进
+        advance(instance, graph, nextNode(graph, currentNode, instance), token);
     }
     
     @Override
     public Long calculateNextNode(Long currentNodeId, Long instanceId, boolean approved) {
-        // 查找当前节点的所有出边
-        List<WorkflowEdge> edges = workflowEdgeMapper.selectList(
-            new LambdaQueryWrapper<WorkflowEdge>()
-                .eq(WorkflowEdge::getSourceNodeId, currentNodeId)
-                .orderByAsc(WorkflowEdge::getPriority)
-        );
-        
-        if (edges.isEmpty()) {
+        ProcessGraph graph = processGraphService.getGraphByNodeId(currentNodeId);
+        ProcessGraph.Node currentNode = graph.getNode(currentNodeId);
+        if (currentNode == null) {
             return null;
         }
+        WorkflowInstance instance = instanceId != null ? workflowInstanceMapper.selectById(instanceId) : null;
+        ProcessGraph.Node nextNode = nextNode(graph, currentNode, instance);
+        return nextNode != null ? nextNode.getId() : null;
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void createTasks(Long instanceId, Long nodeId) {
+        WorkflowInstance instance = workflowInstanceMapper.selectById(instanceId);
+        if (instance == null) {
+            throw new RuntimeException("流程实例或节点不存在");
+        }
         
-        // 如果只有一条边，直接返回
-        if (edges.size() == 1) {
-            WorkflowEdge edge = edges.get(0);
-            WorkflowNode targetNode = workflowNodeMapper.selectById(edge.getTargetNodeId());
-            
-            // 如果是结束节点，返回null
-            if (targetNode != null && NodeType.END.name().equals(targetNode.getNodeType())) {
-                return null;
-            }
+        ProcessGraph graph = processGraphService.getGraph(instance);
+        ProcessGraph.Node node = graph.getNode(nodeId);
+        if (node == null) {
+            throw new RuntimeException("流程实例或节点不存在");
+        }
+        
+        WorkflowToken token = graph.isParallel() ? workflowTokenMapper.selectActiveByNode(instanceId, nodeId) : null;
+        advance(instance, graph, node, token);
+        contentVersionService.instanceChanged(instanceId);
+    }
+    
+    // ========== 私有方法 ==========
+    
+    /**
+     * 按流程图计算下一个节点，只有到达结束节点时返回null
+     * 没有后续节点或没有满足条件的分支属于配置错误，直接抛出异常回滚，不能当作流程结束自动通过
+     */
+    private ProcessGraph.Node nextNode(ProcessGraph graph, ProcessGraph.Node currentNode, WorkflowInstance instance) {
+        // 表单变量在首次判断条件时解析一次
+        return targetOf(graph, currentNode.route(() -> formVariables(instance)));
+    }
+    
+    /**
+     * 连线的目标节点，结束节点返回null
+     */
+    private ProcessGraph.Node targetOf(ProcessGraph graph, ProcessGraph.Edge edge) {
+        ProcessGraph.Node target = graph.getNode(edge.getTargetIndex());
+        return target.isEnd() ? null : target;
+    }
+    
+    /**
+     * 从指定节点开始推进流程，直到各路径都遇到需要人工处理的节点、在汇聚节点等待或流程结束
+     * 抄送、条件和无人自动通过的节点在同一轮循环内连续处理，实例只在最后更新一次
+     * 并行分支节点为每条分支创建子令牌并逐条推进；子令牌到达汇聚节点时父令牌计数减一，归零后父令牌继续流转
+     *
+     * @param node  要进入的节点，null表示流程结束
+     * @param token 当前路径的令牌，null表示不在并行分支内
+     */
+    private void advance(WorkflowInstance instance, ProcessGraph graph, ProcessGraph.Node node, WorkflowToken token) {
+        FanOut fanOut = new FanOut();
+        boolean finished = walk(instance, graph, node, token, fanOut);
+        writeFanOut(fanOut);
+        updateInstance(instance);
+        if (finished) {
+            workflowStatisticsService.onInstanceFinished(instance.getWorkflowId(), InstanceStatus.APPROVED.name());
+        }
+    }
+    
+    /**
+     * 推进一个实例，新建的任务和抄送先放入fanOut，由调用方统一写入
+     *
+     * @return 流程是否已结束
+     */
+    private boolean walk(WorkflowInstance instance, ProcessGraph graph, ProcessGraph.Node node, WorkflowToken token,
+                         FanOut fanOut) {
+        Deque<Branch> branches = new ArrayDeque<>();
+        branches.push(new Branch(node, token));
+        boolean finished = false;
+        
+        while (!branches.isEmpty()) {
+            Branch branch = branches.pop();
+            // 自动节点不会改变变量，同一路径内重复进入同一节点必然是死循环
+            int steps = 0;
             
-            return edge.getTargetNodeId();
-        }
-        
-        // 多条边，需要根据条件表达式判断
-        for (WorkflowEdge edge : edges) {
-            if (StringUtils.hasText(edge.getConditionExpr())) {
-                // 这里应该实现条件表达式的计算
-                // 简化处理：如果条件为空或者approved为true，则选择该边
-                boolean conditionMet = evaluateCondition(edge.getConditionExpr(), instanceId);
-                if (conditionMet) {
-                    WorkflowNode targetNode = workflowNodeMapper.selectById(edge.getTargetNodeId());
-                    if (targetNode != null && NodeType.END.name().equals(targetNode.getNodeType())) {
-                        return null;
+            while (true) {
+                ProcessGraph.Node current = branch.node;
+                if (current == null || current.isEnd()) {
+                    if (branch.token != null) {
+                        throw new RuntimeException("流程配置错误：并行分支未经汇聚节点就到达了结束节点");
                     }
-                    return edge.getTargetNodeId();
+                    finished = true;
+                    break;
                 }
-            } else {
-                // 没有条件的边作为默认路径
-                WorkflowNode targetNode = workflowNodeMapper.selectById(edge.getTargetNodeId());
-                if (targetNode != null && NodeType.END.name().equals(targetNode.getNodeType())) {
-                    return null;
+                if (++steps > graph.getNodeCount()) {
+                    throw new RuntimeException("流程配置错误：节点 " + current.getNodeName() + " 存在自动流转循环");
+                }
+                instance.setCurrentNodeId(current.getId());
+                
+                if (current.getType() == NodeType.PARALLEL_SPLIT) {
+                    // 并行分支：父令牌在此等待，各分支入栈
+                    fork(instance, graph, branch, branches);
+                    break;
+                } else if (current.getType() == NodeType.PARALLEL_JOIN) {
+                    // 并行汇聚：最后一个到达的分支带着父令牌继续流转
+                    if (branch.token != null && !join(branch)) {
+                        break;
+                    }
+                } else if (current.getType() == NodeType.CC) {
+                    // 抄送节点不阻塞流程，继续流转
+                    createCcRecords(instance, current, fanOut);
+                } else if (current.getType() != NodeType.CONDITION) {
+                    // 审批节点：创建了任务则等待处理，否则（无审批人自动通过）继续流转
+                    if (createTasks(instance, current, fanOut)) {
+                        park(branch);
+                        break;
+                    }
+                    log.info("节点 {} 无审批人，自动通过", current.getId());
                 }
-                return edge.getTargetNodeId();
+                // 条件节点直接按连线条件流转
+                branch.node = nextNode(graph, current, instance);
             }
         }
         
-        return null;
+        if (finished) {
+            // 没有下一个节点，流程结束
+            instance.setStatus(InstanceStatus.APPROVED.name());
+            instance.setEndTime(LocalDateTime.now());
+            instance.setDuration(
+                java.time.Duration.between(instance.getStartTime(), LocalDateTime.now()).toMillis()
+            );
+            log.info("流程 {} 已结束", instance.getId());
+        }
+        return finished;
     }
     
-    @Override
-    @Transactional(rollbackFor = Exception.class)
-    public void createTasks(Long instanceId, Long nodeId) {
-        WorkflowInstance instance = workflowInstanceMapper.selectById(instanceId);
-        WorkflowNode node = workflowNodeMapper.selectById(nodeId);
+    /**
+     * 按版本号更新实例，版本不一致说明实例已被其他操作修改
+     */
+    private void updateInstance(WorkflowInstance instance) {
+        if (workflowInstanceMapper.updateById(instance) == 0) {
+            throw new RuntimeException("流程实例并发更新冲突，请稍后重试");
+        }
+    }
+    
+    /**
+     * 并行分支：当前令牌转为等待状态，为满足条件的每条出边创建子令牌
+     */
+    private void fork(WorkflowInstance instance, ProcessGraph graph, Branch branch, Deque<Branch> branches) {
+        ProcessGraph.Node split = branch.node;
+        
+        // 出边上配置了条件的，仅在条件满足时启用该分支
+        List<ProcessGraph.Node> targets = new ArrayList<>();
+        VariableResolver variables = null;
+        for (ProcessGraph.Edge edge : split.getOutEdges()) {
+            if (edge.isConditional()) {
+                if (variables == null) {
+                    variables = formVariables(instance);
+                }
+                if (!edge.getCondition().test(variables)) {
+                    continue;
+                }
+            }
+            targets.add(graph.getNode(edge.getTargetIndex()));
+        }
+        if (targets.isEmpty()) {
+            throw new RuntimeException("流程配置错误：并行分支节点 " + split.getNodeName() + " 没有可执行的分支");
+        }
         
-        if (instance == null || node == null) {
-            throw new RuntimeException("流程实例或节点不存在");
+        WorkflowToken parent = branch.token;
+        if (parent == null) {
+            parent = new WorkflowToken();
+            parent.setInstanceId(instance.getId());
+        }
+        parent.setNodeId(split.getId());
+        parent.setStatus(TokenStatus.WAITING.name());
+        parent.setActiveChildren(targets.size());
+        if (parent.getId() == null) {
+            workflowTokenMapper.insert(parent);
+        } else {
+            workflowTokenMapper.updateById(parent);
         }
         
-        // 如果是结束节点，不创建任务
-        if (NodeType.END.name().equals(node.getNodeType())) {
-            return;
+        // 逆序入栈，使分支按连线优先级依次推进
+        for (int i = targets.size() - 1; i >= 0; i--) {
+            WorkflowToken child = new WorkflowToken();
+            child.setInstanceId(instance.getId());
+            child.setNodeId(split.getId());
+            child.setParentId(parent.getId());
+            child.setStatus(TokenStatus.ACTIVE.name());
+            child.setActiveChildren(0);
+            workflowTokenMapper.insert(child);
+            branches.push(new Branch(targets.get(i), child));
+        }
+        log.info("并行分支：instanceId={}, nodeId={}, branches={}", instance.getId(), split.getId(), targets.size());
+    }
+    
+    /**
+     * 并行汇聚：子令牌结束，父令牌计数减一
+     *
+     * @return 是否所有分支均已到达（此时分支改由父令牌继续流转）
+     */
+    private boolean join(Branch branch) {
+        ProcessGraph.Node joinNode = branch.node;
+        WorkflowToken token = branch.token;
+        token.setNodeId(joinNode.getId());
+        token.setStatus(TokenStatus.JOINED.name());
+        workflowTokenMapper.updateById(token);
+        
+        Long parentId = token.getParentId();
+        if (workflowTokenMapper.decrementActiveChildren(parentId) == 0) {
+            log.warn("并行汇聚计数异常：tokenId={}, parentId={}", token.getId(), parentId);
+            return false;
+        }
+        Integer remaining = workflowTokenMapper.selectActiveChildren(parentId);
+        if (remaining == null || remaining > 0) {
+            log.debug("节点 {} 等待其余 {} 条分支汇聚", joinNode.getId(), remaining);
+            return false;
         }
         
-        // 如果是抄送节点，创建抄送记录
-        if (NodeType.CC.name().equals(node.getNodeType())) {
-            createCcRecords(instanceId, nodeId);
-            // 抄送节点不阻塞流程，继续流转
-            processTask(instanceId, null, true);
-            return;
+        // 所有分支已汇聚，父令牌继续流转；顶层令牌在汇聚后结束，流程回到非并行状态
+        WorkflowToken parent = workflowTokenMapper.selectById(parentId);
+        parent.setNodeId(joinNode.getId());
+        if (parent.getParentId() == null) {
+            parent.setStatus(TokenStatus.COMPLETED.name());
+            branch.token = null;
+        } else {
+            parent.setStatus(TokenStatus.ACTIVE.name());
+            branch.token = parent;
         }
+        workflowTokenMapper.updateById(parent);
+        return true;
+    }
+    
+    /**
+     * 令牌停留在等待审批的节点上
+     */
+    private void park(Branch branch) {
+        if (branch.token != null) {
+            branch.token.setNodeId(branch.node.getId());
+            workflowTokenMapper.updateById(branch.token);
+        }
+    }
+    
+    /**
+     * 推进中的执行路径
+     */
+    private static final class Branch {
         
-        // 如果是条件节点，直接流转
-        if (NodeType.CONDITION.name().equals(node.getNodeType())) {
-            processTask(instanceId, null, true);
-            return;
+        private ProcessGraph.Node node;
+        
+        private WorkflowToken token;
+        
+        private Branch(ProcessGraph.Node node, WorkflowToken token) {
+            this.node = node;
+            this.token = token;
         }
+    }
+    
+    /**
+     * 为审批节点创建任务
+     *
+     * @return 是否创建了任务（false表示节点无审批人且配置为自动通过）
+     */
+    private boolean createTasks(WorkflowInstance instance, ProcessGraph.Node node, FanOut fanOut) {
+        Long instanceId = instance.getId();
+        Long nodeId = node.getId();
         
         // 获取审批人配置
-        List<WorkflowApprover> approvers = workflowApproverMapper.selectList(
-            new LambdaQueryWrapper<WorkflowApprover>()
-                .eq(WorkflowApprover::getNodeId, nodeId)
-        );
+        List<ProcessGraph.Approver> approvers = node.getApprovers();
         
         if (approvers.isEmpty()) {
             throw new RuntimeException("节点 " + node.getNodeName() + " 未配置审批人");
         }
         
         // 根据审批人配置创建任务
-        for (WorkflowApprover approver : approvers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<WorkflowTask> tasks = new ArrayList<>();
+        for (ProcessGraph.Approver approver : approvers) {
             List<String[]> assignees = resolveApprovers(approver, instance);
             
             if (assignees.isEmpty()) {
                 // 无审批人的处理
-                handleNobodyApprover(approver, instance, nodeId);
+                handleNobodyApprover(approver, instance, node, tasks);
                 continue;
             }
             
@@ -285,19 +615,28 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
                 task.setAssigneeName(assignee[1]);
                 task.setStatus(TaskStatus.PENDING.name());
                 task.setPriority(instance.getPriority());
-                
-                workflowTaskMapper.insert(task);
-                log.info("创建任务：instanceId={}, nodeId={}, assignee={}", instanceId, nodeId, assignee[1]);
+                task.setCreateTime(now);
+                tasks.add(task);
             }
         }
+        
+        if (tasks.isEmpty()) {
+            return false;
+        }
+        TimeoutPolicy timeout = node.getTimeout();
+        if (timeout != null) {
+            LocalDateTime dueTime = timeout.dueTime(now);
+            tasks.forEach(task -> task.setDueTime(dueTime));
+        }
+        fanOut.addTasks(instance, tasks);
+        log.info("创建任务：instanceId={}, nodeId={}, count={}", instanceId, nodeId, tasks.size());
+        return true;
     }
     
-    // ========== 私有方法 ==========
-    
     /**
      * 解析审批人
      */
-    private List<String[]> resolveApprovers(WorkflowApprover approver, WorkflowInstance instance) {
+    private List<String[]> resolveApprovers(ProcessGraph.Approver approver, WorkflowInstance instance) {
         List<String[]> result = new ArrayList<>();
         String approverType = approver.getApproverType();
         String approverValue = approver.getApproverValue();
@@ -314,78 +653,65 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
                 }
             }
         } else if (ApproverType.ROLE.name().equals(approverType)) {
-            // 角色：查询拥有该角色的所有用户（通过用户角色关联表）
+            // 角色：从组织架构快照中查找拥有该角色的所有用户
             if (StringUtils.hasText(approverValue)) {
-                List<Integer> userIds = sysUserRoleMapper.selectUserIdsByRoleCode(approverValue);
-                for (Integer userId : userIds) {
-                    SysUser user = sysUserMapper.selectById(userId);
-                    if (user != null) {
-                        result.add(new String[]{user.getId().toString(), user.getRealName()}); // 使用realName而不是name
-                    }
+                OrgDirectory directory = orgDirectoryService.getDirectory();
+                long[] userIds = directory.getUsersByRole(approverValue);
+                for (long userId : userIds) {
+                    result.add(new String[]{String.valueOf(userId), directory.getUserName(userId)});
                 }
-                log.info("角色 {} 解析到 {} 个用户", approverValue, userIds.size());
+                log.debug("角色 {} 解析到 {} 个用户", approverValue, userIds.length);
             }
         } else if (ApproverType.DEPT.name().equals(approverType)) {
-            // 部门：查询该部门下的所有用户（通过部门ID）
+            // 部门：从组织架构快照中查找该部门下的所有用户
             if (StringUtils.hasText(approverValue)) {
                 try {
-                    Long deptId = Long.parseLong(approverValue);
-                    List<SysUser> deptUsers = sysUserMapper.selectByDeptId(deptId);
-                    for (SysUser user : deptUsers) {
-                        result.add(new String[]{user.getId().toString(), user.getRealName()}); // 使用realName而不是name
+                    long deptId = Long.parseLong(approverValue);
+                    OrgDirectory directory = orgDirectoryService.getDirectory();
+                    long[] userIds = directory.getUsersByDept(deptId);
+                    for (long userId : userIds) {
+                        result.add(new String[]{String.valueOf(userId), directory.getUserName(userId)});
                     }
-                    log.info("部门 {} 解析到 {} 个用户", approverValue, deptUsers.size());
+                    log.debug("部门 {} 解析到 {} 个用户", approverValue, userIds.length);
                 } catch (NumberFormatException e) {
                     log.error("部门ID格式错误: {}", approverValue, e);
                 }
             }
         } else if (ApproverType.LEADER.name().equals(approverType)) {
-            // 上级领导：查询发起人的部门领导
-            String leader = findLeader(instance.getStartUserId());
+            // 上级领导：发起人所在部门的负责人
+            String[] leader = findLeader(instance.getStartUserId());
             if (leader != null) {
-                String[] parts = leader.split(":");
-                if (parts.length == 2) {
-                    result.add(new String[]{parts[0], parts[1]});
-                }
+                result.add(leader);
             } else {
                 log.warn("未找到用户 {} 的上级领导", instance.getStartUserId());
             }
         } else if (ApproverType.SELF.name().equals(approverType)) {
-            // 发起人自己（注意：startUserId是String类型，需要转换为Integer）
+            // 发起人自己
+            String starterName = null;
             try {
-                Integer starterId = Integer.parseInt(instance.getStartUserId());
-                SysUser starter = sysUserMapper.selectById(starterId);
-                if (starter != null) {
-                    result.add(new String[]{starter.getId().toString(), starter.getRealName()}); // 使用realName而不是name
-                } else {
-                    // 如果找不到用户，使用原始值
-                    result.add(new String[]{instance.getStartUserId(), instance.getStartUserName()});
-                }
+                starterName = orgDirectoryService.getDirectory().getUserName(Long.parseLong(instance.getStartUserId()));
             } catch (NumberFormatException e) {
                 log.error("发起人ID格式错误: {}", instance.getStartUserId(), e);
+            }
+            if (starterName != null) {
+                result.add(new String[]{instance.getStartUserId(), starterName});
+            } else {
+                // 如果找不到用户，使用原始值
                 result.add(new String[]{instance.getStartUserId(), instance.getStartUserName()});
             }
         } else if (ApproverType.FORM_USER.name().equals(approverType)) {
-            // 表单字段用户：从实例表单数据中解析用户ID和姓名
-            if (StringUtils.hasText(approverValue) && instance.getFormData() != null) {
-                try {
-                    // 假设表单数据是JSON格式，包含用户ID和姓名字段
-                    // approverValue格式如: "formField.userId,formField.userName"
-                    String[] fieldPaths = approverValue.split(",");
-                    if (fieldPaths.length >= 2) {
-                        String userIdField = fieldPaths[0].trim();
-                        String userNameField = fieldPaths[1].trim();
-                        
-                        // 这里简化处理，实际应该使用JSON解析库
-                        String userId = extractFieldFromJson(instance.getFormData(), userIdField);
-                        String userName = extractFieldFromJson(instance.getFormData(), userNameField);
-                        
-                        if (StringUtils.hasText(userId) && StringUtils.hasText(userName)) {
-                            result.add(new String[]{userId, userName});
-                        }
+            // 表单字段用户：从实例变量中读取用户ID和姓名
+            // approverValue格式如: "applicant.userId,applicant.userName"，支持嵌套属性和数组下标
+            if (StringUtils.hasText(approverValue)) {
+                String[] fieldPaths = approverValue.split(",");
+                if (fieldPaths.length >= 2) {
+                    Object userId = formValue(instance.getId(), fieldPaths[0].trim());
+                    Object userName = formValue(instance.getId(), fieldPaths[1].trim());
+                    
+                    if (userId != null && userName != null
+                        && StringUtils.hasText(userId.toString()) && StringUtils.hasText(userName.toString())) {
+                        result.add(new String[]{userId.toString(), userName.toString()});
                     }
-                } catch (Exception e) {
-                    log.error("解析表单字段审批人失败", e);
                 }
             }
         }
@@ -395,29 +721,16 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
     
     /**
      * 处理无审批人的情况
+     * 自动通过时不创建任务，由调用方继续流转；转交管理员时把管理员任务加入待写入列表
      */
-    private void handleNobodyApprover(WorkflowApprover approver, WorkflowInstance instance, Long nodeId) {
+    private void handleNobodyApprover(ProcessGraph.Approver approver, WorkflowInstance instance,
+                                      ProcessGraph.Node node, List<WorkflowTask> tasks) {
         String nobodyHandler = approver.getNobodyHandler();
+        Long nodeId = node.getId();
         
         if ("AUTO_PASS".equals(nobodyHandler)) {
-            // 自动通过：直接流转到下一节点
-            log.info("节点 {} 无审批人，自动通过", nodeId);
-            // 直接流转到下一节点
-            Long nextNodeId = calculateNextNode(nodeId, instance.getId(), true);
-            if (nextNodeId != null) {
-                instance.setCurrentNodeId(nextNodeId);
-                workflowInstanceMapper.updateById(instance);
-                createTasks(instance.getId(), nextNodeId);
-            } else {
-                // 流程结束
-                instance.setStatus(InstanceStatus.APPROVED.name());
-                instance.setEndTime(LocalDateTime.now());
-                instance.setDuration(
-                    java.time.Duration.between(instance.getStartTime(), LocalDateTime.now()).toMillis()
-                );
-                workflowInstanceMapper.updateById(instance);
-                log.info("流程 {} 已自动完成", instance.getId());
-            }
+            // 自动通过：不创建任务
+            log.debug("节点 {} 的审批人配置未解析到用户，按自动通过处理", nodeId);
         } else if ("ADMIN".equals(nobodyHandler)) {
             // 转交管理员：将任务分配给系统管理员
             log.info("节点 {} 无审批人，转交给系统管理员", nodeId);
@@ -433,9 +746,8 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
             adminTask.setAssigneeName(SYSTEM_ADMIN_NAME);
             adminTask.setStatus(TaskStatus.PENDING.name());
             adminTask.setPriority(instance.getPriority());
-            
-            workflowTaskMapper.insert(adminTask);
-            log.info("创建管理员任务：instanceId={}, nodeId={}", instance.getId(), nodeId);
+            adminTask.setCreateTime(LocalDateTime.now());
+            tasks.add(adminTask);
         } else {
             throw new RuntimeException("节点无审批人且未配置处理策略");
         }
@@ -444,17 +756,14 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
     /**
      * 创建抄送记录
      */
-    private void createCcRecords(Long instanceId, Long nodeId) {
-        WorkflowInstance instance = workflowInstanceMapper.selectById(instanceId);
-        WorkflowNode node = workflowNodeMapper.selectById(nodeId);
-        
-        // 获取抄送人配置（复用审批人配置表）
-        List<WorkflowApprover> approvers = workflowApproverMapper.selectList(
-            new LambdaQueryWrapper<WorkflowApprover>()
-                .eq(WorkflowApprover::getNodeId, nodeId)
-        );
-        
-        for (WorkflowApprover approver : approvers) {
+    private void createCcRecords(WorkflowInstance instance, ProcessGraph.Node node, FanOut fanOut) {
+        Long instanceId = instance.getId();
+        Long nodeId = node.getId();
+        
+        // 获取抄送人配置（复用审批人配置）
+        LocalDateTime now = LocalDateTime.now();
+        List<WorkflowCc> ccList = new ArrayList<>();
+        for (ProcessGraph.Approver approver : node.getApprovers()) {
             List<String[]> ccUsers = resolveApprovers(approver, instance);
             
             for (String[] ccUser : ccUsers) {
@@ -466,11 +775,87 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
                 cc.setCcUserId(ccUser[0]);
                 cc.setCcUserName(ccUser[1]);
                 cc.setStatus(0); // 未读
-                
-                workflowCcMapper.insert(cc);
-                log.info("创建抄送：instanceId={}, ccUser={}", instanceId, ccUser[1]);
+                cc.setCreateTime(now);
+                ccList.add(cc);
             }
         }
+        
+        if (!ccList.isEmpty()) {
+            fanOut.ccList.addAll(ccList);
+            log.info("创建抄送：instanceId={}, nodeId={}, count={}", instanceId, nodeId, ccList.size());
+        }
+    }
+    
+    /**
+     * 写入一轮推进中新建的任务、待办收件箱和抄送
+     * 同一轮内所有节点（批量发起时为所有实例）的任务合并写入；主键预先从号段分配，无需等待数据库回填ID
+     */
+    private void writeFanOut(FanOut fanOut) {
+        List<WorkflowTask> tasks = fanOut.tasks;
+        if (!tasks.isEmpty()) {
+            long startNanos = System.nanoTime();
+            long[] taskIds = idService.nextIds("workflow_task", tasks.size());
+            List<WorkflowInbox> inboxList = new ArrayList<>(tasks.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                WorkflowTask task = tasks.get(i);
+                task.setId(taskIds[i]);
+                inboxList.add(toInbox(fanOut.instances.get(task.getInstanceId()), task));
+            }
+            insertInChunks(tasks, workflowTaskMapper::insertBatch);
+            insertInChunks(inboxList, workflowInboxMapper::insertBatch);
+            workflowStatisticsService.onTasksCreated(tasks);
+            taskTimeoutService.schedule(tasks);
+            workflowEventService.onTasksCreated(tasks);
+            recordFanOut("task", tasks.size(), startNanos);
+        }
+        
+        List<WorkflowCc> ccList = fanOut.ccList;
+        if (!ccList.isEmpty()) {
+            long startNanos = System.nanoTime();
+            long[] ccIds = idService.nextIds("workflow_cc", ccList.size());
+            for (int i = 0; i < ccList.size(); i++) {
+                ccList.get(i).setId(ccIds[i]);
+            }
+            insertInChunks(ccList, workflowCcMapper::insertBatch);
+            workflowEventService.onCcCreated(ccList);
+            recordFanOut("cc", ccList.size(), startNanos);
+        }
+    }
+    
+    /**
+     * 一轮推进中新建、尚未写入的任务和抄送
+     */
+    private static final class FanOut {
+        
+        private final Map<Long, WorkflowInstance> instances = new HashMap<>();
+        
+        private final List<WorkflowTask> tasks = new ArrayList<>();
+        
+        private final List<WorkflowCc> ccList = new ArrayList<>();
+        
+        private void addTasks(WorkflowInstance instance, List<WorkflowTask> newTasks) {
+            instances.put(instance.getId(), instance);
+            tasks.addAll(newTasks);
+        }
+    }
+    
+    /**
+     * 按配置的批次大小分批写入
+     */
+    private <T> void insertInChunks(List<T> rows, Consumer<List<T>> writer) {
+        int batchSize = Math.max(1, fanOutBatchSize);
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            writer.accept(rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+    
+    /**
+     * 记录扇出规模和耗时
+     */
+    private void recordFanOut(String type, int size, long startNanos) {
+        meterRegistry.summary("workflow.fanout.size", "type", type).record(size);
+        meterRegistry.timer("workflow.fanout.duration", "type", type)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
     }
     
     /**
@@ -486,34 +871,39 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
         for (WorkflowTask task : tasks) {
             task.setStatus(TaskStatus.CANCELED.name());
             workflowTaskMapper.updateById(task);
+            workflowStatisticsService.onTaskCanceled(task.getAssigneeId());
+            workflowEventService.onTaskCompleted(task);
         }
+        workflowInboxMapper.deleteByInstanceId(instanceId);
     }
     
     /**
-     * 查找用户的上级领导
+     * 由新建的待办任务生成收件箱记录
      */
-    private String findLeader(String userId) {
+    private WorkflowInbox toInbox(WorkflowInstance instance, WorkflowTask task) {
+        WorkflowInbox inbox = new WorkflowInbox();
+        inbox.setTaskId(task.getId());
+        inbox.setAssigneeId(task.getAssigneeId());
+        inbox.setInstanceId(instance.getId());
+        inbox.setInstanceNo(instance.getInstanceNo());
+        inbox.setWorkflowName(instance.getWorkflowName());
+        inbox.setNodeName(task.getNodeName());
+        inbox.setTitle(instance.getTitle());
+        inbox.setStartUserName(instance.getStartUserName());
+        inbox.setPriority(task.getPriority());
+        inbox.setCreateTime(task.getCreateTime());
+        return inbox;
+    }
+    
+    /**
+     * 查找用户的上级领导，返回 [领导ID, 领导姓名]
+     */
+    private String[] findLeader(String userId) {
         try {
-            // 查询用户信息获取部门ID
-            Integer userIdInt = Integer.parseInt(userId);
-            SysUser user = sysUserMapper.selectById(userIdInt);
-            if (user != null && user.getDeptId() != null) {
-                // 查询部门负责人（注意：部门表中的leaderId是Long类型，用户ID是Integer类型）
-                Long deptId = user.getDeptId();
-                SysDept dept = sysDeptMapper.selectById(deptId);
-                if (dept != null && dept.getLeaderId() != null) {
-                    // 由于leaderId是Long类型，需要转换为Integer
-                    Long leaderIdLong = dept.getLeaderId();
-                    if (leaderIdLong <= Integer.MAX_VALUE) {
-                        Integer leaderId = leaderIdLong.intValue();
-                    SysUser leader = sysUserMapper.selectById(leaderId);
-                    if (leader != null) {
-                        return leader.getId() + ":" + leader.getRealName(); // 使用realName而不是getName()
-                    }
-                    } else {
-                        log.warn("部门负责人ID超出Integer范围: {}", leaderIdLong);
-                    }
-                }
+            OrgDirectory directory = orgDirectoryService.getDirectory();
+            long leaderId = directory.getLeaderId(Long.parseLong(userId));
+            if (leaderId != 0) {
+                return new String[]{String.valueOf(leaderId), directory.getUserName(leaderId)};
             }
         } catch (NumberFormatException e) {
             log.error("用户ID格式错误: {}", userId, e);
@@ -522,49 +912,26 @@ public class WorkflowEngineServiceImpl implements WorkflowEngineService {
     }
     
     /**
-     * 从JSON字符串中提取字段值（简化实现）
+     * 读取表单字段值
+     * 兼容旧配置 "formField.userId"：按完整路径取不到时，再按最后一段字段名读取
      */
-    private String extractFieldFromJson(String json, String fieldPath) {
-        if (!StringUtils.hasText(json) || !StringUtils.hasText(fieldPath)) {
-            return null;
-        }
-        
-        // 这里简化处理，实际应该使用Jackson或Gson等JSON库
-        // 假设fieldPath格式为 "formField.userId"，我们简单查找字段名
-        try {
-            String fieldName = fieldPath.substring(fieldPath.lastIndexOf('.') + 1);
-            // 简单的字符串匹配，实际应用中应该使用JSON解析
-            int startIndex = json.indexOf("\"" + fieldName + "\":");
-            if (startIndex > 0) {
-                startIndex += fieldName.length() + 3; // 跳过字段名和冒号
-                int endIndex = json.indexOf(",", startIndex);
-                if (endIndex == -1) {
-                    endIndex = json.indexOf("}", startIndex);
-                }
-                if (endIndex > startIndex) {
-                    String value = json.substring(startIndex, endIndex).trim();
-                    // 去除引号
-                    if (value.startsWith("\"") && value.endsWith("\"")) {
-                        value = value.substring(1, value.length() - 1);
-                    }
-                    return value;
-                }
-            }
-        } catch (Exception e) {
-            log.error("提取表单字段失败: field={}, json={}", fieldPath, json, e);
+    private Object formValue(Long instanceId, String fieldPath) {
+        Object value = workflowVariableService.getValue(instanceId, fieldPath);
+        int lastDot = fieldPath.lastIndexOf('.');
+        if (value == null && lastDot >= 0) {
+            value = workflowVariableService.getValue(instanceId, fieldPath.substring(lastDot + 1));
         }
-        return null;
+        return value;
     }
     
     /**
-     * 条件表达式求值（简化实现）
-     * TODO: 未来可实现完整的条件表达式引擎（SpEL或Aviator）
-     * 当前版本：所有条件表达式都返回true（条件成立）
+     * 实例表单变量，供条件表达式求值
      */
-    private boolean evaluateCondition(String expression, Long instanceId) {
-        // 当前简化实现：所有条件都通过
-        // 生产环境建议集成SpEL或Aviator表达式引擎
-        log.debug("条件表达式求值（简化版）: {}, 结果=true", expression);
-        return true;
+    private VariableResolver formVariables(WorkflowInstance instance) {
+        if (instance == null) {
+            return VariableResolver.EMPTY;
+        }
+        Map<String, Object> variables = workflowVariableService.getVariables(instance.getId());
+        return variables::get;
     }
 }
@@ -0,0 +1,541 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.config.WorkerThreadFactory;
+import com.example.workflow.dto.enums.WorkflowEventType;
+import com.example.workflow.entity.WorkflowCc;
+import com.example.workflow.entity.WorkflowTask;
+import com.example.workflow.service.WorkflowEventService;
+import com.example.workflow.vo.WorkflowEventVO;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 待办和抄送变更推送服务实现（SSE）
+ * 事务提交后事件进入每个连接的有界队列，由发送线程池按连接顺序写出，积压或补发缓冲区缺少事件时推送RESYNC。
+ * 连接和补发缓冲区只保存在本节点内存中，多节点部署时前端需在推送之外定期刷新列表
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowEventServiceImpl implements WorkflowEventService {
+
+    private final WorkerThreadFactory workerThreadFactory;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 连接超时（毫秒），超时后浏览器EventSource会自动重连
+     */
+    @Value("${workflow.events.timeout:1800000}")
+    private long timeout;
+
+    /**
+     * 每个用户的最大连接数，超出时关闭最早的连接
+     */
+    @Value("${workflow.events.max-connections-per-user:10}")
+    private int maxConnectionsPerUser;
+
+    /**
+     * 每个连接待发送事件队列容量
+     */
+    @Value("${workflow.events.connection-queue-capacity:256}")
+    private int connectionQueueCapacity;
+
+    /**
+     * 发送线程数，即可同时被慢客户端阻塞而不影响其他连接的数量
+     */
+    @Value("${workflow.events.sender-threads:4}")
+    private int senderThreads;
+
+    /**
+     * 单次写出超时（毫秒），超过时关闭该连接
+     */
+    @Value("${workflow.events.send-timeout:10000}")
+    private long sendTimeout;
+
+    /**
+     * 补发缓冲区容量，即最近多少条事件可在重连时补发
+     */
+    @Value("${workflow.events.replay-capacity:10000}")
+    private int replayCapacity;
+
+    /**
+     * 事件ID前缀，每次启动不同，重连时前缀不一致说明服务重启过
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * 保护补发缓冲区和序号；分配序号、写入缓冲区和放入连接队列在同一把锁内完成，
+     * 新连接注册与补发也在锁内，补发的事件与之后推送的事件不会重复或乱序
+     */
+    private final Object replayLock = new Object();
+
+    /**
+     * 最近发出的事件，序号递增
+     */
+    private final ArrayDeque<Record> replay = new ArrayDeque<>();
+
+    /**
+     * 最后分配的事件序号
+     */
+    private long lastSeq;
+
+    /**
+     * 已移出补发缓冲区的最大序号
+     */
+    private long evictedSeq;
+
+    /**
+     * 用户ID -> 该用户的连接
+     */
+    private final Map<String, List<Connection>> emitters = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private ThreadPoolExecutor sender;
+
+    @PostConstruct
+    public void start() {
+        // 每个连接最多有一个排队中的发送任务，队列长度不超过连接数
+        int threads = Math.max(1, senderThreads);
+        sender = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            r -> workerThreadFactory.newThread("workflow-event-sender", r));
+        meterRegistry.gauge("workflow.events.connections", connections);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        emitters.values().forEach(list -> list.forEach(connection -> connection.emitter.complete()));
+        emitters.clear();
+    }
+
+    @Override
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(e -> remove(connection));
+
+        List<Connection> evicted = new ArrayList<>();
+        synchronized (replayLock) {
+            emitters.compute(userId, (k, list) -> {
+                List<Connection> current = list != null ? list : new CopyOnWriteArrayList<>();
+                while (current.size() >= Math.max(1, maxConnectionsPerUser)) {
+                    evicted.add(current.remove(0));
+                }
+                current.add(connection);
+                return current;
+            });
+            // 立即写出响应头，代理不会因等待首个事件而超时
+            connection.offer(Outgoing.comment("connected"));
+            if (StringUtils.hasText(lastEventId)) {
+                replayTo(connection, lastEventId.trim());
+            }
+        }
+        connections.addAndGet(1 - evicted.size());
+        evicted.forEach(Connection::close);
+        log.debug("用户 {} 建立推送连接，当前连接数 {}", userId, connections.get());
+        return emitter;
+    }
+
+    /**
+     * 不在线用户的事件同样写入补发缓冲区，短暂断线的客户端重连后能补齐
+     */
+    @Override
+    public void onTasksCreated(List<WorkflowTask> tasks) {
+        List<Delivery> deliveries = new ArrayList<>(tasks.size());
+        for (WorkflowTask task : tasks) {
+            deliveries.add(new Delivery(task.getAssigneeId(), toEvent(WorkflowEventType.TASK_CREATED, task)));
+        }
+        publish(deliveries);
+    }
+
+    @Override
+    public void onTaskCompleted(WorkflowTask task) {
+        publish(Collections.singletonList(
+            new Delivery(task.getAssigneeId(), toEvent(WorkflowEventType.TASK_COMPLETED, task))));
+    }
+
+    @Override
+    public void onCcCreated(List<WorkflowCc> ccList) {
+        List<Delivery> deliveries = new ArrayList<>(ccList.size());
+        for (WorkflowCc cc : ccList) {
+            WorkflowEventVO event = new WorkflowEventVO();
+            event.setType(WorkflowEventType.CC_CREATED.name());
+            event.setId(cc.getId());
+            event.setInstanceId(cc.getInstanceId());
+            event.setInstanceNo(cc.getInstanceNo());
+            event.setNodeName(cc.getNodeName());
+            event.setTime(LocalDateTime.now());
+            deliveries.add(new Delivery(cc.getCcUserId(), event));
+        }
+        publish(deliveries);
+    }
+
+    /**
+     * 心跳：空闲连接写出注释行，写出失败的连接随之清理；写出卡住超过发送超时的连接直接关闭
+     */
+    @Scheduled(fixedDelayString = "${workflow.events.heartbeat-interval:25000}")
+    public void heartbeat() {
+        if (connections.get() == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (List<Connection> list : emitters.values()) {
+            for (Connection connection : list) {
+                long since = connection.sendingSince;
+                if (since > 0 && now - since > sendTimeout) {
+                    log.warn("用户 {} 的推送连接写出超时，关闭连接", connection.userId);
+                    meterRegistry.counter("workflow.events.send-timeouts").increment();
+                    remove(connection);
+                    connection.close();
+                } else {
+                    connection.ping();
+                }
+            }
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    private WorkflowEventVO toEvent(WorkflowEventType type, WorkflowTask task) {
+        WorkflowEventVO event = new WorkflowEventVO();
+        event.setType(type.name());
+        event.setId(task.getId());
+        event.setInstanceId(task.getInstanceId());
+        event.setInstanceNo(task.getInstanceNo());
+        event.setNodeName(task.getNodeName());
+        event.setStatus(task.getStatus());
+        event.setTime(LocalDateTime.now());
+        return event;
+    }
+
+    /**
+     * 事务提交后分配事件ID、写入补发缓冲区并放入相关连接的发送队列，不在提交线程上写出
+     */
+    private void publish(List<Delivery> deliveries) {
+        if (deliveries.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            synchronized (replayLock) {
+                for (Delivery delivery : deliveries) {
+                    if (delivery.userId == null) {
+                        continue;
+                    }
+                    Record record = append(delivery);
+                    List<Connection> list = emitters.get(delivery.userId);
+                    if (list == null) {
+                        continue;
+                    }
+                    for (Connection connection : list) {
+                        connection.offer(record.outgoing);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 分配序号并写入补发缓冲区，调用方持有replayLock
+     */
+    private Record append(Delivery delivery) {
+        long seq = ++lastSeq;
+        Record record = new Record(seq, delivery.userId, Outgoing.event(eventId(seq), delivery.event));
+        replay.addLast(record);
+        while (replay.size() > Math.max(0, replayCapacity)) {
+            evictedSeq = replay.removeFirst().seq;
+        }
+        return record;
+    }
+
+    /**
+     * 补发lastEventId之后该用户的事件；ID不是本次启动发出的，或之后的事件已有移出缓冲区的，改为推送RESYNC。
+     * 调用方持有replayLock
+     */
+    private void replayTo(Connection connection, String lastEventId) {
+        long after = parseSeq(lastEventId);
+        if (after < 0 || after > lastSeq || after < evictedSeq) {
+            meterRegistry.counter("workflow.events.resyncs").increment();
+            connection.offer(Outgoing.resync(eventId(lastSeq)));
+            return;
+        }
+        for (Record record : replay) {
+            if (record.seq > after && connection.userId.equals(record.userId)) {
+                connection.offer(record.outgoing);
+            }
+        }
+    }
+
+    private String eventId(long seq) {
+        return epoch + "-" + seq;
+    }
+
+    /**
+     * 解析本次启动发出的事件ID的序号，其他ID返回-1
+     */
+    private long parseSeq(String eventId) {
+        int dash = eventId.lastIndexOf('-');
+        if (dash <= 0 || !epoch.equals(eventId.substring(0, dash))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void remove(Connection connection) {
+        emitters.computeIfPresent(connection.userId, (k, list) -> {
+            if (list.remove(connection)) {
+                connections.decrementAndGet();
+            }
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /**
+     * 一个SSE连接及其待发送队列
+     */
+    private final class Connection {
+
+        private final String userId;
+
+        private final SseEmitter emitter;
+
+        /**
+         * 待发送事件，访问时对自身加锁
+         */
+        private final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+
+        /**
+         * 是否已提交发送任务，保证同一连接只有一个线程在写
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * 当前写出开始的时间，0表示没有在写
+         */
+        private volatile long sendingSince;
+
+        /**
+         * 已要求关闭，由发送任务在写出间隙关闭连接
+         */
+        private volatile boolean closed;
+
+        Connection(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(Outgoing outgoing) {
+            synchronized (queue) {
+                if (closed) {
+                    return;
+                }
+                if (queue.size() >= Math.max(1, connectionQueueCapacity)) {
+                    // 积压的事件对客户端已无意义，清空后只推送一条RESYNC，ID取最新事件的ID
+                    meterRegistry.counter("workflow.events.dropped").increment(queue.size() + 1);
+                    meterRegistry.counter("workflow.events.resyncs").increment();
+                    log.debug("用户 {} 的推送队列已满，改为推送RESYNC", userId);
+                    queue.clear();
+                    outgoing = Outgoing.resync(outgoing.id);
+                }
+                queue.add(outgoing);
+            }
+            schedule();
+        }
+
+        /**
+         * 队列为空时写出心跳，有待发送事件时无需心跳
+         */
+        void ping() {
+            synchronized (queue) {
+                if (closed || !queue.isEmpty()) {
+                    return;
+                }
+                queue.add(Outgoing.comment("ping"));
+            }
+            schedule();
+        }
+
+        /**
+         * 丢弃待发送事件并关闭连接；正在写出时，由写出返回后的发送任务关闭
+         */
+        void close() {
+            synchronized (queue) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                queue.clear();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // 服务关闭中
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Outgoing next;
+                while ((next = poll()) != null) {
+                    if (closed) {
+                        break;
+                    }
+                    sendingSince = System.currentTimeMillis();
+                    try {
+                        emitter.send(next.toBuilder());
+                    } catch (IOException | IllegalStateException e) {
+                        // 客户端已断开或连接已结束
+                        remove(this);
+                        synchronized (queue) {
+                            closed = true;
+                            queue.clear();
+                        }
+                        return;
+                    } finally {
+                        sendingSince = 0;
+                    }
+                }
+                if (closed) {
+                    remove(this);
+                    emitter.complete();
+                    return;
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // 释放标记后又有新事件入队或要求关闭时重新调度，避免事件滞留
+            boolean pending;
+            synchronized (queue) {
+                pending = closed || !queue.isEmpty();
+            }
+            if (pending) {
+                schedule();
+            }
+        }
+
+        private Outgoing poll() {
+            synchronized (queue) {
+                return queue.poll();
+            }
+        }
+    }
+
+    /**
+     * 待写出的一条SSE消息：事件或注释
+     * SseEventBuilder写出时会修改自身，不能在多个连接间共享，因此在写出时才构建
+     */
+    private static final class Outgoing {
+
+        private final String id;
+
+        private final WorkflowEventVO event;
+
+        private final String comment;
+
+        private Outgoing(String id, WorkflowEventVO event, String comment) {
+            this.id = id;
+            this.event = event;
+            this.comment = comment;
+        }
+
+        static Outgoing event(String id, WorkflowEventVO event) {
+            return new Outgoing(id, event, null);
+        }
+
+        static Outgoing comment(String comment) {
+            return new Outgoing(null, null, comment);
+        }
+
+        /**
+         * 通知客户端可能漏掉了事件，需重新加载列表
+         */
+        static Outgoing resync(String id) {
+            WorkflowEventVO event = new WorkflowEventVO();
+            event.setType(WorkflowEventType.RESYNC.name());
+            event.setTime(LocalDateTime.now());
+            return new Outgoing(id, event, null);
+        }
+
+        SseEmitter.SseEventBuilder toBuilder() {
+            if (event == null) {
+                return SseEmitter.event().comment(comment);
+            }
+            SseEmitter.SseEventBuilder builder = SseEmitter.event();
+            if (id != null) {
+                builder.id(id);
+            }
+            return builder.name(event.getType()).data(event, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    /**
+     * 补发缓冲区中的一条事件
+     */
+    private static final class Record {
+
+        private final long seq;
+
+        private final String userId;
+
+        private final Outgoing outgoing;
+
+        Record(long seq, String userId, Outgoing outgoing) {
+            this.seq = seq;
+            this.userId = userId;
+            this.outgoing = outgoing;
+        }
+    }
+
+    /**
+     * 发给某个用户的事件
+     */
+    private static final class Delivery {
+
+        private final String userId;
+
+        private final WorkflowEventVO event;
+
+        Delivery(String userId, WorkflowEventVO event) {
+            this.userId = userId;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.dto.ExportQueryDTO;
+import com.example.workflow.dto.enums.ExportFormat;
+import com.example.workflow.entity.WorkflowHistory;
+import com.example.workflow.entity.WorkflowInstance;
+import com.example.workflow.entity.WorkflowTask;
+import com.example.workflow.mapper.WorkflowHistoryMapper;
+import com.example.workflow.mapper.WorkflowInstanceMapper;
+import com.example.workflow.mapper.WorkflowTaskMapper;
+import com.example.workflow.service.WorkflowExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据导出服务实现
+ * 整个导出在一个只读事务中遍历MyBatis游标，每读一行立即序列化写出，不在内存中累积结果。
+ * 导出期间占用一个数据库连接，客户端断开时写出失败，游标随事务一起关闭。
+ * 查询同时读取原表和归档表（UNION ALL），已归档的流程同样会被导出
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowExportServiceImpl implements WorkflowExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final WorkflowInstanceMapper workflowInstanceMapper;
+    private final WorkflowTaskMapper workflowTaskMapper;
+    private final WorkflowHistoryMapper workflowHistoryMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public ExportFormat validate(String table, ExportQueryDTO query) {
+        table(table);
+        if (query.getFrom() != null && query.getTo() != null && !query.getFrom().isBefore(query.getTo())) {
+            throw new RuntimeException("开始时间必须早于结束时间");
+        }
+        try {
+            return ExportFormat.valueOf(query.getFormat().trim().toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("不支持的导出格式：" + query.getFormat());
+        }
+    }
+
+    @Override
+    public long export(String table, ExportQueryDTO query, OutputStream out) throws IOException {
+        ExportFormat format = validate(table, query);
+        ExportTable<?> exportTable = table(table);
+
+        long start = System.currentTimeMillis();
+        GZIPOutputStream gzip = query.isGzip() ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        OutputStream target = gzip != null ? gzip : out;
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Long rows;
+        try {
+            rows = readOnly.execute(status -> write(exportTable, query, format, target));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (gzip != null) {
+            gzip.finish();
+        }
+        out.flush();
+
+        log.info("导出 {} 完成：{} 行，格式={}，gzip={}，耗时 {} ms",
+            table, rows, format, query.isGzip(), System.currentTimeMillis() - start);
+        return rows != null ? rows : 0L;
+    }
+
+    // ========== 私有方法 ==========
+
+    private <T> long write(ExportTable<T> table, ExportQueryDTO query, ExportFormat format, OutputStream out) {
+        try (Cursor<T> cursor = table.reader.apply(query)) {
+            return format == ExportFormat.CSV
+                ? writeCsv(table, cursor, out)
+                : writeNdjson(cursor, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> long writeNdjson(Cursor<T> cursor, OutputStream out) throws IOException {
+        // 关闭每行后的flush，由生成器缓冲区满时写出
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long rows = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            for (T row : cursor) {
+                writer.writeValue(generator, row);
+                generator.writeRaw('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private <T> long writeCsv(ExportTable<T> table, Cursor<T> cursor, OutputStream out) throws IOException {
+        // 不关闭Writer，避免关闭下层输出流
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        // UTF-8 BOM，Excel打开时中文不乱码
+        writer.write('\uFEFF');
+        writeCsvLine(writer, table.columns.keySet());
+        long rows = 0;
+        for (T row : cursor) {
+            int i = 0;
+            for (Function<T, Object> column : table.columns.values()) {
+                if (i++ > 0) {
+                    writer.write(',');
+                }
+                writeCsvValue(writer, column.apply(row));
+            }
+            writer.write("\r\n");
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsvLine(Writer writer, Iterable<String> values) throws IOException {
+        int i = 0;
+        for (String value : values) {
+            if (i++ > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(writer, value);
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * RFC 4180：含逗号、引号、换行的值加双引号，内部引号写两次
+     */
+    private static void writeCsvValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof LocalDateTime
+            ? TIME_FORMATTER.format((LocalDateTime) value)
+            : value.toString();
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private ExportTable<?> table(String table) {
+        if (table == null) {
+            throw new RuntimeException("导出表不能为空");
+        }
+        switch (table) {
+            case "workflow_instance":
+                return instanceTable();
+            case "workflow_task":
+                return taskTable();
+            case "workflow_history":
+                return historyTable();
+            default:
+                throw new RuntimeException("不支持导出的表：" + table);
+        }
+    }
+
+    private ExportTable<WorkflowInstance> instanceTable() {
+        ExportTable<WorkflowInstance> table = new ExportTable<>(
+            query -> workflowInstanceMapper.streamByStartTime(query.getFrom(), query.getTo()));
+        table.column("id", WorkflowInstance::getId)
+            .column("instance_no", WorkflowInstance::getInstanceNo)
+            .column("workflow_id", WorkflowInstance::getWorkflowId)
+            .column("workflow_key", WorkflowInstance::getWorkflowKey)
+            .column("workflow_name", WorkflowInstance::getWorkflowName)
+            .column("form_id", WorkflowInstance::getFormId)
+            .column("form_data", WorkflowInstance::getFormData)
+            .column("status", WorkflowInstance::getStatus)
+            .column("current_node_id", WorkflowInstance::getCurrentNodeId)
+            .column("start_user_id", WorkflowInstance::getStartUserId)
+            .column("start_user_name", WorkflowInstance::getStartUserName)
+            .column("start_time", WorkflowInstance::getStartTime)
+            .column("end_time", WorkflowInstance::getEndTime)
+            .column("duration", WorkflowInstance::getDuration)
+            .column("business_key", WorkflowInstance::getBusinessKey)
+            .column("title", WorkflowInstance::getTitle)
+            .column("priority", WorkflowInstance::getPriority);
+        return table;
+    }
+
+    private ExportTable<WorkflowTask> taskTable() {
+        ExportTable<WorkflowTask> table = new ExportTable<>(
+            query -> workflowTaskMapper.streamByCreateTime(query.getFrom(), query.getTo()));
+        table.column("id", WorkflowTask::getId)
+            .column("instance_id", WorkflowTask::getInstanceId)
+            .column("instance_no", WorkflowTask::getInstanceNo)
+            .column("node_id", WorkflowTask::getNodeId)
+            .column("node_key", WorkflowTask::getNodeKey)
+            .column("node_name", WorkflowTask::getNodeName)
+            .column("node_type", WorkflowTask::getNodeType)
+            .column("assignee_id", WorkflowTask::getAssigneeId)
+            .column("assignee_name", WorkflowTask::getAssigneeName)
+            .column("status", WorkflowTask::getStatus)
+            .column("comment", WorkflowTask::getComment)
+            .column("attachments", WorkflowTask::getAttachments)
+            .column("create_time", WorkflowTask::getCreateTime)
+            .column("claim_time", WorkflowTask::getClaimTime)
+            .column("complete_time", WorkflowTask::getCompleteTime)
+            .column("due_time", WorkflowTask::getDueTime)
+            .column("priority", WorkflowTask::getPriority);
+        return table;
+    }
+
+    private ExportTable<WorkflowHistory> historyTable() {
+        ExportTable<WorkflowHistory> table = new ExportTable<>(
+            query -> workflowHistoryMapper.streamByOperateTime(query.getFrom(), query.getTo()));
+        table.column("id", WorkflowHistory::getId)
+            .column("instance_id", WorkflowHistory::getInstanceId)
+            .column("task_id", WorkflowHistory::getTaskId)
+            .column("node_id", WorkflowHistory::getNodeId)
+            .column("node_name", WorkflowHistory::getNodeName)
+            .column("action", WorkflowHistory::getAction)
+            .column("operator_id", WorkflowHistory::getOperatorId)
+            .column("operator_name", WorkflowHistory::getOperatorName)
+            .column("comment", WorkflowHistory::getComment)
+            .column("attachments", WorkflowHistory::getAttachments)
+            .column("duration", WorkflowHistory::getDuration)
+            .column("operate_time", WorkflowHistory::getOperateTime);
+        return table;
+    }
+
+    /**
+     * 可导出的表：游标读取方式和CSV列
+     */
+    private static final class ExportTable<T> {
+
+        private final Function<ExportQueryDTO, Cursor<T>> reader;
+        private final Map<String, Function<T, Object>> columns = new LinkedHashMap<>();
+
+        ExportTable(Function<ExportQueryDTO, Cursor<T>> reader) {
+            this.reader = reader;
+        }
+
+        ExportTable<T> column(String name, Function<T, Object> value) {
+            columns.put(name, value);
+            return this;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.workflow.dto.WorkflowFormDTO;
 import com.example.workflow.entity.WorkflowForm;
 import com.example.workflow.mapper.WorkflowFormMapper;
+import com.example.workflow.service.ContentVersionService;
 import com.example.workflow.service.WorkflowFormService;
 import com.example.workflow.vo.WorkflowFormVO;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +24,7 @@ import java.util.stream.Collectors;
 class WorkflowFormServiceImpl implements WorkflowFormService {
 
     private final WorkflowFormMapper workflowFormMapper;
+    private final ContentVersionService contentVersionService;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -61,6 +63,7 @@ class WorkflowFormServiceImpl implements WorkflowFormService {
         form.setFormConfig(dto.getFormConfig());
 
         workflowFormMapper.updateById(form);
+        contentVersionService.formChanged(id);
     }
 
     @Override
@@ -74,6 +77,7 @@ class WorkflowFormServiceImpl implements WorkflowFormService {
         // 这里可以检查是否有工作流在使用该表单
 
         workflowFormMapper.deleteById(id);
+        contentVersionService.formChanged(id);
     }
 
     @Override
@@ -0,0 +1,280 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.config.WorkerThreadFactory;
+import com.example.workflow.entity.WorkflowHistory;
+import com.example.workflow.mapper.WorkflowHistoryMapper;
+import com.example.workflow.service.WorkflowHistoryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 流程历史写入服务实现
+ * 事务内记录的历史先挂在事务同步上，提交后放入有界队列；后台线程按批取出并用多行INSERT写入。
+ * 队列满时调用方最多等待offer-timeout，仍放不进去则本批剩余的历史由调用方在独立事务中直接写入（背压）。
+ * 应用关闭时停止后台线程并把队列中剩余的历史全部写完；进程崩溃时已提交但尚未写入的历史会丢失，
+ * 丢失范围见workflow.history.unwritten和workflow.history.lag指标，不能接受时关闭async
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowHistoryServiceImpl implements WorkflowHistoryService {
+
+    private final WorkflowHistoryMapper workflowHistoryMapper;
+    private final WorkerThreadFactory workerThreadFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 是否异步写入，关闭时在业务事务内同步写入
+     */
+    @Value("${workflow.history.async:true}")
+    private boolean async;
+
+    @Value("${workflow.history.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${workflow.history.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 后台线程等待新记录的最长时间（毫秒）
+     */
+    @Value("${workflow.history.flush-interval:200}")
+    private long flushInterval;
+
+    /**
+     * 队列满时调用方等待的最长时间（毫秒）
+     */
+    @Value("${workflow.history.offer-timeout:100}")
+    private long offerTimeout;
+
+    private BlockingQueue<WorkflowHistory> queue;
+
+    private TransactionTemplate requiresNew;
+
+    private Counter overflowCounter;
+
+    /**
+     * 后台线程正在写入的历史数及其中最早一条的记录时间
+     */
+    private final AtomicInteger writing = new AtomicInteger();
+
+    private volatile LocalDateTime writingSince;
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Gauge.builder("workflow.history.queue.size", queue, BlockingQueue::size)
+            .description("待写入的流程历史数")
+            .register(meterRegistry);
+        overflowCounter = Counter.builder("workflow.history.overflow")
+            .description("队列已满由调用方直接写入的流程历史数")
+            .register(meterRegistry);
+        Gauge.builder("workflow.history.unwritten", this, s -> s.queue.size() + s.writing.get())
+            .description("已提交但尚未写入数据库的流程历史数，进程崩溃时丢失")
+            .register(meterRegistry);
+        Gauge.builder("workflow.history.lag", this, WorkflowHistoryServiceImpl::lagMillis)
+            .description("最早一条尚未写入的流程历史距记录时的毫秒数")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+
+        running = true;
+        flusher = workerThreadFactory.newThread("history-writer", this::runFlusher);
+        flusher.start();
+        log.info("流程历史异步写入已启动：queueCapacity={}, batchSize={}", queueCapacity, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = queue.size();
+        flush();
+        log.info("流程历史异步写入已停止，关闭时写入 {} 条", remaining);
+    }
+
+    @Override
+    public void record(WorkflowHistory history) {
+        // 批量写入不经过自动填充，操作时间在记录时确定
+        if (history.getOperateTime() == null) {
+            history.setOperateTime(LocalDateTime.now());
+        }
+        if (!running) {
+            workflowHistoryMapper.insert(history);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingHistory().rows.add(history);
+        } else {
+            enqueue(Collections.singletonList(history));
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (queue == null) {
+            return;
+        }
+        List<WorkflowHistory> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    /**
+     * 当前事务的待写入历史，首次记录时注册事务同步
+     */
+    private PendingHistory pendingHistory() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingHistory) {
+                return (PendingHistory) synchronization;
+            }
+        }
+        PendingHistory pending = new PendingHistory();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void enqueue(List<WorkflowHistory> rows) {
+        List<WorkflowHistory> overflow = null;
+        for (int i = 0; i < rows.size(); i++) {
+            boolean accepted;
+            try {
+                accepted = queue.offer(rows.get(i), offerTimeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+            // 等待超时后不再逐条等待，本批剩余的历史一起直接写入
+            if (!accepted) {
+                overflow = new ArrayList<>(rows.subList(i, rows.size()));
+                break;
+            }
+        }
+
+        // 队列已满：由调用方在独立事务中直接写入
+        if (overflow != null) {
+            overflowCounter.increment(overflow.size());
+            log.warn("流程历史队列已满，同步写入 {} 条", overflow.size());
+            List<WorkflowHistory> direct = overflow;
+            requiresNew.executeWithoutResult(status -> write(direct));
+        }
+        // 入队时恰逢关闭，关闭流程可能已经取完队列，由调用方补写
+        if (!running) {
+            requiresNew.executeWithoutResult(status -> flush());
+        }
+    }
+
+    private void runFlusher() {
+        List<WorkflowHistory> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                WorkflowHistory first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writingSince = first.getOperateTime();
+                writing.set(batch.size());
+                write(batch);
+            } catch (InterruptedException e) {
+                break;
+            } catch (Throwable e) {
+                log.error("流程历史写入线程异常", e);
+            } finally {
+                writing.set(0);
+                writingSince = null;
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 最早一条尚未写入的历史距记录时的毫秒数，没有待写入的历史时为0
+     */
+    private double lagMillis() {
+        LocalDateTime oldest = writingSince;
+        if (oldest == null) {
+            WorkflowHistory head = queue.peek();
+            oldest = head != null ? head.getOperateTime() : null;
+        }
+        return oldest != null ? Math.max(Duration.between(oldest, LocalDateTime.now()).toMillis(), 0) : 0;
+    }
+
+    /**
+     * 多行写入，失败时逐条写入，只丢弃本身有问题的记录
+     */
+    private void write(List<WorkflowHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            workflowHistoryMapper.insertBatch(batch);
+        } catch (RuntimeException e) {
+            log.warn("批量写入流程历史失败，逐条写入：{}", e.getMessage());
+            for (WorkflowHistory history : batch) {
+                try {
+                    workflowHistoryMapper.insert(history);
+                } catch (RuntimeException ex) {
+                    log.error("流程历史写入失败：instanceId={}, action={}, operatorId={}",
+                        history.getInstanceId(), history.getAction(), history.getOperatorId(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * 事务内的待写入历史，事务提交后入队，回滚则丢弃
+     */
+    private final class PendingHistory implements TransactionSynchronization {
+
+        private final List<WorkflowHistory> rows = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            enqueue(rows);
+        }
+    }
+}
@@ -7,20 +7,37 @@ import com.example.workflow.dto.*;
 import com.example.workflow.dto.enums.InstanceStatus;
 import com.example.workflow.dto.enums.NodeType;
 import com.example.workflow.dto.enums.TaskStatus;
+import com.example.workflow.engine.ProcessGraph;
+import com.example.workflow.engine.TimeoutPolicy;
+import com.example.workflow.engine.expression.ConditionExpression;
 import com.example.workflow.entity.*;
 
 import com.example.workflow.mapper.*;
+import com.example.workflow.service.ContentVersionService;
+import com.example.workflow.service.IdService;
+import com.example.workflow.service.ProcessGraphService;
+import com.example.workflow.service.TaskTimeoutService;
+import com.example.workflow.service.WorkflowHistoryService;
 import com.example.workflow.service.WorkflowService;
+import com.example.workflow.service.WorkflowSnapshotService;
+import com.example.workflow.service.WorkflowStatisticsService;
+import com.example.workflow.service.WorkflowAnalyticsService;
 import com.example.workflow.service.WorkflowEngineService;
+import com.example.workflow.service.WorkflowEventService;
+import com.example.workflow.service.WorkflowVariableService;
 import com.example.workflow.vo.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -29,6 +46,14 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class WorkflowServiceImpl implements WorkflowService {
+
+    /**
+     * 我发起的实例列表顺序：（发起时间, ID）倒序，合并原表和归档表时使用
+     */
+    private static final Comparator<WorkflowInstance> INSTANCE_ORDER = Comparator
+        .comparing(WorkflowInstance::getStartTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+        .thenComparing(WorkflowInstance::getId)
+        .reversed();
     
     private final WorkflowDefinitionMapper workflowDefinitionMapper;
     private final WorkflowNodeMapper workflowNodeMapper;
@@ -39,7 +64,20 @@ public class WorkflowServiceImpl implements WorkflowService {
     private final WorkflowHistoryMapper workflowHistoryMapper;
     private final WorkflowFormMapper workflowFormMapper;
     private final WorkflowTemplateMapper workflowTemplateMapper;
+    private final WorkflowTokenMapper workflowTokenMapper;
+    private final WorkflowInboxMapper workflowInboxMapper;
+    private final WorkflowArchiveMapper workflowArchiveMapper;
+    private final IdService idService;
     private final WorkflowEngineService workflowEngineService;
+    private final ProcessGraphService processGraphService;
+    private final WorkflowVariableService workflowVariableService;
+    private final WorkflowHistoryService workflowHistoryService;
+    private final WorkflowStatisticsService workflowStatisticsService;
+    private final WorkflowAnalyticsService workflowAnalyticsService;
+    private final TaskTimeoutService taskTimeoutService;
+    private final WorkflowEventService workflowEventService;
+    private final ContentVersionService contentVersionService;
+    private final WorkflowSnapshotService workflowSnapshotService;
     
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -53,7 +91,7 @@ public class WorkflowServiceImpl implements WorkflowService {
         definition.setFormId(dto.getFormId());
         definition.setIcon(dto.getIcon());
         definition.setStatus(0); // 初始为停用状态
-        definition.setVersion(1);
+        definition.setVersion(0); // 尚未发布，发布时生成版本1
 
         workflowDefinitionMapper.insert(definition);
         return definition.getId();
@@ -75,6 +113,7 @@ public class WorkflowServiceImpl implements WorkflowService {
         definition.setIcon(dto.getIcon());
 
         workflowDefinitionMapper.updateById(definition);
+        contentVersionService.definitionChanged(id);
     }
     
     @Override
@@ -92,6 +131,8 @@ public class WorkflowServiceImpl implements WorkflowService {
         }
         
         workflowDefinitionMapper.deleteById(id);
+        processGraphService.evictAll(id);
+        contentVersionService.definitionChanged(id);
     }
     
     @Override
@@ -105,8 +146,10 @@ public class WorkflowServiceImpl implements WorkflowService {
         // 验证工作流配置完整性
         validateWorkflowConfig(id);
         
-        definition.setStatus(1);
-        workflowDefinitionMapper.updateById(definition);
+        // 草稿复制为新版本，之后发起的实例使用新版本，运行中的实例仍按原版本流转
+        int version = workflowSnapshotService.publish(id);
+        processGraphService.preload(id, version);
+        contentVersionService.definitionChanged(id);
     }
     
     @Override
@@ -125,17 +168,19 @@ public class WorkflowServiceImpl implements WorkflowService {
         vo.setFormId(definition.getFormId());
         vo.setStatus(definition.getStatus());
         
-        // 获取节点
+        // 获取节点（草稿）
         List<WorkflowNode> nodes = workflowNodeMapper.selectList(
             new LambdaQueryWrapper<WorkflowNode>()
                 .eq(WorkflowNode::getWorkflowId, id)
+                .eq(WorkflowNode::getDefinitionVersion, WorkflowSnapshotService.DRAFT)
         );
         vo.setNodes(nodes);
         
-        // 获取连线
+        // 获取连线（草稿）
         List<WorkflowEdge> edges = workflowEdgeMapper.selectList(
             new LambdaQueryWrapper<WorkflowEdge>()
                 .eq(WorkflowEdge::getWorkflowId, id)
+                .eq(WorkflowEdge::getDefinitionVersion, WorkflowSnapshotService.DRAFT)
         );
         vo.setEdges(edges);
         
@@ -158,10 +203,11 @@ public class WorkflowServiceImpl implements WorkflowService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void saveWorkflowConfig(Long workflowId, WorkflowConfigDTO config) {
-        // 删除旧配置
+        // 删除旧草稿，已发布版本的快照保持不变
         workflowNodeMapper.delete(
             new LambdaQueryWrapper<WorkflowNode>()
                 .eq(WorkflowNode::getWorkflowId, workflowId)
+                .eq(WorkflowNode::getDefinitionVersion, WorkflowSnapshotService.DRAFT)
         );
 
         // 保存节点并建立 nodeKey 到 nodeId 的映射
@@ -169,6 +215,7 @@ public class WorkflowServiceImpl implements WorkflowService {
         if (config.getNodes() != null && !config.getNodes().isEmpty()) {
             for (WorkflowNode node : config.getNodes()) {
                 node.setWorkflowId(workflowId);
+                node.setDefinitionVersion(WorkflowSnapshotService.DRAFT);
                 workflowNodeMapper.insert(node);
                 // 建立映射关系
                 if (node.getNodeKey() != null) {
@@ -181,11 +228,13 @@ public class WorkflowServiceImpl implements WorkflowService {
         workflowEdgeMapper.delete(
             new LambdaQueryWrapper<WorkflowEdge>()
                 .eq(WorkflowEdge::getWorkflowId, workflowId)
+                .eq(WorkflowEdge::getDefinitionVersion, WorkflowSnapshotService.DRAFT)
         );
 
         if (config.getEdges() != null && !config.getEdges().isEmpty()) {
             for (WorkflowEdge edge : config.getEdges()) {
                 edge.setWorkflowId(workflowId);
+                edge.setDefinitionVersion(WorkflowSnapshotService.DRAFT);
                 // 如果提供了 sourceNodeKey 和 targetNodeKey，转换为 ID
                 if (edge.getSourceNodeKey() != null) {
                     edge.setSourceNodeId(nodeKeyToIdMap.get(edge.getSourceNodeKey()));
@@ -213,6 +262,10 @@ public class WorkflowServiceImpl implements WorkflowService {
         if (config.getFormSchema() != null) {
             handleFormSchema(workflowId, config.getFormSchema());
         }
+
+        // 流程配置已变更，失效流程图缓存
+        processGraphService.evict(workflowId, WorkflowSnapshotService.DRAFT);
+        contentVersionService.definitionChanged(workflowId);
     }
 
     @Override
@@ -297,7 +350,8 @@ public class WorkflowServiceImpl implements WorkflowService {
         java.util.List<WorkflowApprover> approvers = workflowApproverMapper.selectList(
             new LambdaQueryWrapper<WorkflowApprover>()
                 .inSql(WorkflowApprover::getNodeId,
-                    "SELECT id FROM workflow_node WHERE workflow_id = " + workflowId)
+                    "SELECT id FROM workflow_node WHERE workflow_id = " + workflowId +
+                    " AND definition_version = " + WorkflowSnapshotService.DRAFT)
         );
 
         if (approvers != null && !approvers.isEmpty()) {
@@ -305,6 +359,7 @@ public class WorkflowServiceImpl implements WorkflowService {
             java.util.List<WorkflowNode> nodes = workflowNodeMapper.selectList(
                 new LambdaQueryWrapper<WorkflowNode>()
                     .eq(WorkflowNode::getWorkflowId, workflowId)
+                    .eq(WorkflowNode::getDefinitionVersion, WorkflowSnapshotService.DRAFT)
             );
             java.util.Map<Long, String> nodeIdToKeyMap = new java.util.HashMap<>();
             for (WorkflowNode node : nodes) {
@@ -351,6 +406,7 @@ public class WorkflowServiceImpl implements WorkflowService {
         java.util.List<WorkflowNode> nodes = workflowNodeMapper.selectList(
             new LambdaQueryWrapper<WorkflowNode>()
                 .eq(WorkflowNode::getWorkflowId, workflowId)
+                .eq(WorkflowNode::getDefinitionVersion, WorkflowSnapshotService.DRAFT)
         );
         java.util.Map<String, Long> nodeKeyToIdMap = new java.util.HashMap<>();
         for (WorkflowNode node : nodes) {
@@ -502,6 +558,7 @@ public class WorkflowServiceImpl implements WorkflowService {
                 definition.setFormId(form.getId());
                 workflowDefinitionMapper.updateById(definition);
             }
+            contentVersionService.formChanged(form.getId());
 
         } catch (Exception e) {
             throw new RuntimeException("保存表单配置失败: " + e.getMessage(), e);
@@ -585,9 +642,72 @@ public class WorkflowServiceImpl implements WorkflowService {
         }
         
         // 创建流程实例
+        WorkflowInstance instance = newInstance(definition, workflowSnapshotService.currentVersion(definition), dto);
+        workflowInstanceMapper.insert(instance);
+        
+        // 解析表单数据，保存为流程变量
+        workflowVariableService.initVariables(instance.getId(), dto.getFormData());
+        
+        // 记录历史
+        recordStart(instance);
+        workflowStatisticsService.onInstanceStarted(instance.getWorkflowId(), instance.getStartUserId());
+        
+        // 启动流程引擎，执行到第一个审批节点
+        workflowEngineService.startProcess(instance.getId());
+        
+        return instance.getId();
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<WorkflowInstance> startWorkflows(List<WorkflowStartDTO> dtos) {
+        if (dtos.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        // 一次加载本批涉及的全部定义
+        List<Long> workflowIds = dtos.stream().map(WorkflowStartDTO::getWorkflowId).distinct().collect(Collectors.toList());
+        Map<Long, WorkflowDefinition> definitions = workflowDefinitionMapper.selectList(
+            new LambdaQueryWrapper<WorkflowDefinition>()
+                .in(WorkflowDefinition::getId, workflowIds)
+                .eq(WorkflowDefinition::getStatus, 1)
+        ).stream().collect(Collectors.toMap(WorkflowDefinition::getId, d -> d));
+        // 每个定义只确定一次发起版本，不按实例逐个查询快照
+        Map<Long, Integer> versions = new HashMap<>(definitions.size() * 2);
+        for (WorkflowDefinition definition : definitions.values()) {
+            versions.put(definition.getId(), workflowSnapshotService.currentVersion(definition));
+        }
+        
+        // 实例ID预先从号段分配，由引擎推进完成后按最终状态批量写入
+        long[] ids = idService.nextIds("workflow_instance", dtos.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<WorkflowInstance> instances = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            WorkflowStartDTO dto = dtos.get(i);
+            WorkflowDefinition definition = definitions.get(dto.getWorkflowId());
+            if (definition == null) {
+                throw new RuntimeException("工作流不存在或未启用：" + dto.getWorkflowId());
+            }
+            WorkflowInstance instance = newInstance(definition, versions.get(definition.getId()), dto);
+            instance.setId(ids[i]);
+            instance.setStartTime(now);
+            instances.add(instance);
+        }
+        
+        workflowVariableService.initVariables(instances);
+        workflowEngineService.startProcesses(instances);
+        for (WorkflowInstance instance : instances) {
+            recordStart(instance);
+            workflowStatisticsService.onInstanceStarted(instance.getWorkflowId(), instance.getStartUserId());
+        }
+        return instances;
+    }
+    
+    private WorkflowInstance newInstance(WorkflowDefinition definition, int definitionVersion, WorkflowStartDTO dto) {
         WorkflowInstance instance = new WorkflowInstance();
-        instance.setInstanceNo(generateInstanceNo());
+        instance.setInstanceNo(idService.nextInstanceNo());
         instance.setWorkflowId(definition.getId());
+        instance.setDefinitionVersion(definitionVersion);
         instance.setWorkflowKey(definition.getWorkflowKey());
         instance.setWorkflowName(definition.getWorkflowName());
         instance.setFormId(definition.getFormId());
@@ -598,29 +718,34 @@ public class WorkflowServiceImpl implements WorkflowService {
         instance.setTitle(dto.getTitle());
         instance.setPriority(dto.getPriority());
         instance.setBusinessKey(dto.getBusinessKey());
-        
-        workflowInstanceMapper.insert(instance);
-        
-        // 记录历史
+        instance.setVersion(0);
+        return instance;
+    }
+    
+    private void recordStart(WorkflowInstance instance) {
         WorkflowHistory history = new WorkflowHistory();
         history.setInstanceId(instance.getId());
         history.setNodeId(0L);
         history.setNodeName("开始");
         history.setAction("START");
-        history.setOperatorId(dto.getStartUserId());
-        history.setOperatorName(dto.getStartUserName());
+        history.setOperatorId(instance.getStartUserId());
+        history.setOperatorName(instance.getStartUserName());
         history.setComment("发起流程");
-        workflowHistoryMapper.insert(history);
-        
-        // 启动流程引擎，执行到第一个审批节点
-        workflowEngineService.startProcess(instance.getId());
+        workflowHistoryService.record(history);
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class, isolation = Isolation.READ_COMMITTED)
+    public void approveTask(Long taskId, TaskApproveDTO dto) {
+        WorkflowTask task = completeTask(taskId, dto);
         
-        return instance.getId();
+        // 执行流程引擎
+        workflowEngineService.processTask(task.getInstanceId(), taskId, dto.isApproved());
     }
     
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public void approveTask(Long taskId, TaskApproveDTO dto) {
+    public WorkflowTask completeTask(Long taskId, TaskApproveDTO dto) {
         WorkflowTask task = workflowTaskMapper.selectById(taskId);
         if (task == null) {
             throw new RuntimeException("任务不存在");
@@ -636,6 +761,46 @@ public class WorkflowServiceImpl implements WorkflowService {
         task.setAttachments(dto.getAttachments());
         task.setCompleteTime(LocalDateTime.now());
         workflowTaskMapper.updateById(task);
+        workflowInboxMapper.deleteById(taskId);
+        recordCompleted(task, dto);
+        return task;
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void completeTasks(List<WorkflowTask> tasks, TaskApproveDTO dto) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        String status = dto.isApproved() ? TaskStatus.APPROVED.name() : TaskStatus.REJECTED.name();
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> taskIds = tasks.stream().map(WorkflowTask::getId).collect(Collectors.toList());
+        
+        int updated = workflowTaskMapper.completeBatch(taskIds, status, dto.getComment(), dto.getAttachments(), now);
+        if (updated != taskIds.size()) {
+            throw new RuntimeException("部分任务已处理");
+        }
+        workflowInboxMapper.deleteBatchIds(taskIds);
+        for (WorkflowTask task : tasks) {
+            task.setStatus(status);
+            task.setComment(dto.getComment());
+            task.setAttachments(dto.getAttachments());
+            task.setCompleteTime(now);
+            recordCompleted(task, dto);
+        }
+    }
+    
+    /**
+     * 任务完成后的统计和历史
+     */
+    private void recordCompleted(WorkflowTask task, TaskApproveDTO dto) {
+        workflowStatisticsService.onTaskCompleted(task.getAssigneeId());
+        taskTimeoutService.cancel(task.getId());
+        workflowEventService.onTaskCompleted(task);
+        Long duration = taskDuration(task);
+        if (duration != null) {
+            workflowAnalyticsService.onTaskCompleted(task.getNodeId(), task.getNodeName(), duration);
+        }
         
         // 记录历史
         WorkflowHistory history = new WorkflowHistory();
@@ -648,10 +813,8 @@ public class WorkflowServiceImpl implements WorkflowService {
         history.setOperatorName(dto.getOperatorName());
         history.setComment(dto.getComment());
         history.setAttachments(dto.getAttachments());
-        workflowHistoryMapper.insert(history);
-        
-        // 执行流程引擎
-        workflowEngineService.processTask(task.getInstanceId(), taskId, dto.isApproved());
+        history.setDuration(duration);
+        workflowHistoryService.record(history);
     }
     
     @Override
@@ -684,7 +847,21 @@ public class WorkflowServiceImpl implements WorkflowService {
         newTask.setAssigneeName(dto.getTargetUserName());
         newTask.setStatus(TaskStatus.PENDING.name());
         newTask.setPriority(task.getPriority());
+        // 新审批人按节点超时策略重新计时
+        ProcessGraph.Node node = processGraphService.getGraphByNodeId(task.getNodeId()).getNode(task.getNodeId());
+        TimeoutPolicy timeout = node != null ? node.getTimeout() : null;
+        newTask.setDueTime(timeout != null ? timeout.dueTime(LocalDateTime.now()) : null);
         workflowTaskMapper.insert(newTask);
+        workflowInboxMapper.reassign(taskId, newTask.getId(), newTask.getAssigneeId(), newTask.getCreateTime());
+        taskTimeoutService.cancel(taskId);
+        taskTimeoutService.schedule(Collections.singletonList(newTask));
+        workflowEventService.onTaskCompleted(task);
+        workflowEventService.onTasksCreated(Collections.singletonList(newTask));
+        workflowStatisticsService.onTaskTransferred(task.getAssigneeId(), newTask.getAssigneeId());
+        Long duration = taskDuration(task);
+        if (duration != null) {
+            workflowAnalyticsService.onTaskCompleted(task.getNodeId(), task.getNodeName(), duration);
+        }
         
         // 记录历史
         WorkflowHistory history = new WorkflowHistory();
@@ -696,7 +873,8 @@ public class WorkflowServiceImpl implements WorkflowService {
         history.setOperatorId(dto.getOperatorId());
         history.setOperatorName(dto.getOperatorName());
         history.setComment("转交给：" + dto.getTargetUserName() + "。原因：" + dto.getReason());
-        workflowHistoryMapper.insert(history);
+        history.setDuration(duration);
+        workflowHistoryService.record(history);
     }
     
     @Override
@@ -714,15 +892,35 @@ public class WorkflowServiceImpl implements WorkflowService {
         // 更新实例状态
         instance.setStatus(InstanceStatus.CANCELED.name());
         instance.setEndTime(LocalDateTime.now());
-        workflowInstanceMapper.updateById(instance);
+        if (workflowInstanceMapper.updateById(instance) == 0) {
+            throw new RuntimeException("流程实例已被其他操作更新，请重试");
+        }
         
         // 取消待办任务
+        List<WorkflowTask> pendingTasks = workflowTaskMapper.selectList(
+            new LambdaQueryWrapper<WorkflowTask>()
+                .select(WorkflowTask::getId, WorkflowTask::getInstanceId, WorkflowTask::getInstanceNo,
+                    WorkflowTask::getNodeName, WorkflowTask::getAssigneeId)
+                .eq(WorkflowTask::getInstanceId, instanceId)
+                .eq(WorkflowTask::getStatus, TaskStatus.PENDING.name())
+        );
         workflowTaskMapper.update(null,
             new LambdaUpdateWrapper<WorkflowTask>()
                 .eq(WorkflowTask::getInstanceId, instanceId)
                 .eq(WorkflowTask::getStatus, TaskStatus.PENDING.name())
                     .set(WorkflowTask::getStatus, TaskStatus.CANCELED.name())
         );
+        workflowInboxMapper.deleteByInstanceId(instanceId);
+        contentVersionService.instanceChanged(instanceId);
+        for (WorkflowTask task : pendingTasks) {
+            task.setStatus(TaskStatus.CANCELED.name());
+            workflowStatisticsService.onTaskCanceled(task.getAssigneeId());
+            workflowEventService.onTaskCompleted(task);
+        }
+        workflowStatisticsService.onInstanceFinished(instance.getWorkflowId(), InstanceStatus.CANCELED.name());
+        
+        // 取消并行分支令牌
+        workflowTokenMapper.cancelByInstanceId(instanceId);
         
         // 记录历史
         WorkflowHistory history = new WorkflowHistory();
@@ -733,27 +931,28 @@ public class WorkflowServiceImpl implements WorkflowService {
         history.setOperatorId(instance.getStartUserId());
         history.setOperatorName(instance.getStartUserName());
         history.setComment(reason);
-        workflowHistoryMapper.insert(history);
+        workflowHistoryService.record(history);
     }
     
     @Override
     public Page<TaskVO> getMyPendingTasks(TaskQueryDTO query) {
-        Page<WorkflowTask> page = new Page<>(query.getPageNum(), query.getPageSize());
+        Page<WorkflowInbox> page = new Page<>(query.getPageNum(), query.getPageSize());
         
-        LambdaQueryWrapper<WorkflowTask> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(WorkflowTask::getAssigneeId, query.getUserId())
-               .eq(WorkflowTask::getStatus, TaskStatus.PENDING.name())
-               .orderByDesc(WorkflowTask::getCreateTime);
+        // 待办收件箱已冗余实例信息，按处理人索引范围扫描即可
+        LambdaQueryWrapper<WorkflowInbox> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(WorkflowInbox::getAssigneeId, query.getUserId())
+               .orderByDesc(WorkflowInbox::getCreateTime)
+               .orderByDesc(WorkflowInbox::getTaskId);
         
-        Page<WorkflowTask> taskPage = workflowTaskMapper.selectPage(page, wrapper);
+        Page<WorkflowInbox> inboxPage = workflowInboxMapper.selectPage(page, wrapper);
         
         // 转换为VO
         Page<TaskVO> voPage = new Page<>();
-        voPage.setCurrent(taskPage.getCurrent());
-        voPage.setSize(taskPage.getSize());
-        voPage.setTotal(taskPage.getTotal());
+        voPage.setCurrent(inboxPage.getCurrent());
+        voPage.setSize(inboxPage.getSize());
+        voPage.setTotal(inboxPage.getTotal());
         
-        List<TaskVO> voList = taskPage.getRecords().stream()
+        List<TaskVO> voList = inboxPage.getRecords().stream()
             .map(this::convertToTaskVO)
             .collect(Collectors.toList());
         voPage.setRecords(voList);
@@ -762,26 +961,51 @@ public class WorkflowServiceImpl implements WorkflowService {
     }
     
     @Override
-    public Page<InstanceVO> getMyInstances(InstanceQueryDTO query) {
-        Page<WorkflowInstance> page = new Page<>(query.getPageNum(), query.getPageSize());
-        
-        LambdaQueryWrapper<WorkflowInstance> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(WorkflowInstance::getStartUserId, query.getUserId())
-               .orderByDesc(WorkflowInstance::getStartTime);
+    public CursorPage<TaskVO> getMyPendingTasksByCursor(TaskQueryDTO query) {
+        int size = CursorPage.normalizeSize(query.getPageSize());
+        PageCursor cursor = PageCursor.decode(query.getCursor());
         
-        if (query.getStatus() != null) {
-            wrapper.eq(WorkflowInstance::getStatus, query.getStatus());
+        // 按（创建时间, 任务ID）倒序从游标位置继续扫描，多取一条判断是否还有下一页
+        LambdaQueryWrapper<WorkflowInbox> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(WorkflowInbox::getAssigneeId, query.getUserId());
+        if (cursor != null) {
+            wrapper.and(w -> w.lt(WorkflowInbox::getCreateTime, cursor.getTime())
+                .or(o -> o.eq(WorkflowInbox::getCreateTime, cursor.getTime())
+                    .lt(WorkflowInbox::getTaskId, cursor.getId())));
         }
+        wrapper.orderByDesc(WorkflowInbox::getCreateTime)
+               .orderByDesc(WorkflowInbox::getTaskId)
+               .last("LIMIT " + (size + 1));
+        List<WorkflowInbox> rows = workflowInboxMapper.selectList(wrapper);
         
-        Page<WorkflowInstance> instancePage = workflowInstanceMapper.selectPage(page, wrapper);
+        Long total = query.isWithTotal()
+            ? workflowInboxMapper.selectCount(new LambdaQueryWrapper<WorkflowInbox>()
+                .eq(WorkflowInbox::getAssigneeId, query.getUserId()))
+            : null;
+        return CursorPage.of(rows, size, r -> PageCursor.of(r.getCreateTime(), r.getTaskId()),
+            this::convertToTaskVO, total);
+    }
+    
+    @Override
+    public Page<InstanceVO> getMyInstances(InstanceQueryDTO query) {
+        long pageNum = Math.max(query.getPageNum(), 1);
+        int pageSize = CursorPage.normalizeSize(query.getPageSize());
+        
+        // 原表和归档表在数据库中合并排序，只取当前页；页码越大偏移越大，翻页较深时使用游标分页
+        List<WorkflowInstance> rows = workflowArchiveMapper.selectAllInstancesByStartUser(
+            query.getUserId(), query.getStatus(), (pageNum - 1) * pageSize, pageSize);
+        long total = workflowInstanceMapper.selectCount(new LambdaQueryWrapper<WorkflowInstance>()
+                .eq(WorkflowInstance::getStartUserId, query.getUserId())
+                .eq(query.getStatus() != null, WorkflowInstance::getStatus, query.getStatus()))
+            + workflowArchiveMapper.countInstancesByStartUser(query.getUserId(), query.getStatus());
         
         // 转换为VO
         Page<InstanceVO> voPage = new Page<>();
-        voPage.setCurrent(instancePage.getCurrent());
-        voPage.setSize(instancePage.getSize());
-        voPage.setTotal(instancePage.getTotal());
+        voPage.setCurrent(pageNum);
+        voPage.setSize(pageSize);
+        voPage.setTotal(total);
         
-        List<InstanceVO> voList = instancePage.getRecords().stream()
+        List<InstanceVO> voList = rows.stream()
             .map(this::convertToInstanceVO)
             .collect(Collectors.toList());
         voPage.setRecords(voList);
@@ -790,11 +1014,42 @@ public class WorkflowServiceImpl implements WorkflowService {
     }
     
     @Override
-    public InstanceDetailVO getInstanceDetail(Long instanceId) {
-        WorkflowInstance instance = workflowInstanceMapper.selectById(instanceId);
-        if (instance == null) {
-            throw new RuntimeException("流程实例不存在");
+    public CursorPage<InstanceVO> getMyInstancesByCursor(InstanceQueryDTO query) {
+        int size = CursorPage.normalizeSize(query.getPageSize());
+        PageCursor cursor = PageCursor.decode(query.getCursor());
+        
+        // 按（发起时间, 实例ID）倒序从游标位置继续扫描，多取一条判断是否还有下一页
+        LambdaQueryWrapper<WorkflowInstance> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(WorkflowInstance::getStartUserId, query.getUserId())
+               .eq(query.getStatus() != null, WorkflowInstance::getStatus, query.getStatus());
+        if (cursor != null) {
+            wrapper.and(w -> w.lt(WorkflowInstance::getStartTime, cursor.getTime())
+                .or(o -> o.eq(WorkflowInstance::getStartTime, cursor.getTime())
+                    .lt(WorkflowInstance::getId, cursor.getId())));
         }
+        wrapper.orderByDesc(WorkflowInstance::getStartTime)
+               .orderByDesc(WorkflowInstance::getId)
+               .last("LIMIT " + (size + 1));
+        // 已结束的实例可能已归档，按同一游标从归档表再取一批合并
+        List<WorkflowInstance> rows = CursorPage.merge(
+            workflowInstanceMapper.selectList(wrapper),
+            workflowArchiveMapper.selectInstancesByStartUser(query.getUserId(), query.getStatus(),
+                cursor != null ? cursor.getTime() : null, cursor != null ? cursor.getId() : null, size + 1),
+            INSTANCE_ORDER, size + 1);
+        
+        Long total = query.isWithTotal()
+            ? workflowInstanceMapper.selectCount(new LambdaQueryWrapper<WorkflowInstance>()
+                .eq(WorkflowInstance::getStartUserId, query.getUserId())
+                .eq(query.getStatus() != null, WorkflowInstance::getStatus, query.getStatus()))
+                + workflowArchiveMapper.countInstancesByStartUser(query.getUserId(), query.getStatus())
+            : null;
+        return CursorPage.of(rows, size, r -> PageCursor.of(r.getStartTime(), r.getId()),
+            this::convertToInstanceVO, total);
+    }
+    
+    @Override
+    public InstanceDetailVO getInstanceDetail(Long instanceId) {
+        WorkflowInstance instance = loadInstance(instanceId);
 
         InstanceDetailVO vo = new InstanceDetailVO();
         vo.setId(instance.getId());
@@ -813,10 +1068,7 @@ public class WorkflowServiceImpl implements WorkflowService {
 
     @Override
     public InstanceInfoVO getInstanceInfo(Long instanceId) {
-        WorkflowInstance instance = workflowInstanceMapper.selectById(instanceId);
-        if (instance == null) {
-            throw new RuntimeException("流程实例不存在");
-        }
+        WorkflowInstance instance = loadInstance(instanceId);
 
         // 获取当前正在处理的任务
         WorkflowTask currentTask = workflowTaskMapper.selectOne(
@@ -848,10 +1100,7 @@ public class WorkflowServiceImpl implements WorkflowService {
 
     @Override
     public InstanceFormDataVO getInstanceFormData(Long instanceId) {
-        WorkflowInstance instance = workflowInstanceMapper.selectById(instanceId);
-        if (instance == null) {
-            throw new RuntimeException("流程实例不存在");
-        }
+        WorkflowInstance instance = loadInstance(instanceId);
 
         InstanceFormDataVO vo = new InstanceFormDataVO();
         vo.setInstanceId(instance.getId());
@@ -866,20 +1115,8 @@ public class WorkflowServiceImpl implements WorkflowService {
                 vo.setFormName(form.getFormName());
                 vo.setFormConfig(form.getFormConfig());
                 
-                // 解析表单数据为Map
-                if (instance.getFormData() != null && !instance.getFormData().isEmpty()) {
-                    try {
-                        com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        Map<String, Object> dataMap = objectMapper.readValue(
-                            instance.getFormData(),
-                            new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {}
-                        );
-                        vo.setDataMap(dataMap);
-                    } catch (Exception e) {
-                        // 解析失败，不设置dataMap，前端会尝试解析formData
-                        System.err.println("解析表单数据失败: " + e.getMessage());
-                    }
-                }
+                // 表单数据取自流程变量
+                vo.setDataMap(workflowVariableService.getVariables(instanceId));
             }
         }
 
@@ -890,26 +1127,28 @@ public class WorkflowServiceImpl implements WorkflowService {
     public InstanceGraphVO getInstanceGraph(Long instanceId) {
         WorkflowInstance instance = workflowInstanceMapper.selectById(instanceId);
         if (instance == null) {
-            throw new RuntimeException("流程实例不存在");
+            return getArchivedInstanceGraph(loadArchivedInstance(instanceId));
         }
 
         // 获取工作流定义的节点和连线
         List<WorkflowNode> nodes = workflowNodeMapper.selectList(
             new LambdaQueryWrapper<WorkflowNode>()
                 .eq(WorkflowNode::getWorkflowId, instance.getWorkflowId())
+                .eq(WorkflowNode::getDefinitionVersion, definitionVersion(instance))
         );
 
         List<WorkflowEdge> edges = workflowEdgeMapper.selectList(
             new LambdaQueryWrapper<WorkflowEdge>()
                 .eq(WorkflowEdge::getWorkflowId, instance.getWorkflowId())
+                .eq(WorkflowEdge::getDefinitionVersion, definitionVersion(instance))
         );
 
-        // 获取当前任务节点
-        WorkflowTask currentTask = workflowTaskMapper.selectOne(
+        // 获取当前任务节点（并行分支时有多个）
+        List<WorkflowTask> pendingTasks = workflowTaskMapper.selectList(
             new LambdaQueryWrapper<WorkflowTask>()
                 .eq(WorkflowTask::getInstanceId, instanceId)
                 .eq(WorkflowTask::getStatus, TaskStatus.PENDING.name())
-                .last("LIMIT 1")
+                .orderByAsc(WorkflowTask::getId)
         );
 
         // 获取已完成的任务节点
@@ -919,6 +1158,39 @@ public class WorkflowServiceImpl implements WorkflowService {
                 .eq(WorkflowTask::getStatus, TaskStatus.APPROVED.name())
         );
 
+        return toInstanceGraphVO(instance, nodes, edges, pendingTasks, completedTasks);
+    }
+
+    /**
+     * 已归档实例的流程图，任务从归档表读取
+     */
+    private InstanceGraphVO getArchivedInstanceGraph(WorkflowInstance instance) {
+        List<WorkflowNode> nodes = workflowNodeMapper.selectList(
+            new LambdaQueryWrapper<WorkflowNode>()
+                .eq(WorkflowNode::getWorkflowId, instance.getWorkflowId())
+                .eq(WorkflowNode::getDefinitionVersion, definitionVersion(instance))
+        );
+        List<WorkflowEdge> edges = workflowEdgeMapper.selectList(
+            new LambdaQueryWrapper<WorkflowEdge>()
+                .eq(WorkflowEdge::getWorkflowId, instance.getWorkflowId())
+                .eq(WorkflowEdge::getDefinitionVersion, definitionVersion(instance))
+        );
+        List<WorkflowTask> completedTasks = workflowArchiveMapper.selectTasks(instance.getId()).stream()
+            .filter(t -> TaskStatus.APPROVED.name().equals(t.getStatus()))
+            .collect(Collectors.toList());
+        return toInstanceGraphVO(instance, nodes, edges, Collections.emptyList(), completedTasks);
+    }
+
+    /**
+     * 实例发起时的流程定义版本，版本化之前发起的实例按草稿
+     */
+    private static int definitionVersion(WorkflowInstance instance) {
+        return instance.getDefinitionVersion() != null ? instance.getDefinitionVersion() : WorkflowSnapshotService.DRAFT;
+    }
+
+    private InstanceGraphVO toInstanceGraphVO(WorkflowInstance instance, List<WorkflowNode> nodes,
+                                              List<WorkflowEdge> edges, List<WorkflowTask> pendingTasks,
+                                              List<WorkflowTask> completedTasks) {
         InstanceGraphVO vo = new InstanceGraphVO();
         vo.setInstanceId(instance.getId());
         vo.setInstanceNo(instance.getInstanceNo());
@@ -927,8 +1199,13 @@ public class WorkflowServiceImpl implements WorkflowService {
         vo.setNodes(nodes);
         vo.setEdges(edges);
 
-        if (currentTask != null) {
-            vo.setCurrentNodeId(currentTask.getNodeId());
+        List<Long> activeNodeIds = pendingTasks.stream()
+            .map(WorkflowTask::getNodeId)
+            .distinct()
+            .collect(Collectors.toList());
+        vo.setActiveNodeIds(activeNodeIds);
+        if (!activeNodeIds.isEmpty()) {
+            vo.setCurrentNodeId(activeNodeIds.get(0));
         }
 
         List<Long> completedNodeIds = completedTasks.stream()
@@ -947,9 +1224,14 @@ public class WorkflowServiceImpl implements WorkflowService {
                 .eq(WorkflowTask::getInstanceId, instanceId)
                 .orderByAsc(WorkflowTask::getCreateTime)
         );
+        if (tasks.isEmpty()) {
+            tasks = workflowArchiveMapper.selectTasks(instanceId);
+        }
 
+        // 所有任务属于同一实例，只加载一次
+        WorkflowInstance instance = tasks.isEmpty() ? null : findInstance(instanceId);
         return tasks.stream()
-            .map(this::convertToTaskVO)
+            .map(task -> convertToTaskVO(task, instance))
             .collect(Collectors.toList());
     }
 
@@ -960,6 +1242,9 @@ public class WorkflowServiceImpl implements WorkflowService {
                 .eq(WorkflowHistory::getInstanceId, instanceId)
                 .orderByAsc(WorkflowHistory::getOperateTime)
         );
+        if (histories.isEmpty()) {
+            histories = workflowArchiveMapper.selectHistory(instanceId);
+        }
 
         return histories.stream()
             .map(this::convertToHistoryVO)
@@ -1008,10 +1293,11 @@ public class WorkflowServiceImpl implements WorkflowService {
     // ========== 私有方法 ==========
     
     private void validateWorkflowConfig(Long workflowId) {
-        // 验证是否有开始节点和结束节点
+        // 验证草稿是否有开始节点和结束节点
         List<WorkflowNode> nodes = workflowNodeMapper.selectList(
             new LambdaQueryWrapper<WorkflowNode>()
                 .eq(WorkflowNode::getWorkflowId, workflowId)
+                .eq(WorkflowNode::getDefinitionVersion, WorkflowSnapshotService.DRAFT)
         );
         
         if (nodes.isEmpty()) {
@@ -1024,13 +1310,32 @@ public class WorkflowServiceImpl implements WorkflowService {
         if (!hasStart || !hasEnd) {
             throw new RuntimeException("工作流必须包含开始节点和结束节点");
         }
+        
+        long splitCount = nodes.stream().filter(n -> NodeType.PARALLEL_SPLIT.name().equals(n.getNodeType())).count();
+        long joinCount = nodes.stream().filter(n -> NodeType.PARALLEL_JOIN.name().equals(n.getNodeType())).count();
+        if (splitCount != joinCount) {
+            throw new RuntimeException("并行分支节点和并行汇聚节点必须成对配置");
+        }
+        
+        // 验证连线条件表达式语法
+        List<WorkflowEdge> edges = workflowEdgeMapper.selectList(
+            new LambdaQueryWrapper<WorkflowEdge>()
+                .eq(WorkflowEdge::getWorkflowId, workflowId)
+                .eq(WorkflowEdge::getDefinitionVersion, WorkflowSnapshotService.DRAFT)
+        );
+        for (WorkflowEdge edge : edges) {
+            ConditionExpression.compile(edge.getConditionExpr());
+        }
     }
     
-    private String generateInstanceNo() {
-        return "WF" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
+    private TaskVO convertToTaskVO(WorkflowTask task) {
+        return convertToTaskVO(task, findInstance(task.getInstanceId()));
     }
     
-    private TaskVO convertToTaskVO(WorkflowTask task) {
+    /**
+     * @param instance 任务所属的流程实例（可能已归档），为null时不填充流程信息
+     */
+    private TaskVO convertToTaskVO(WorkflowTask task, WorkflowInstance instance) {
         TaskVO vo = new TaskVO();
         vo.setId(task.getId());
         vo.setInstanceId(task.getInstanceId());
@@ -1040,8 +1345,6 @@ public class WorkflowServiceImpl implements WorkflowService {
         vo.setCreateTime(task.getCreateTime());
         vo.setPriority(task.getPriority());
         
-        // 获取流程实例信息
-        WorkflowInstance instance = workflowInstanceMapper.selectById(task.getInstanceId());
         if (instance != null) {
             vo.setWorkflowName(instance.getWorkflowName());
             vo.setTitle(instance.getTitle());
@@ -1051,6 +1354,54 @@ public class WorkflowServiceImpl implements WorkflowService {
         return vo;
     }
     
+    private TaskVO convertToTaskVO(WorkflowInbox inbox) {
+        TaskVO vo = new TaskVO();
+        vo.setId(inbox.getTaskId());
+        vo.setInstanceId(inbox.getInstanceId());
+        vo.setInstanceNo(inbox.getInstanceNo());
+        vo.setWorkflowName(inbox.getWorkflowName());
+        vo.setNodeName(inbox.getNodeName());
+        vo.setStatus(TaskStatus.PENDING.name());
+        vo.setTitle(inbox.getTitle());
+        vo.setStartUserName(inbox.getStartUserName());
+        vo.setCreateTime(inbox.getCreateTime());
+        vo.setPriority(inbox.getPriority());
+        return vo;
+    }
+    
+    /**
+     * 加载流程实例，原表中没有时从归档表读取
+     */
+    private WorkflowInstance loadInstance(Long instanceId) {
+        WorkflowInstance instance = findInstance(instanceId);
+        if (instance == null) {
+            throw new RuntimeException("流程实例不存在");
+        }
+        return instance;
+    }
+    
+    /**
+     * 查找流程实例，原表中没有时从归档表读取，都不存在时返回null
+     */
+    private WorkflowInstance findInstance(Long instanceId) {
+        WorkflowInstance instance = workflowInstanceMapper.selectById(instanceId);
+        if (instance == null) {
+            instance = workflowArchiveMapper.selectInstance(instanceId);
+            if (instance != null && Integer.valueOf(1).equals(instance.getDeleted())) {
+                instance = null;
+            }
+        }
+        return instance;
+    }
+    
+    private WorkflowInstance loadArchivedInstance(Long instanceId) {
+        WorkflowInstance instance = workflowArchiveMapper.selectInstance(instanceId);
+        if (instance == null || Integer.valueOf(1).equals(instance.getDeleted())) {
+            throw new RuntimeException("流程实例不存在");
+        }
+        return instance;
+    }
+    
     private InstanceVO convertToInstanceVO(WorkflowInstance instance) {
         InstanceVO vo = new InstanceVO();
         vo.setId(instance.getId());
@@ -1060,10 +1411,21 @@ public class WorkflowServiceImpl implements WorkflowService {
         vo.setTitle(instance.getTitle());
         vo.setStartTime(instance.getStartTime());
         vo.setEndTime(instance.getEndTime());
+        vo.setDuration(instance.getDuration());
         vo.setPriority(instance.getPriority());
         return vo;
     }
     
+    /**
+     * 任务从创建到完成的耗时（毫秒）
+     */
+    private Long taskDuration(WorkflowTask task) {
+        if (task.getCreateTime() == null || task.getCompleteTime() == null) {
+            return null;
+        }
+        return Math.max(0, java.time.Duration.between(task.getCreateTime(), task.getCompleteTime()).toMillis());
+    }
+    
     private HistoryVO convertToHistoryVO(WorkflowHistory history) {
         HistoryVO vo = new HistoryVO();
         vo.setId(history.getId());
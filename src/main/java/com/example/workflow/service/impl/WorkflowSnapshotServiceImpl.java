@@ -0,0 +1,227 @@
+package com.example.workflow.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.workflow.engine.ProcessGraph;
+import com.example.workflow.engine.ProcessGraphCodec;
+import com.example.workflow.entity.WorkflowApprover;
+import com.example.workflow.entity.WorkflowDefinition;
+import com.example.workflow.entity.WorkflowEdge;
+import com.example.workflow.entity.WorkflowNode;
+import com.example.workflow.mapper.WorkflowApproverMapper;
+import com.example.workflow.mapper.WorkflowDefinitionMapper;
+import com.example.workflow.mapper.WorkflowEdgeMapper;
+import com.example.workflow.mapper.WorkflowNodeMapper;
+import com.example.workflow.service.ProcessGraphService;
+import com.example.workflow.service.WorkflowSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 流程定义快照服务实现
+ * 快照的节点、连线、审批人是草稿的副本，使用新的主键；流程图缓存、任务和令牌引用的都是快照节点ID，
+ * 保存草稿时删除重建节点不会影响它们。
+ * 发布时同时把快照编译为流程图并写入编译产物，引擎加载该版本时一次读取即可。
+ * 版本化之前发布的流程定义在启动时补建快照；之后发起时补建只是兜底，并发补建的失败方改用胜出方的版本
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowSnapshotServiceImpl implements WorkflowSnapshotService {
+
+    private final WorkflowDefinitionMapper workflowDefinitionMapper;
+    private final WorkflowNodeMapper workflowNodeMapper;
+    private final WorkflowEdgeMapper workflowEdgeMapper;
+    private final WorkflowApproverMapper workflowApproverMapper;
+    private final ProcessGraphService processGraphService;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 流程定义ID -> 已确认存在快照的最新版本，快照不会删除，确认后无需再查询
+     */
+    private final Map<Long, Integer> snapshotVersions = new ConcurrentHashMap<>();
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int publish(Long workflowId) {
+        WorkflowDefinition definition = workflowDefinitionMapper.selectById(workflowId);
+        if (definition == null) {
+            throw new RuntimeException("工作流不存在");
+        }
+        return publish(definition, true);
+    }
+
+    @Override
+    public int currentVersion(WorkflowDefinition definition) {
+        Long workflowId = definition.getId();
+        int version = definition.getVersion() != null ? definition.getVersion() : DRAFT;
+        if (version > DRAFT) {
+            Integer known = snapshotVersions.get(workflowId);
+            if (known != null && known >= version) {
+                return version;
+            }
+            Long count = workflowNodeMapper.selectCount(
+                new LambdaQueryWrapper<WorkflowNode>()
+                    .eq(WorkflowNode::getWorkflowId, workflowId)
+                    .eq(WorkflowNode::getDefinitionVersion, version)
+            );
+            if (count > 0) {
+                remember(workflowId, version);
+                return version;
+            }
+        }
+
+        // 补建不做结构校验，避免以前能发起的流程因校验规则变严而无法发起
+        log.info("流程定义 {} 已启用但没有版本快照，按当前草稿补建", workflowId);
+        return publish(definition, false);
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<WorkflowDefinition> definitions = workflowDefinitionMapper.selectList(
+            new LambdaQueryWrapper<WorkflowDefinition>()
+                .eq(WorkflowDefinition::getStatus, 1)
+        );
+        // 每个流程定义一个事务，个别定义补建失败不影响其他定义
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (WorkflowDefinition definition : definitions) {
+            try {
+                transaction.executeWithoutResult(status -> currentVersion(definition));
+            } catch (RuntimeException e) {
+                log.warn("流程定义 {} 补建版本快照失败：{}", definition.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    /**
+     * 复制草稿为新版本，并把新版本号写回definition，同一事务内再次发起时直接使用
+     *
+     * @param validate 是否校验流程结构，校验失败时整个发布回滚
+     */
+    private int publish(WorkflowDefinition definition, boolean validate) {
+        Long workflowId = definition.getId();
+        int current = definition.getVersion() != null ? definition.getVersion() : DRAFT;
+
+        List<WorkflowNode> nodes = workflowNodeMapper.selectList(
+            new LambdaQueryWrapper<WorkflowNode>()
+                .eq(WorkflowNode::getWorkflowId, workflowId)
+                .eq(WorkflowNode::getDefinitionVersion, DRAFT)
+        );
+        if (nodes.isEmpty()) {
+            throw new RuntimeException("工作流未配置节点");
+        }
+        List<WorkflowEdge> edges = workflowEdgeMapper.selectList(
+            new LambdaQueryWrapper<WorkflowEdge>()
+                .eq(WorkflowEdge::getWorkflowId, workflowId)
+                .eq(WorkflowEdge::getDefinitionVersion, DRAFT)
+        );
+        List<Long> draftNodeIds = nodes.stream().map(WorkflowNode::getId).collect(Collectors.toList());
+        List<WorkflowApprover> approvers = workflowApproverMapper.selectList(
+            new LambdaQueryWrapper<WorkflowApprover>()
+                .in(WorkflowApprover::getNodeId, draftNodeIds)
+        );
+
+        // 先占用版本号，并发发布同一流程定义时只有一个成功
+        if (workflowDefinitionMapper.claimNextVersion(workflowId, current) == 0) {
+            if (!validate) {
+                // 并发补建的失败方：胜出方已提交快照，直接使用它的版本
+                Integer latest = workflowDefinitionMapper.selectVersionForUpdate(workflowId);
+                if (latest != null && latest > current) {
+                    definition.setVersion(latest);
+                    return latest;
+                }
+            }
+            throw new RuntimeException("流程定义正在发布，请稍后重试");
+        }
+        int version = current + 1;
+        // 同一事务内发起的实例会按未提交的快照构建流程图，事务结束后失效
+        processGraphService.evict(workflowId, version);
+
+        // 草稿节点ID -> 快照节点ID
+        Map<Long, Long> nodeIds = new HashMap<>(nodes.size() * 2);
+        List<WorkflowNode> nodeCopies = new ArrayList<>(nodes.size());
+        for (WorkflowNode node : nodes) {
+            WorkflowNode copy = new WorkflowNode();
+            copy.setWorkflowId(workflowId);
+            copy.setNodeKey(node.getNodeKey());
+            copy.setNodeName(node.getNodeName());
+            copy.setNodeType(node.getNodeType());
+            copy.setPositionX(node.getPositionX());
+            copy.setPositionY(node.getPositionY());
+            copy.setConfig(node.getConfig());
+            copy.setDefinitionVersion(version);
+            workflowNodeMapper.insert(copy);
+            nodeIds.put(node.getId(), copy.getId());
+            nodeCopies.add(copy);
+        }
+
+        List<WorkflowEdge> edgeCopies = new ArrayList<>(edges.size());
+
+        for (WorkflowEdge edge : edges) {
+            Long sourceNodeId = nodeIds.get(edge.getSourceNodeId());
+            Long targetNodeId = nodeIds.get(edge.getTargetNodeId());
+            if (sourceNodeId == null || targetNodeId == null) {
+                log.warn("连线 {} 引用的节点不在草稿中，发布时忽略", edge.getId());
+                continue;
+            }
+            WorkflowEdge copy = new WorkflowEdge();
+            copy.setWorkflowId(workflowId);
+            copy.setSourceNodeId(sourceNodeId);
+            copy.setTargetNodeId(targetNodeId);
+            copy.setConditionExpr(edge.getConditionExpr());
+            copy.setPriority(edge.getPriority());
+            copy.setDefinitionVersion(version);
+            workflowEdgeMapper.insert(copy);
+            edgeCopies.add(copy);
+        }
+
+        List<WorkflowApprover> approverCopies = new ArrayList<>(approvers.size());
+        for (WorkflowApprover approver : approvers) {
+            WorkflowApprover copy = new WorkflowApprover();
+            copy.setNodeId(nodeIds.get(approver.getNodeId()));
+            copy.setApproverType(approver.getApproverType());
+            copy.setApproverValue(approver.getApproverValue());
+            copy.setApproveMode(approver.getApproveMode());
+            copy.setNobodyHandler(approver.getNobodyHandler());
+            workflowApproverMapper.insert(copy);
+            approverCopies.add(copy);
+        }
+
+        // 编译快照：出边排序、条件编译、超时策略解析都在这里完成，结果写入编译产物
+        ProcessGraph graph = ProcessGraph.build(workflowId, 0L, nodeCopies, edgeCopies, approverCopies);
+        if (validate) {
+            graph.validate();
+        }
+        byte[] artifact = ProcessGraphCodec.encode(graph);
+        workflowDefinitionMapper.insertArtifact(workflowId, version, artifact);
+
+        definition.setVersion(version);
+        definition.setStatus(1);
+        remember(workflowId, version);
+        log.info("发布流程定义 {} 版本 {}：nodes={}, edges={}, approvers={}, artifactBytes={}",
+            workflowId, version, nodes.size(), edgeCopies.size(), approvers.size(), artifact.length);
+        return version;
+    }
+
+    /**
+     * 事务提交后记录已确认的快照版本，回滚的快照不会被记住
+     */
+    private void remember(Long workflowId, int version) {
+        AfterCommit.run(() -> snapshotVersions.merge(workflowId, version, Math::max));
+    }
+}
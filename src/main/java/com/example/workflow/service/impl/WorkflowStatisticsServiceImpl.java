@@ -0,0 +1,311 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.dto.enums.InstanceStatus;
+import com.example.workflow.entity.WorkflowStatistics;
+import com.example.workflow.entity.WorkflowTask;
+import com.example.workflow.mapper.WorkflowStatisticsMapper;
+import com.example.workflow.service.WorkflowStatisticsService;
+import com.example.workflow.vo.WorkflowStatisticsVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 工作流统计服务实现
+ * 计数器使用LongAdder，高并发审批下各线程写入不同的槽位，读取时求和；
+ * 事务内发生的变化挂在事务同步上，提交后才计入，回滚不影响计数
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowStatisticsServiceImpl implements WorkflowStatisticsService {
+
+    private static final String SCOPE_GLOBAL = "GLOBAL";
+    private static final String SCOPE_USER = "USER";
+    private static final String SCOPE_WORKFLOW = "WORKFLOW";
+    private static final String GLOBAL_KEY = "*";
+
+    private final WorkflowStatisticsMapper workflowStatisticsMapper;
+
+    /**
+     * 重建与快照互斥，同一时刻只有一个线程访问统计表
+     */
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    @Value("${workflow.statistics.snapshot-batch-size:500}")
+    private int snapshotBatchSize;
+
+    private volatile Counters global = new Counters();
+
+    /**
+     * 用户ID -> 计数器
+     */
+    private volatile Map<String, Counters> userCounters = new ConcurrentHashMap<>();
+
+    /**
+     * 工作流ID -> 计数器
+     */
+    private volatile Map<Long, Counters> workflowCounters = new ConcurrentHashMap<>();
+
+    @Override
+    public WorkflowStatisticsVO getUserStatistics(String userId) {
+        Counters counters = userCounters.get(userId);
+        WorkflowStatisticsVO vo = new WorkflowStatisticsVO();
+        vo.setPendingTaskCount(counters != null ? counters.pendingTasks.sum() : 0L);
+        vo.setCompletedTaskCount(counters != null ? counters.completedTasks.sum() : 0L);
+        vo.setStartedInstanceCount(counters != null ? counters.startedInstances.sum() : 0L);
+        return vo;
+    }
+
+    @Override
+    public WorkflowStatisticsVO getWorkflowStatistics(Long workflowId) {
+        Counters counters = workflowCounters.get(workflowId);
+        WorkflowStatisticsVO vo = new WorkflowStatisticsVO();
+        vo.setTotalInstanceCount(counters != null ? counters.totalInstances.sum() : 0L);
+        vo.setRunningInstanceCount(counters != null ? counters.runningInstances.sum() : 0L);
+        vo.setApprovedInstanceCount(counters != null ? counters.approvedInstances.sum() : 0L);
+        vo.setRejectedInstanceCount(counters != null ? counters.rejectedInstances.sum() : 0L);
+        return vo;
+    }
+
+    @Override
+    public WorkflowStatisticsVO getGlobalStatistics() {
+        Counters counters = global;
+        WorkflowStatisticsVO vo = new WorkflowStatisticsVO();
+        vo.setPendingTaskCount(counters.pendingTasks.sum());
+        vo.setCompletedTaskCount(counters.completedTasks.sum());
+        vo.setStartedInstanceCount(counters.startedInstances.sum());
+        vo.setTotalInstanceCount(counters.totalInstances.sum());
+        vo.setRunningInstanceCount(counters.runningInstances.sum());
+        vo.setApprovedInstanceCount(counters.approvedInstances.sum());
+        vo.setRejectedInstanceCount(counters.rejectedInstances.sum());
+        return vo;
+    }
+
+    @Override
+    public void onTasksCreated(List<WorkflowTask> tasks) {
+        List<String> assignees = new ArrayList<>(tasks.size());
+        for (WorkflowTask task : tasks) {
+            assignees.add(task.getAssigneeId());
+        }
+        AfterCommit.run(() -> {
+            for (String assigneeId : assignees) {
+                Counters user = user(assigneeId);
+                if (user != null) {
+                    user.add(user.pendingTasks, 1);
+                }
+            }
+            global.add(global.pendingTasks, assignees.size());
+        });
+    }
+
+    @Override
+    public void onTaskCompleted(String assigneeId) {
+        AfterCommit.run(() -> {
+            Counters user = user(assigneeId);
+            if (user != null) {
+                user.add(user.pendingTasks, -1);
+                user.add(user.completedTasks, 1);
+            }
+            global.add(global.pendingTasks, -1);
+            global.add(global.completedTasks, 1);
+        });
+    }
+
+    @Override
+    public void onTaskCanceled(String assigneeId) {
+        AfterCommit.run(() -> {
+            Counters user = user(assigneeId);
+            if (user != null) {
+                user.add(user.pendingTasks, -1);
+            }
+            global.add(global.pendingTasks, -1);
+        });
+    }
+
+    @Override
+    public void onTaskTransferred(String fromAssigneeId, String toAssigneeId) {
+        AfterCommit.run(() -> {
+            Counters from = user(fromAssigneeId);
+            if (from != null) {
+                from.add(from.pendingTasks, -1);
+            }
+            Counters to = user(toAssigneeId);
+            if (to != null) {
+                to.add(to.pendingTasks, 1);
+            }
+        });
+    }
+
+    @Override
+    public void onInstanceStarted(Long workflowId, String startUserId) {
+        AfterCommit.run(() -> {
+            Counters user = user(startUserId);
+            if (user != null) {
+                user.add(user.startedInstances, 1);
+            }
+            Counters workflow = workflow(workflowId);
+            workflow.add(workflow.totalInstances, 1);
+            workflow.add(workflow.runningInstances, 1);
+            global.add(global.startedInstances, 1);
+            global.add(global.totalInstances, 1);
+            global.add(global.runningInstances, 1);
+        });
+    }
+
+    @Override
+    public void onInstanceFinished(Long workflowId, String status) {
+        AfterCommit.run(() -> {
+            for (Counters counters : new Counters[]{workflow(workflowId), global}) {
+                counters.add(counters.runningInstances, -1);
+                if (InstanceStatus.APPROVED.name().equals(status)) {
+                    counters.add(counters.approvedInstances, 1);
+                } else if (InstanceStatus.REJECTED.name().equals(status)) {
+                    counters.add(counters.rejectedInstances, 1);
+                }
+            }
+        });
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        maintenanceLock.lock();
+        try {
+            long startMillis = System.currentTimeMillis();
+            Counters newGlobal = new Counters();
+            Map<String, Counters> newUsers = new ConcurrentHashMap<>();
+            Map<Long, Counters> newWorkflows = new ConcurrentHashMap<>();
+
+            for (WorkflowStatistics row : workflowStatisticsMapper.aggregateTasksByAssignee()) {
+                Counters user = newUsers.computeIfAbsent(row.getScopeKey(), k -> new Counters());
+                user.add(user.pendingTasks, value(row.getPendingTaskCount()));
+                user.add(user.completedTasks, value(row.getCompletedTaskCount()));
+                newGlobal.add(newGlobal.pendingTasks, value(row.getPendingTaskCount()));
+                newGlobal.add(newGlobal.completedTasks, value(row.getCompletedTaskCount()));
+            }
+            for (WorkflowStatistics row : workflowStatisticsMapper.aggregateInstancesByStartUser()) {
+                Counters user = newUsers.computeIfAbsent(row.getScopeKey(), k -> new Counters());
+                user.add(user.startedInstances, value(row.getStartedInstanceCount()));
+                newGlobal.add(newGlobal.startedInstances, value(row.getStartedInstanceCount()));
+            }
+            for (WorkflowStatistics row : workflowStatisticsMapper.aggregateInstancesByWorkflow()) {
+                Counters workflow = newWorkflows.computeIfAbsent(Long.valueOf(row.getScopeKey()), k -> new Counters());
+                workflow.add(workflow.totalInstances, value(row.getTotalInstanceCount()));
+                workflow.add(workflow.runningInstances, value(row.getRunningInstanceCount()));
+                workflow.add(workflow.approvedInstances, value(row.getApprovedInstanceCount()));
+                workflow.add(workflow.rejectedInstances, value(row.getRejectedInstanceCount()));
+                newGlobal.add(newGlobal.totalInstances, value(row.getTotalInstanceCount()));
+                newGlobal.add(newGlobal.runningInstances, value(row.getRunningInstanceCount()));
+                newGlobal.add(newGlobal.approvedInstances, value(row.getApprovedInstanceCount()));
+                newGlobal.add(newGlobal.rejectedInstances, value(row.getRejectedInstanceCount()));
+            }
+
+            global = newGlobal;
+            userCounters = newUsers;
+            workflowCounters = newWorkflows;
+            log.info("工作流统计已重建：users={}, workflows={}, 耗时{}ms",
+                newUsers.size(), newWorkflows.size(), System.currentTimeMillis() - startMillis);
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${workflow.statistics.snapshot-interval:60000}",
+        fixedDelayString = "${workflow.statistics.snapshot-interval:60000}")
+    public void snapshot() {
+        maintenanceLock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<WorkflowStatistics> rows = new ArrayList<>();
+            collect(rows, SCOPE_GLOBAL, GLOBAL_KEY, global, now);
+            userCounters.forEach((userId, counters) -> collect(rows, SCOPE_USER, userId, counters, now));
+            workflowCounters.forEach((workflowId, counters) ->
+                collect(rows, SCOPE_WORKFLOW, String.valueOf(workflowId), counters, now));
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            for (int from = 0; from < rows.size(); from += snapshotBatchSize) {
+                workflowStatisticsMapper.upsertBatch(rows.subList(from, Math.min(from + snapshotBatchSize, rows.size())));
+            }
+            log.debug("写入工作流统计快照：{} 行", rows.size());
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    private Counters user(String userId) {
+        return userId != null ? userCounters.computeIfAbsent(userId, k -> new Counters()) : null;
+    }
+
+    private Counters workflow(Long workflowId) {
+        return workflowCounters.computeIfAbsent(workflowId, k -> new Counters());
+    }
+
+    /**
+     * 取出有变化的计数器，先清除变化标记再读取，读取期间的新变化留到下一轮
+     */
+    private void collect(List<WorkflowStatistics> rows, String scopeType, String scopeKey,
+                         Counters counters, LocalDateTime now) {
+        if (!counters.dirty) {
+            return;
+        }
+        counters.dirty = false;
+        WorkflowStatistics row = new WorkflowStatistics();
+        row.setScopeType(scopeType);
+        row.setScopeKey(scopeKey);
+        row.setPendingTaskCount(counters.pendingTasks.sum());
+        row.setCompletedTaskCount(counters.completedTasks.sum());
+        row.setStartedInstanceCount(counters.startedInstances.sum());
+        row.setTotalInstanceCount(counters.totalInstances.sum());
+        row.setRunningInstanceCount(counters.runningInstances.sum());
+        row.setApprovedInstanceCount(counters.approvedInstances.sum());
+        row.setRejectedInstanceCount(counters.rejectedInstances.sum());
+        row.setUpdateTime(now);
+        rows.add(row);
+    }
+
+    private static long value(Long count) {
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * 一个统计范围的计数器
+     */
+    private static final class Counters {
+
+        private final LongAdder pendingTasks = new LongAdder();
+        private final LongAdder completedTasks = new LongAdder();
+        private final LongAdder startedInstances = new LongAdder();
+        private final LongAdder totalInstances = new LongAdder();
+        private final LongAdder runningInstances = new LongAdder();
+        private final LongAdder approvedInstances = new LongAdder();
+        private final LongAdder rejectedInstances = new LongAdder();
+
+        /**
+         * 上次快照后是否有变化
+         */
+        private volatile boolean dirty = true;
+
+        void add(LongAdder counter, long delta) {
+            counter.add(delta);
+            dirty = true;
+        }
+    }
+}
@@ -282,7 +282,7 @@ public class WorkflowTemplateServiceImpl implements WorkflowTemplateService {
         definition.setIcon(template.getIcon());
         definition.setSortOrder(template.getSortOrder());
         definition.setStatus(0); // 初始为停用状态
-        definition.setVersion(1);
+        definition.setVersion(0); // 尚未发布，发布时生成版本1
 
         workflowDefinitionMapper.insert(definition);
         Long definitionId = definition.getId();
@@ -0,0 +1,279 @@
+package com.example.workflow.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.workflow.dto.enums.VariableType;
+import com.example.workflow.engine.expression.ConditionExpression;
+import com.example.workflow.entity.WorkflowInstance;
+import com.example.workflow.entity.WorkflowVariable;
+import com.example.workflow.mapper.WorkflowArchiveMapper;
+import com.example.workflow.mapper.WorkflowInstanceMapper;
+import com.example.workflow.mapper.WorkflowVariableMapper;
+import com.example.workflow.service.WorkflowVariableService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 流程变量服务实现
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowVariableServiceImpl implements WorkflowVariableService {
+
+    /**
+     * 变量缓存的最大实例数
+     */
+    private static final int MAX_CACHED_INSTANCES = 10000;
+
+    /**
+     * 变量路径缓存的最大条数
+     */
+    private static final int MAX_CACHED_PATHS = 1000;
+
+    /**
+     * 批量写入变量的每批行数
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private final WorkflowVariableMapper workflowVariableMapper;
+    private final WorkflowInstanceMapper workflowInstanceMapper;
+    private final WorkflowArchiveMapper workflowArchiveMapper;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 实例ID -> 变量
+     * 条件路由时每次读取都会命中，不用带全局锁的LRU；达到上限时整体清空，之后按需从变量表重新加载
+     */
+    private final Map<Long, Map<String, Object>> variableCache = new ConcurrentHashMap<>();
+
+    /**
+     * 变量路径 -> 编译后的路径表达式
+     */
+    private final Map<String, ConditionExpression> pathCache = new ConcurrentHashMap<>();
+
+    @Override
+    public void initVariables(Long instanceId, String formData) {
+        Map<String, Object> variables = parseFormData(instanceId, formData);
+        List<WorkflowVariable> rows = new ArrayList<>(variables.size());
+        addRows(rows, instanceId, variables, LocalDateTime.now());
+        insertRows(rows);
+
+        cacheVariables(instanceId, Collections.unmodifiableMap(variables));
+        evictOnRollback(Collections.singletonList(instanceId));
+        log.debug("保存流程变量：instanceId={}, count={}", instanceId, variables.size());
+    }
+
+    @Override
+    public void initVariables(List<WorkflowInstance> instances) {
+        LocalDateTime now = LocalDateTime.now();
+        List<WorkflowVariable> rows = new ArrayList<>();
+        List<Long> instanceIds = new ArrayList<>(instances.size());
+        for (WorkflowInstance instance : instances) {
+            Long instanceId = instance.getId();
+            Map<String, Object> variables = parseFormData(instanceId, instance.getFormData());
+            addRows(rows, instanceId, variables, now);
+            cacheVariables(instanceId, Collections.unmodifiableMap(variables));
+            instanceIds.add(instanceId);
+        }
+
+        insertRows(rows);
+        evictOnRollback(instanceIds);
+        log.debug("批量保存流程变量：instances={}, count={}", instances.size(), rows.size());
+    }
+
+    @Override
+    public Map<String, Object> getVariables(Long instanceId) {
+        if (instanceId == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> variables = variableCache.get(instanceId);
+        if (variables == null) {
+            variables = Collections.unmodifiableMap(loadVariables(instanceId));
+            cacheVariables(instanceId, variables);
+        }
+        return variables;
+    }
+
+    @Override
+    public Object getValue(Long instanceId, String path) {
+        if (!StringUtils.hasText(path)) {
+            return null;
+        }
+        Map<String, Object> variables = getVariables(instanceId);
+        if (variables.isEmpty()) {
+            return null;
+        }
+        try {
+            return compilePath(path.trim()).evaluate(variables::get);
+        } catch (RuntimeException e) {
+            log.warn("变量路径无效: {}", path, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void evict(Long instanceId) {
+        variableCache.remove(instanceId);
+    }
+
+    // ========== 私有方法 ==========
+
+    private void cacheVariables(Long instanceId, Map<String, Object> variables) {
+        if (variableCache.size() >= MAX_CACHED_INSTANCES) {
+            variableCache.clear();
+        }
+        variableCache.put(instanceId, variables);
+    }
+
+    private void addRows(List<WorkflowVariable> rows, Long instanceId, Map<String, Object> variables,
+                         LocalDateTime now) {
+        for (Map.Entry<String, Object> entry : variables.entrySet()) {
+            WorkflowVariable variable = new WorkflowVariable();
+            variable.setInstanceId(instanceId);
+            variable.setVarKey(entry.getKey());
+            encode(variable, entry.getValue());
+            variable.setCreateTime(now);
+            variable.setUpdateTime(now);
+            rows.add(variable);
+        }
+    }
+
+    /**
+     * 多行INSERT分批写入
+     */
+    private void insertRows(List<WorkflowVariable> rows) {
+        for (int from = 0; from < rows.size(); from += INSERT_BATCH_SIZE) {
+            workflowVariableMapper.insertBatch(rows.subList(from, Math.min(from + INSERT_BATCH_SIZE, rows.size())));
+        }
+    }
+
+    /**
+     * 事务回滚时丢弃缓存
+     */
+    private void evictOnRollback(List<Long> instanceIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    instanceIds.forEach(variableCache::remove);
+                }
+            }
+        });
+    }
+
+    /**
+     * 从变量表加载（实例已归档时读归档表），历史数据没有变量记录时回退到解析实例表单数据
+     */
+    private Map<String, Object> loadVariables(Long instanceId) {
+        List<WorkflowVariable> rows = workflowVariableMapper.selectList(
+            new LambdaQueryWrapper<WorkflowVariable>()
+                .eq(WorkflowVariable::getInstanceId, instanceId)
+        );
+        WorkflowInstance instance = null;
+        if (rows.isEmpty()) {
+            instance = workflowInstanceMapper.selectById(instanceId);
+            if (instance == null) {
+                rows = workflowArchiveMapper.selectVariables(instanceId);
+                instance = workflowArchiveMapper.selectInstance(instanceId);
+            }
+        }
+        if (!rows.isEmpty()) {
+            Map<String, Object> variables = new LinkedHashMap<>(rows.size() * 2);
+            for (WorkflowVariable row : rows) {
+                variables.put(row.getVarKey(), decode(row));
+            }
+            return variables;
+        }
+
+        return instance != null ? parseFormData(instanceId, instance.getFormData()) : new LinkedHashMap<>();
+    }
+
+    private Map<String, Object> parseFormData(Long instanceId, String formData) {
+        if (!StringUtils.hasText(formData)) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            Map<String, Object> variables = objectMapper.readValue(formData,
+                new TypeReference<LinkedHashMap<String, Object>>() {});
+            return variables != null ? variables : new LinkedHashMap<>();
+        } catch (Exception e) {
+            log.error("解析表单数据失败: instanceId={}", instanceId, e);
+            return new LinkedHashMap<>();
+        }
+    }
+
+    private void encode(WorkflowVariable variable, Object value) {
+        if (value == null) {
+            variable.setVarType(VariableType.NULL.name());
+        } else if (value instanceof Number) {
+            variable.setVarType(VariableType.NUMBER.name());
+            variable.setVarValue(value.toString());
+        } else if (value instanceof Boolean) {
+            variable.setVarType(VariableType.BOOLEAN.name());
+            variable.setVarValue(value.toString());
+        } else if (value instanceof String) {
+            variable.setVarType(VariableType.STRING.name());
+            variable.setVarValue((String) value);
+        } else {
+            variable.setVarType(VariableType.JSON.name());
+            try {
+                variable.setVarValue(objectMapper.writeValueAsString(value));
+            } catch (Exception e) {
+                throw new RuntimeException("流程变量序列化失败: " + variable.getVarKey(), e);
+            }
+        }
+    }
+
+    private Object decode(WorkflowVariable variable) {
+        String value = variable.getVarValue();
+        String type = variable.getVarType();
+        if (value == null || VariableType.NULL.name().equals(type)) {
+            return null;
+        }
+        try {
+            if (VariableType.NUMBER.name().equals(type)) {
+                if (value.indexOf('.') >= 0 || value.indexOf('e') >= 0 || value.indexOf('E') >= 0) {
+                    return Double.parseDouble(value);
+                }
+                return Long.parseLong(value);
+            }
+            if (VariableType.BOOLEAN.name().equals(type)) {
+                return Boolean.parseBoolean(value);
+            }
+            if (VariableType.JSON.name().equals(type)) {
+                return objectMapper.readValue(value, Object.class);
+            }
+        } catch (Exception e) {
+            log.warn("流程变量解析失败，按字符串处理: instanceId={}, key={}", variable.getInstanceId(), variable.getVarKey());
+        }
+        return value;
+    }
+
+    private ConditionExpression compilePath(String path) {
+        ConditionExpression compiled = pathCache.get(path);
+        if (compiled == null) {
+            compiled = ConditionExpression.compile(path);
+            if (pathCache.size() < MAX_CACHED_PATHS) {
+                pathCache.put(path, compiled);
+            }
+        }
+        return compiled;
+    }
+}
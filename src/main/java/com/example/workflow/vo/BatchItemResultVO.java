@@ -0,0 +1,52 @@
+package com.example.workflow.vo;
+
+import lombok.Data;
+
+/**
+ * 批量操作单条结果VO
+ */
+@Data
+public class BatchItemResultVO {
+
+    /**
+     * 在请求中的序号（从0开始）
+     */
+    private Integer index;
+
+    /**
+     * 操作对象ID（批量发起时为新建的实例ID，批量审批时为任务ID）
+     */
+    private Long id;
+
+    /**
+     * 实例编号
+     */
+    private String instanceNo;
+
+    /**
+     * 是否成功
+     */
+    private Boolean success;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    public static BatchItemResultVO success(int index, Long id, String instanceNo) {
+        BatchItemResultVO result = new BatchItemResultVO();
+        result.setIndex(index);
+        result.setId(id);
+        result.setInstanceNo(instanceNo);
+        result.setSuccess(true);
+        return result;
+    }
+
+    public static BatchItemResultVO failure(int index, String message) {
+        BatchItemResultVO result = new BatchItemResultVO();
+        result.setIndex(index);
+        result.setSuccess(false);
+        result.setMessage(message);
+        return result;
+    }
+}
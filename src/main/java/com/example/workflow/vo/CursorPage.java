@@ -0,0 +1,102 @@
+package com.example.workflow.vo;
+
+import com.example.workflow.dto.PageCursor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果
+ * 按（时间, ID）倒序定位，任意一页的查询代价与第一页相同；总数只在请求时统计
+ */
+@Data
+public class CursorPage<T> {
+
+    /**
+     * 每页最大数量
+     */
+    public static final int MAX_SIZE = 200;
+
+    /**
+     * 当前页数据
+     */
+    private List<T> records;
+
+    /**
+     * 每页数量
+     */
+    private Integer size;
+
+    /**
+     * 是否还有下一页
+     */
+    private Boolean hasMore;
+
+    /**
+     * 下一页游标，没有下一页时为空
+     */
+    private String nextCursor;
+
+    /**
+     * 总数，仅在withTotal=true时返回
+     */
+    private Long total;
+
+    /**
+     * 规范化每页数量
+     */
+    public static int normalizeSize(Integer size) {
+        if (size == null || size < 1) {
+            return 10;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * 由多查一条的结果构建分页：超出size的那一条只用于判断是否还有下一页
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, PageCursor> cursorOf,
+                                          Function<E, T> converter, Long total) {
+        boolean hasMore = rows.size() > size;
+        List<E> pageRows = hasMore ? rows.subList(0, size) : rows;
+
+        List<T> records = new ArrayList<>(pageRows.size());
+        for (E row : pageRows) {
+            records.add(converter.apply(row));
+        }
+
+        CursorPage<T> page = new CursorPage<>();
+        page.setRecords(records);
+        page.setSize(size);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            page.setNextCursor(cursorOf.apply(pageRows.get(pageRows.size() - 1)).encode());
+        }
+        page.setTotal(total);
+        return page;
+    }
+
+    /**
+     * 合并两个按同一顺序排好的结果（原表和归档表），取前limit条
+     * 两张表的主键不重复，分别按游标条件多取一条后合并，仍可用合并结果判断是否还有下一页
+     */
+    public static <E> List<E> merge(List<E> first, List<E> second, Comparator<? super E> order, int limit) {
+        if (second.isEmpty()) {
+            return first.size() > limit ? first.subList(0, limit) : first;
+        }
+        List<E> merged = new ArrayList<>(Math.min(limit, first.size() + second.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < first.size() || j < second.size())) {
+            if (j >= second.size() || (i < first.size() && order.compare(first.get(i), second.get(j)) <= 0)) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
+}
@@ -47,6 +47,11 @@ public class InstanceGraphVO {
      */
     private Long currentNodeId;
 
+    /**
+     * 活动节点ID列表（存在待办任务的节点，并行分支时有多个）
+     */
+    private List<Long> activeNodeIds;
+
     /**
      * 已完成节点ID列表
      */
@@ -46,6 +46,11 @@ public class InstanceVO {
      */
     private LocalDateTime endTime;
 
+    /**
+     * 流程耗时（毫秒），流程结束后才有值
+     */
+    private Long duration;
+
     /**
      * 优先级：0-普通，1-紧急，2-特急
      */
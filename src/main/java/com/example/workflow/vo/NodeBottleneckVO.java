@@ -0,0 +1,60 @@
+package com.example.workflow.vo;
+
+import lombok.Data;
+
+/**
+ * 节点瓶颈VO
+ * 耗时均为毫秒，统计自应用启动以来完成的任务和节点
+ */
+@Data
+public class NodeBottleneckVO {
+
+    /**
+     * 工作流ID
+     */
+    private Long workflowId;
+
+    /**
+     * 节点ID
+     */
+    private Long nodeId;
+
+    /**
+     * 节点名称
+     */
+    private String nodeName;
+
+    // ========== 节点停留时间（节点激活到流转离开） ==========
+
+    /**
+     * 流转离开的次数
+     */
+    private Long nodeCount;
+
+    private Long nodeMean;
+
+    private Long nodeP50;
+
+    private Long nodeP95;
+
+    private Long nodeP99;
+
+    private Long nodeMax;
+
+    // ========== 单个审批人处理时间（任务创建到完成） ==========
+
+    /**
+     * 完成的任务数
+     */
+    private Long taskCount;
+
+    private Long taskMean;
+
+    private Long taskP50;
+
+    private Long taskP95;
+
+    private Long taskP99;
+
+    private Long taskMax;
+}
@@ -0,0 +1,48 @@
+package com.example.workflow.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 推送事件VO
+ * 只携带定位信息，前端收到后按需刷新待办或抄送列表
+ */
+@Data
+public class WorkflowEventVO {
+
+    /**
+     * 事件类型：TASK_CREATED、TASK_COMPLETED、CC_CREATED
+     */
+    private String type;
+
+    /**
+     * 任务ID或抄送ID
+     */
+    private Long id;
+
+    /**
+     * 流程实例ID
+     */
+    private Long instanceId;
+
+    /**
+     * 实例编号
+     */
+    private String instanceNo;
+
+    /**
+     * 节点名称
+     */
+    private String nodeName;
+
+    /**
+     * 任务状态（TASK_COMPLETED时为APPROVED、REJECTED、TRANSFERRED或CANCELED）
+     */
+    private String status;
+
+    /**
+     * 事件时间
+     */
+    private LocalDateTime time;
+}
@@ -374,6 +374,12 @@ INSERT INTO workflow_variable (instance_id, var_key, var_value, var_type) VALUES
 (9, 'supplier', '科技公司', 'STRING'),
 (9, 'conditionResult', '>=10000', 'STRING');
 
+-- 43. 由待办任务生成待办收件箱
+INSERT INTO workflow_inbox (task_id, assignee_id, instance_id, instance_no, workflow_name, node_name, title, start_user_name, priority, create_time)
+SELECT t.id, t.assignee_id, t.instance_id, t.instance_no, i.workflow_name, t.node_name, i.title, i.start_user_name, t.priority, t.create_time
+FROM workflow_task t INNER JOIN workflow_instance i ON i.id = t.instance_id
+WHERE t.status = 'PENDING';
+
 -- 提交事务
 COMMIT;
 
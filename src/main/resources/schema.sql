@@ -78,7 +78,7 @@ CREATE TABLE IF NOT EXISTS workflow_definition (
     workflow_name VARCHAR(200) NOT NULL COMMENT '工作流名称',
     workflow_desc VARCHAR(500) COMMENT '工作流描述',
     category VARCHAR(50) COMMENT '分类',
-    version INT DEFAULT 1 COMMENT '版本号',
+    version INT DEFAULT 0 COMMENT '最新发布的版本号，0-尚未发布',
     status TINYINT DEFAULT 1 COMMENT '状态：0-停用，1-启用',
     form_id BIGINT COMMENT '关联表单ID',
     icon VARCHAR(200) COMMENT '图标',
@@ -102,11 +102,12 @@ CREATE TABLE IF NOT EXISTS workflow_node (
     position_x INT COMMENT 'X坐标',
     position_y INT COMMENT 'Y坐标',
     config TEXT COMMENT '节点配置JSON',
+    definition_version INT DEFAULT 0 COMMENT '定义版本：0-草稿，大于0-发布时生成的不可变快照',
     create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
 );
 
-CREATE INDEX IF NOT EXISTS idx_workflow_id ON workflow_node(workflow_id);
+CREATE INDEX IF NOT EXISTS idx_workflow_id ON workflow_node(workflow_id, definition_version);
 
 -- 3. 工作流连线定义表
 CREATE TABLE IF NOT EXISTS workflow_edge (
@@ -116,10 +117,11 @@ CREATE TABLE IF NOT EXISTS workflow_edge (
     target_node_id BIGINT NOT NULL COMMENT '目标节点ID',
     condition_expr TEXT COMMENT '条件表达式',
     priority INT DEFAULT 0 COMMENT '优先级',
+    definition_version INT DEFAULT 0 COMMENT '定义版本：0-草稿，大于0-发布时生成的不可变快照',
     create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'
 );
 
-CREATE INDEX IF NOT EXISTS idx_workflow_edge_id ON workflow_edge(workflow_id);
+CREATE INDEX IF NOT EXISTS idx_workflow_edge_id ON workflow_edge(workflow_id, definition_version);
 CREATE INDEX IF NOT EXISTS idx_source_node ON workflow_edge(source_node_id);
 
 -- 4. 审批人配置表
@@ -155,6 +157,7 @@ CREATE TABLE IF NOT EXISTS workflow_instance (
     id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
     instance_no VARCHAR(100) NOT NULL UNIQUE COMMENT '流程实例编号',
     workflow_id BIGINT NOT NULL COMMENT '工作流定义ID',
+    definition_version INT COMMENT '发起时的流程定义版本，为空表示按草稿配置流转',
     workflow_key VARCHAR(100) NOT NULL COMMENT '工作流标识',
     workflow_name VARCHAR(200) NOT NULL COMMENT '工作流名称',
     form_id BIGINT COMMENT '表单ID',
@@ -169,13 +172,15 @@ CREATE TABLE IF NOT EXISTS workflow_instance (
     business_key VARCHAR(200) COMMENT '业务键',
     title VARCHAR(500) COMMENT '流程标题',
     priority TINYINT DEFAULT 0 COMMENT '优先级：0-普通，1-紧急，2-特急',
+    version INT DEFAULT 0 COMMENT '乐观锁版本号',
     deleted TINYINT DEFAULT 0 COMMENT '删除标记'
 );
 
 CREATE INDEX IF NOT EXISTS idx_workflow_inst_id ON workflow_instance(workflow_id);
-CREATE INDEX IF NOT EXISTS idx_start_user ON workflow_instance(start_user_id);
+CREATE INDEX IF NOT EXISTS idx_start_user ON workflow_instance(start_user_id, start_time, id);
 CREATE INDEX IF NOT EXISTS idx_status ON workflow_instance(status);
 CREATE INDEX IF NOT EXISTS idx_create_time ON workflow_instance(start_time);
+CREATE INDEX IF NOT EXISTS idx_end_time ON workflow_instance(end_time);
 
 -- 7. 工作流任务表
 CREATE TABLE IF NOT EXISTS workflow_task (
@@ -201,6 +206,8 @@ CREATE TABLE IF NOT EXISTS workflow_task (
 CREATE INDEX IF NOT EXISTS idx_instance_id ON workflow_task(instance_id);
 CREATE INDEX IF NOT EXISTS idx_assignee_status ON workflow_task(assignee_id, status);
 CREATE INDEX IF NOT EXISTS idx_task_status ON workflow_task(status);
+CREATE INDEX IF NOT EXISTS idx_task_create_time ON workflow_task(create_time);
+CREATE INDEX IF NOT EXISTS idx_task_status_due ON workflow_task(status, due_time);
 
 -- 8. 工作流历史表
 CREATE TABLE IF NOT EXISTS workflow_history (
@@ -220,6 +227,7 @@ CREATE TABLE IF NOT EXISTS workflow_history (
 
 CREATE INDEX IF NOT EXISTS idx_hist_instance_id ON workflow_history(instance_id);
 CREATE INDEX IF NOT EXISTS idx_task_id ON workflow_history(task_id);
+CREATE INDEX IF NOT EXISTS idx_hist_operate_time ON workflow_history(operate_time);
 
 -- 9. 工作流抄送表
 CREATE TABLE IF NOT EXISTS workflow_cc (
@@ -237,6 +245,7 @@ CREATE TABLE IF NOT EXISTS workflow_cc (
 
 CREATE INDEX IF NOT EXISTS idx_cc_instance_id ON workflow_cc(instance_id);
 CREATE INDEX IF NOT EXISTS idx_cc_user ON workflow_cc(cc_user_id, status);
+CREATE INDEX IF NOT EXISTS idx_cc_user_time ON workflow_cc(cc_user_id, create_time, id);
 
 -- 10. 工作流变量表
 CREATE TABLE IF NOT EXISTS workflow_variable (
@@ -251,6 +260,165 @@ CREATE TABLE IF NOT EXISTS workflow_variable (
 
 CREATE UNIQUE INDEX IF NOT EXISTS uk_instance_key ON workflow_variable(instance_id, var_key);
 
+-- 11. 流程令牌表（并行网关）
+CREATE TABLE IF NOT EXISTS workflow_token (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    instance_id BIGINT NOT NULL COMMENT '流程实例ID',
+    node_id BIGINT NOT NULL COMMENT '令牌所在节点ID',
+    parent_id BIGINT COMMENT '父令牌ID',
+    status VARCHAR(20) NOT NULL COMMENT '状态：ACTIVE-活动，WAITING-等待汇聚，JOINED-已汇聚，COMPLETED-已完成，CANCELED-已取消',
+    active_children INT DEFAULT 0 COMMENT '未汇聚的子令牌数量',
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+);
+
+CREATE INDEX IF NOT EXISTS idx_token_instance_node ON workflow_token(instance_id, node_id, status);
+
+-- 12. 待办收件箱表（待办任务列表的读模型，只保存待处理任务）
+CREATE TABLE IF NOT EXISTS workflow_inbox (
+    task_id BIGINT PRIMARY KEY COMMENT '任务ID',
+    assignee_id VARCHAR(64) COMMENT '处理人ID',
+    instance_id BIGINT NOT NULL COMMENT '流程实例ID',
+    instance_no VARCHAR(100) NOT NULL COMMENT '流程实例编号',
+    workflow_name VARCHAR(200) COMMENT '工作流名称',
+    node_name VARCHAR(200) COMMENT '节点名称',
+    title VARCHAR(500) COMMENT '流程标题',
+    start_user_name VARCHAR(100) COMMENT '发起人姓名',
+    priority TINYINT DEFAULT 0 COMMENT '优先级',
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '任务创建时间'
+);
+
+CREATE INDEX IF NOT EXISTS idx_inbox_assignee_time ON workflow_inbox(assignee_id, create_time, task_id);
+CREATE INDEX IF NOT EXISTS idx_inbox_instance ON workflow_inbox(instance_id);
+
+-- 13. 工作流统计快照表
+CREATE TABLE IF NOT EXISTS workflow_statistics (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    scope_type VARCHAR(20) NOT NULL COMMENT '统计范围：GLOBAL-全局，USER-用户，WORKFLOW-工作流',
+    scope_key VARCHAR(64) NOT NULL COMMENT '范围标识：用户ID或工作流ID，全局为*',
+    pending_task_count BIGINT DEFAULT 0 COMMENT '待办任务数',
+    completed_task_count BIGINT DEFAULT 0 COMMENT '已完成任务数',
+    started_instance_count BIGINT DEFAULT 0 COMMENT '发起的流程数',
+    total_instance_count BIGINT DEFAULT 0 COMMENT '总流程数',
+    running_instance_count BIGINT DEFAULT 0 COMMENT '运行中的流程数',
+    approved_instance_count BIGINT DEFAULT 0 COMMENT '已通过的流程数',
+    rejected_instance_count BIGINT DEFAULT 0 COMMENT '已拒绝的流程数',
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '快照时间'
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_statistics_scope ON workflow_statistics(scope_type, scope_key);
+
+-- 14. 归档表（已结束超过保留天数的流程实例及其任务、历史、抄送、变量，结构与原表相同）
+CREATE TABLE IF NOT EXISTS workflow_instance_archive (
+    id BIGINT PRIMARY KEY COMMENT '主键ID',
+    instance_no VARCHAR(100) NOT NULL COMMENT '流程实例编号',
+    workflow_id BIGINT NOT NULL COMMENT '工作流定义ID',
+    definition_version INT COMMENT '发起时的流程定义版本，为空表示按草稿配置流转',
+    workflow_key VARCHAR(100) NOT NULL COMMENT '工作流标识',
+    workflow_name VARCHAR(200) NOT NULL COMMENT '工作流名称',
+    form_id BIGINT COMMENT '表单ID',
+    form_data TEXT COMMENT '表单数据JSON',
+    status VARCHAR(20) NOT NULL COMMENT '状态',
+    current_node_id BIGINT COMMENT '当前节点ID',
+    start_user_id VARCHAR(64) NOT NULL COMMENT '发起人ID',
+    start_user_name VARCHAR(100) COMMENT '发起人姓名',
+    start_time TIMESTAMP COMMENT '发起时间',
+    end_time TIMESTAMP COMMENT '结束时间',
+    duration BIGINT COMMENT '耗时（毫秒）',
+    business_key VARCHAR(200) COMMENT '业务键',
+    title VARCHAR(500) COMMENT '流程标题',
+    priority TINYINT DEFAULT 0 COMMENT '优先级',
+    version INT DEFAULT 0 COMMENT '乐观锁版本号',
+    deleted TINYINT DEFAULT 0 COMMENT '删除标记',
+    archive_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间'
+);
+
+CREATE INDEX IF NOT EXISTS idx_arch_instance_no ON workflow_instance_archive(instance_no);
+CREATE INDEX IF NOT EXISTS idx_arch_start_user ON workflow_instance_archive(start_user_id, start_time, id);
+
+CREATE TABLE IF NOT EXISTS workflow_task_archive (
+    id BIGINT PRIMARY KEY COMMENT '主键ID',
+    instance_id BIGINT NOT NULL COMMENT '流程实例ID',
+    instance_no VARCHAR(100) NOT NULL COMMENT '流程实例编号',
+    node_id BIGINT NOT NULL COMMENT '节点ID',
+    node_key VARCHAR(100) NOT NULL COMMENT '节点标识',
+    node_name VARCHAR(200) NOT NULL COMMENT '节点名称',
+    node_type VARCHAR(50) NOT NULL COMMENT '节点类型',
+    assignee_id VARCHAR(64) COMMENT '审批人ID',
+    assignee_name VARCHAR(100) COMMENT '审批人姓名',
+    status VARCHAR(20) NOT NULL COMMENT '状态',
+    comment TEXT COMMENT '审批意见',
+    attachments TEXT COMMENT '附件JSON',
+    create_time TIMESTAMP COMMENT '创建时间',
+    claim_time TIMESTAMP COMMENT '签收时间',
+    complete_time TIMESTAMP COMMENT '完成时间',
+    due_time TIMESTAMP COMMENT '截止时间',
+    priority TINYINT DEFAULT 0 COMMENT '优先级'
+);
+
+CREATE INDEX IF NOT EXISTS idx_arch_task_instance ON workflow_task_archive(instance_id);
+
+CREATE TABLE IF NOT EXISTS workflow_history_archive (
+    id BIGINT PRIMARY KEY COMMENT '主键ID',
+    instance_id BIGINT NOT NULL COMMENT '流程实例ID',
+    task_id BIGINT COMMENT '任务ID',
+    node_id BIGINT NOT NULL COMMENT '节点ID',
+    node_name VARCHAR(200) NOT NULL COMMENT '节点名称',
+    action VARCHAR(50) NOT NULL COMMENT '操作',
+    operator_id VARCHAR(64) NOT NULL COMMENT '操作人ID',
+    operator_name VARCHAR(100) NOT NULL COMMENT '操作人姓名',
+    comment TEXT COMMENT '意见',
+    attachments TEXT COMMENT '附件',
+    duration BIGINT COMMENT '处理耗时（毫秒）',
+    operate_time TIMESTAMP COMMENT '操作时间'
+);
+
+CREATE INDEX IF NOT EXISTS idx_arch_hist_instance ON workflow_history_archive(instance_id);
+
+CREATE TABLE IF NOT EXISTS workflow_cc_archive (
+    id BIGINT PRIMARY KEY COMMENT '主键ID',
+    instance_id BIGINT NOT NULL COMMENT '流程实例ID',
+    instance_no VARCHAR(100) NOT NULL COMMENT '流程实例编号',
+    node_id BIGINT NOT NULL COMMENT '节点ID',
+    node_name VARCHAR(200) NOT NULL COMMENT '节点名称',
+    cc_user_id VARCHAR(64) NOT NULL COMMENT '抄送人ID',
+    cc_user_name VARCHAR(100) NOT NULL COMMENT '抄送人姓名',
+    status TINYINT DEFAULT 0 COMMENT '状态：0-未读，1-已读',
+    read_time TIMESTAMP COMMENT '阅读时间',
+    create_time TIMESTAMP COMMENT '创建时间'
+);
+
+CREATE INDEX IF NOT EXISTS idx_arch_cc_instance ON workflow_cc_archive(instance_id);
+CREATE INDEX IF NOT EXISTS idx_arch_cc_user_time ON workflow_cc_archive(cc_user_id, create_time, id);
+
+CREATE TABLE IF NOT EXISTS workflow_variable_archive (
+    id BIGINT PRIMARY KEY COMMENT '主键ID',
+    instance_id BIGINT NOT NULL COMMENT '流程实例ID',
+    var_key VARCHAR(100) NOT NULL COMMENT '变量键',
+    var_value TEXT COMMENT '变量值',
+    var_type VARCHAR(50) COMMENT '变量类型',
+    create_time TIMESTAMP COMMENT '创建时间',
+    update_time TIMESTAMP COMMENT '更新时间'
+);
+
+CREATE INDEX IF NOT EXISTS idx_arch_var_instance ON workflow_variable_archive(instance_id);
+
+-- 15. 主键号段表（hi/lo分配，每张表一行）
+CREATE TABLE IF NOT EXISTS workflow_sequence (
+    seq_name VARCHAR(64) PRIMARY KEY COMMENT '号段名（表名）',
+    next_value BIGINT NOT NULL COMMENT '下一个未分配的值',
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间'
+);
+
+-- 16. 流程定义编译产物表（发布时生成，每个版本快照一行，引擎冷启动时一次读取整个流程图）
+CREATE TABLE IF NOT EXISTS workflow_definition_artifact (
+    workflow_id BIGINT NOT NULL COMMENT '工作流定义ID',
+    definition_version INT NOT NULL COMMENT '定义版本',
+    data BLOB NOT NULL COMMENT '编译后的流程图（二进制）',
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (workflow_id, definition_version)
+);
+
 -- ====================================
 -- 流程模板管理数据库表结构
 -- ====================================
@@ -9,7 +9,7 @@ CREATE TABLE `workflow_definition` (
     `workflow_name` VARCHAR(200) NOT NULL COMMENT '工作流名称',
     `workflow_desc` VARCHAR(500) COMMENT '工作流描述',
     `category` VARCHAR(50) COMMENT '分类',
-    `version` INT DEFAULT 1 COMMENT '版本号',
+    `version` INT DEFAULT 0 COMMENT '最新发布的版本号，0-尚未发布',
     `status` TINYINT DEFAULT 1 COMMENT '状态：0-停用，1-启用',
     `form_id` BIGINT COMMENT '关联表单ID',
     `icon` VARCHAR(200) COMMENT '图标',
@@ -32,9 +32,10 @@ CREATE TABLE `workflow_node` (
     `position_x` INT COMMENT 'X坐标',
     `position_y` INT COMMENT 'Y坐标',
     `config` TEXT COMMENT '节点配置JSON',
+    `definition_version` INT DEFAULT 0 COMMENT '定义版本：0-草稿，大于0-发布时生成的不可变快照',
     `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    INDEX `idx_workflow_id` (`workflow_id`)
+    INDEX `idx_workflow_id` (`workflow_id`, `definition_version`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流节点定义表';
 
 -- 3. 工作流连线定义表
@@ -45,8 +46,9 @@ CREATE TABLE `workflow_edge` (
     `target_node_id` BIGINT NOT NULL COMMENT '目标节点ID',
     `condition_expr` TEXT COMMENT '条件表达式',
     `priority` INT DEFAULT 0 COMMENT '优先级',
+    `definition_version` INT DEFAULT 0 COMMENT '定义版本：0-草稿，大于0-发布时生成的不可变快照',
     `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-    INDEX `idx_workflow_id` (`workflow_id`),
+    INDEX `idx_workflow_id` (`workflow_id`, `definition_version`),
     INDEX `idx_source_node` (`source_node_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流连线定义表';
 
@@ -82,6 +84,7 @@ CREATE TABLE `workflow_instance` (
     `id` BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
     `instance_no` VARCHAR(100) NOT NULL UNIQUE COMMENT '流程实例编号',
     `workflow_id` BIGINT NOT NULL COMMENT '工作流定义ID',
+    `definition_version` INT COMMENT '发起时的流程定义版本，为空表示按草稿配置流转',
     `workflow_key` VARCHAR(100) NOT NULL COMMENT '工作流标识',
     `workflow_name` VARCHAR(200) NOT NULL COMMENT '工作流名称',
     `form_id` BIGINT COMMENT '表单ID',
@@ -96,11 +99,13 @@ CREATE TABLE `workflow_instance` (
     `business_key` VARCHAR(200) COMMENT '业务键',
     `title` VARCHAR(500) COMMENT '流程标题',
     `priority` TINYINT DEFAULT 0 COMMENT '优先级：0-普通，1-紧急，2-特急',
+    `version` INT DEFAULT 0 COMMENT '乐观锁版本号',
     `deleted` TINYINT DEFAULT 0 COMMENT '删除标记',
     INDEX `idx_workflow_id` (`workflow_id`),
-    INDEX `idx_start_user` (`start_user_id`),
+    INDEX `idx_start_user` (`start_user_id`, `start_time`, `id`),
     INDEX `idx_status` (`status`),
-    INDEX `idx_create_time` (`start_time`)
+    INDEX `idx_create_time` (`start_time`),
+    INDEX `idx_end_time` (`end_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流实例表';
 
 -- 7. 工作流任务表
@@ -124,7 +129,9 @@ CREATE TABLE `workflow_task` (
     `priority` TINYINT DEFAULT 0 COMMENT '优先级',
     INDEX `idx_instance_id` (`instance_id`),
     INDEX `idx_assignee` (`assignee_id`, `status`),
-    INDEX `idx_status` (`status`)
+    INDEX `idx_status` (`status`),
+    INDEX `idx_create_time` (`create_time`),
+    INDEX `idx_status_due` (`status`, `due_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流任务表';
 
 -- 8. 工作流历史表
@@ -142,7 +149,8 @@ CREATE TABLE `workflow_history` (
     `duration` BIGINT COMMENT '处理耗时（毫秒）',
     `operate_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '操作时间',
     INDEX `idx_instance_id` (`instance_id`),
-    INDEX `idx_task_id` (`task_id`)
+    INDEX `idx_task_id` (`task_id`),
+    INDEX `idx_operate_time` (`operate_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流历史表';
 
 -- 9. 工作流抄送表
@@ -158,7 +166,8 @@ CREATE TABLE `workflow_cc` (
     `read_time` DATETIME COMMENT '阅读时间',
     `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     INDEX `idx_instance_id` (`instance_id`),
-    INDEX `idx_cc_user` (`cc_user_id`, `status`)
+    INDEX `idx_cc_user` (`cc_user_id`, `status`),
+    INDEX `idx_cc_user_time` (`cc_user_id`, `create_time`, `id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流抄送表';
 
 -- 10. 工作流变量表（用于存储流程变量）
@@ -172,3 +181,154 @@ CREATE TABLE `workflow_variable` (
     `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     UNIQUE KEY `uk_instance_key` (`instance_id`, `var_key`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流变量表';
+
+-- 11. 流程令牌表（并行网关）
+CREATE TABLE `workflow_token` (
+    `id` BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    `instance_id` BIGINT NOT NULL COMMENT '流程实例ID',
+    `node_id` BIGINT NOT NULL COMMENT '令牌所在节点ID',
+    `parent_id` BIGINT COMMENT '父令牌ID',
+    `status` VARCHAR(20) NOT NULL COMMENT '状态：ACTIVE-活动，WAITING-等待汇聚，JOINED-已汇聚，COMPLETED-已完成，CANCELED-已取消',
+    `active_children` INT DEFAULT 0 COMMENT '未汇聚的子令牌数量',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX `idx_token_instance_node` (`instance_id`, `node_id`, `status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='流程令牌表';
+
+-- 12. 待办收件箱表（待办任务列表的读模型，只保存待处理任务）
+CREATE TABLE `workflow_inbox` (
+    `task_id` BIGINT PRIMARY KEY COMMENT '任务ID',
+    `assignee_id` VARCHAR(64) COMMENT '处理人ID',
+    `instance_id` BIGINT NOT NULL COMMENT '流程实例ID',
+    `instance_no` VARCHAR(100) NOT NULL COMMENT '流程实例编号',
+    `workflow_name` VARCHAR(200) COMMENT '工作流名称',
+    `node_name` VARCHAR(200) COMMENT '节点名称',
+    `title` VARCHAR(500) COMMENT '流程标题',
+    `start_user_name` VARCHAR(100) COMMENT '发起人姓名',
+    `priority` TINYINT DEFAULT 0 COMMENT '优先级',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '任务创建时间',
+    INDEX `idx_inbox_assignee_time` (`assignee_id`, `create_time`, `task_id`),
+    INDEX `idx_inbox_instance` (`instance_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='待办收件箱表';
+
+-- 13. 工作流统计快照表
+CREATE TABLE `workflow_statistics` (
+    `id` BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    `scope_type` VARCHAR(20) NOT NULL COMMENT '统计范围：GLOBAL-全局，USER-用户，WORKFLOW-工作流',
+    `scope_key` VARCHAR(64) NOT NULL COMMENT '范围标识：用户ID或工作流ID，全局为*',
+    `pending_task_count` BIGINT DEFAULT 0 COMMENT '待办任务数',
+    `completed_task_count` BIGINT DEFAULT 0 COMMENT '已完成任务数',
+    `started_instance_count` BIGINT DEFAULT 0 COMMENT '发起的流程数',
+    `total_instance_count` BIGINT DEFAULT 0 COMMENT '总流程数',
+    `running_instance_count` BIGINT DEFAULT 0 COMMENT '运行中的流程数',
+    `approved_instance_count` BIGINT DEFAULT 0 COMMENT '已通过的流程数',
+    `rejected_instance_count` BIGINT DEFAULT 0 COMMENT '已拒绝的流程数',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '快照时间',
+    UNIQUE KEY `uk_statistics_scope` (`scope_type`, `scope_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流统计快照表';
+
+-- 14. 归档表（已结束超过保留天数的流程实例及其任务、历史、抄送、变量，结构与原表相同）
+CREATE TABLE `workflow_instance_archive` (
+    `id` BIGINT PRIMARY KEY COMMENT '主键ID',
+    `instance_no` VARCHAR(100) NOT NULL COMMENT '流程实例编号',
+    `workflow_id` BIGINT NOT NULL COMMENT '工作流定义ID',
+    `definition_version` INT COMMENT '发起时的流程定义版本，为空表示按草稿配置流转',
+    `workflow_key` VARCHAR(100) NOT NULL COMMENT '工作流标识',
+    `workflow_name` VARCHAR(200) NOT NULL COMMENT '工作流名称',
+    `form_id` BIGINT COMMENT '表单ID',
+    `form_data` TEXT COMMENT '表单数据JSON',
+    `status` VARCHAR(20) NOT NULL COMMENT '状态',
+    `current_node_id` BIGINT COMMENT '当前节点ID',
+    `start_user_id` VARCHAR(64) NOT NULL COMMENT '发起人ID',
+    `start_user_name` VARCHAR(100) COMMENT '发起人姓名',
+    `start_time` DATETIME COMMENT '发起时间',
+    `end_time` DATETIME COMMENT '结束时间',
+    `duration` BIGINT COMMENT '耗时（毫秒）',
+    `business_key` VARCHAR(200) COMMENT '业务键',
+    `title` VARCHAR(500) COMMENT '流程标题',
+    `priority` TINYINT DEFAULT 0 COMMENT '优先级',
+    `version` INT DEFAULT 0 COMMENT '乐观锁版本号',
+    `deleted` TINYINT DEFAULT 0 COMMENT '删除标记',
+    `archive_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+    INDEX `idx_instance_no` (`instance_no`),
+    INDEX `idx_start_user` (`start_user_id`, `start_time`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流实例归档表';
+
+CREATE TABLE `workflow_task_archive` (
+    `id` BIGINT PRIMARY KEY COMMENT '主键ID',
+    `instance_id` BIGINT NOT NULL COMMENT '流程实例ID',
+    `instance_no` VARCHAR(100) NOT NULL COMMENT '流程实例编号',
+    `node_id` BIGINT NOT NULL COMMENT '节点ID',
+    `node_key` VARCHAR(100) NOT NULL COMMENT '节点标识',
+    `node_name` VARCHAR(200) NOT NULL COMMENT '节点名称',
+    `node_type` VARCHAR(50) NOT NULL COMMENT '节点类型',
+    `assignee_id` VARCHAR(64) COMMENT '审批人ID',
+    `assignee_name` VARCHAR(100) COMMENT '审批人姓名',
+    `status` VARCHAR(20) NOT NULL COMMENT '状态',
+    `comment` TEXT COMMENT '审批意见',
+    `attachments` TEXT COMMENT '附件JSON',
+    `create_time` DATETIME COMMENT '创建时间',
+    `claim_time` DATETIME COMMENT '签收时间',
+    `complete_time` DATETIME COMMENT '完成时间',
+    `due_time` DATETIME COMMENT '截止时间',
+    `priority` TINYINT DEFAULT 0 COMMENT '优先级',
+    INDEX `idx_task_instance` (`instance_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流任务归档表';
+
+CREATE TABLE `workflow_history_archive` (
+    `id` BIGINT PRIMARY KEY COMMENT '主键ID',
+    `instance_id` BIGINT NOT NULL COMMENT '流程实例ID',
+    `task_id` BIGINT COMMENT '任务ID',
+    `node_id` BIGINT NOT NULL COMMENT '节点ID',
+    `node_name` VARCHAR(200) NOT NULL COMMENT '节点名称',
+    `action` VARCHAR(50) NOT NULL COMMENT '操作',
+    `operator_id` VARCHAR(64) NOT NULL COMMENT '操作人ID',
+    `operator_name` VARCHAR(100) NOT NULL COMMENT '操作人姓名',
+    `comment` TEXT COMMENT '意见',
+    `attachments` TEXT COMMENT '附件',
+    `duration` BIGINT COMMENT '处理耗时（毫秒）',
+    `operate_time` DATETIME COMMENT '操作时间',
+    INDEX `idx_hist_instance` (`instance_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流历史归档表';
+
+CREATE TABLE `workflow_cc_archive` (
+    `id` BIGINT PRIMARY KEY COMMENT '主键ID',
+    `instance_id` BIGINT NOT NULL COMMENT '流程实例ID',
+    `instance_no` VARCHAR(100) NOT NULL COMMENT '流程实例编号',
+    `node_id` BIGINT NOT NULL COMMENT '节点ID',
+    `node_name` VARCHAR(200) NOT NULL COMMENT '节点名称',
+    `cc_user_id` VARCHAR(64) NOT NULL COMMENT '抄送人ID',
+    `cc_user_name` VARCHAR(100) NOT NULL COMMENT '抄送人姓名',
+    `status` TINYINT DEFAULT 0 COMMENT '状态：0-未读，1-已读',
+    `read_time` DATETIME COMMENT '阅读时间',
+    `create_time` DATETIME COMMENT '创建时间',
+    INDEX `idx_cc_instance` (`instance_id`),
+    INDEX `idx_cc_user_time` (`cc_user_id`, `create_time`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流抄送归档表';
+
+CREATE TABLE `workflow_variable_archive` (
+    `id` BIGINT PRIMARY KEY COMMENT '主键ID',
+    `instance_id` BIGINT NOT NULL COMMENT '流程实例ID',
+    `var_key` VARCHAR(100) NOT NULL COMMENT '变量键',
+    `var_value` TEXT COMMENT '变量值',
+    `var_type` VARCHAR(50) COMMENT '变量类型',
+    `create_time` DATETIME COMMENT '创建时间',
+    `update_time` DATETIME COMMENT '更新时间',
+    INDEX `idx_var_instance` (`instance_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='工作流变量归档表';
+
+-- 15. 主键号段表（hi/lo分配，每张表一行）
+CREATE TABLE `workflow_sequence` (
+    `seq_name` VARCHAR(64) PRIMARY KEY COMMENT '号段名（表名）',
+    `next_value` BIGINT NOT NULL COMMENT '下一个未分配的值',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='主键号段表';
+
+-- 16. 流程定义编译产物表（发布时生成，每个版本快照一行，引擎冷启动时一次读取整个流程图）
+CREATE TABLE `workflow_definition_artifact` (
+    `workflow_id` BIGINT NOT NULL COMMENT '工作流定义ID',
+    `definition_version` INT NOT NULL COMMENT '定义版本',
+    `data` MEDIUMBLOB NOT NULL COMMENT '编译后的流程图（二进制）',
+    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`workflow_id`, `definition_version`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='流程定义编译产物表';
@@ -0,0 +1,161 @@
+package com.example.workflow.engine;
+
+import com.example.workflow.dto.enums.TimeoutAction;
+import com.example.workflow.entity.WorkflowApprover;
+import com.example.workflow.entity.WorkflowEdge;
+import com.example.workflow.entity.WorkflowNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流程图编译产物编解码测试
+ * 解码失败必须抛出RuntimeException，流程图缓存据此回退为按表构建
+ */
+class ProcessGraphCodecTest {
+
+    private static final long START = 1L;
+    private static final long CONDITION = 2L;
+    private static final long LONG_TRIP = 3L;
+    private static final long SHORT_TRIP = 4L;
+    private static final long END = 5L;
+
+    @Test
+    void roundtripKeepsNodesEdgesApproversAndTimeouts() {
+        ProcessGraph graph = tripGraph();
+        ProcessGraph decoded = ProcessGraphCodec.decode(1L, 42L, ProcessGraphCodec.encode(graph));
+
+        assertEquals(42L, decoded.getVersion());
+        assertEquals(graph.getNodeCount(), decoded.getNodeCount());
+        assertEquals(START, decoded.getStartNode().getId());
+        for (int i = 0; i < graph.getNodeCount(); i++) {
+            ProcessGraph.Node expected = graph.getNode(i);
+            ProcessGraph.Node actual = decoded.getNode(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getNodeKey(), actual.getNodeKey());
+            assertEquals(expected.getNodeName(), actual.getNodeName());
+            assertEquals(expected.getNodeType(), actual.getNodeType());
+            assertEquals(expected.getConfig(), actual.getConfig());
+            assertEquals(expected.getApproveMode(), actual.getApproveMode());
+
+            assertEquals(expected.getApprovers().size(), actual.getApprovers().size());
+            for (int j = 0; j < expected.getApprovers().size(); j++) {
+                ProcessGraph.Approver a = expected.getApprovers().get(j);
+                ProcessGraph.Approver b = actual.getApprovers().get(j);
+                assertEquals(a.getApproverType(), b.getApproverType());
+                assertEquals(a.getApproverValue(), b.getApproverValue());
+                assertEquals(a.getApproveMode(), b.getApproveMode());
+                assertEquals(a.getNobodyHandler(), b.getNobodyHandler());
+            }
+
+            assertEquals(expected.getOutEdges().size(), actual.getOutEdges().size());
+            for (int j = 0; j < expected.getOutEdges().size(); j++) {
+                ProcessGraph.Edge a = expected.getOutEdges().get(j);
+                ProcessGraph.Edge b = actual.getOutEdges().get(j);
+                assertEquals(a.getId(), b.getId());
+                assertEquals(a.getTargetIndex(), b.getTargetIndex());
+                assertEquals(a.getTargetNodeId(), b.getTargetNodeId());
+                assertEquals(a.getConditionExpr(), b.getConditionExpr());
+                assertEquals(a.getPriority(), b.getPriority());
+            }
+        }
+
+        TimeoutPolicy timeout = decoded.getNode(LONG_TRIP).getTimeout();
+        assertEquals(1440L, timeout.getMinutes());
+        assertEquals(TimeoutAction.ESCALATE, timeout.getAction());
+        assertNull(decoded.getNode(SHORT_TRIP).getTimeout());
+    }
+
+    @Test
+    void decodedGraphRoutesLikeOriginal() {
+        ProcessGraph decoded = ProcessGraphCodec.decode(1L, 1L, ProcessGraphCodec.encode(tripGraph()));
+        ProcessGraph.Node condition = decoded.getNode(CONDITION);
+
+        assertEquals(LONG_TRIP, condition.route(() -> Map.<String, Object>of("days", 10)::get).getTargetNodeId());
+        assertEquals(SHORT_TRIP, condition.route(() -> Map.<String, Object>of("days", 3)::get).getTargetNodeId());
+        decoded.validate();
+    }
+
+    @Test
+    void corruptDataFailsToDecode() {
+        byte[] data = ProcessGraphCodec.encode(tripGraph());
+
+        byte[] badMagic = data.clone();
+        badMagic[0] ^= 0x01;
+        byte[] badFormat = data.clone();
+        badFormat[5] = 99;
+        byte[] truncated = Arrays.copyOf(data, data.length - 7);
+        byte[] garbage = new byte[64];
+        Arrays.fill(garbage, (byte) 0x7f);
+
+        for (byte[] corrupt : List.of(badMagic, badFormat, truncated, garbage, new byte[0])) {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> ProcessGraphCodec.decode(1L, 1L, corrupt));
+            assertTrue(e.getMessage().startsWith("流程图编译产物"), e.getMessage());
+        }
+    }
+
+    // ========== 构造流程图 ==========
+
+    private static ProcessGraph tripGraph() {
+        WorkflowNode longTrip = node(LONG_TRIP, "APPROVE", "总经理审批");
+        longTrip.setConfig("{\"timeout\":{\"minutes\":1440,\"action\":\"ESCALATE\"}}");
+        List<WorkflowNode> nodes = List.of(
+            node(START, "START", "开始"),
+            node(CONDITION, "CONDITION", "出差条件判断"),
+            longTrip,
+            node(SHORT_TRIP, "CC", "人事抄送"),
+            node(END, "END", "结束")
+        );
+        List<WorkflowEdge> edges = List.of(
+            edge(1L, START, CONDITION, null, null),
+            edge(2L, CONDITION, LONG_TRIP, "${days >= 7}", 1),
+            edge(3L, CONDITION, SHORT_TRIP, "${days < 7}", 2),
+            edge(4L, LONG_TRIP, END, null, 0),
+            edge(5L, SHORT_TRIP, END, null, 0)
+        );
+        List<WorkflowApprover> approvers = List.of(
+            approver(LONG_TRIP, "ROLE", "GM", "OR", "ADMIN"),
+            approver(LONG_TRIP, "USER", "zhangsan", "OR", null),
+            approver(SHORT_TRIP, "USER", "hr", null, null)
+        );
+        return ProcessGraph.build(1L, 1L, nodes, edges, approvers);
+    }
+
+    private static WorkflowNode node(long id, String type, String name) {
+        WorkflowNode node = new WorkflowNode();
+        node.setId(id);
+        node.setWorkflowId(1L);
+        node.setNodeKey("node_" + id);
+        node.setNodeName(name);
+        node.setNodeType(type);
+        return node;
+    }
+
+    private static WorkflowEdge edge(long id, long source, long target, String condition, Integer priority) {
+        WorkflowEdge edge = new WorkflowEdge();
+        edge.setId(id);
+        edge.setWorkflowId(1L);
+        edge.setSourceNodeId(source);
+        edge.setTargetNodeId(target);
+        edge.setConditionExpr(condition);
+        edge.setPriority(priority);
+        return edge;
+    }
+
+    private static WorkflowApprover approver(long nodeId, String type, String value, String mode, String nobody) {
+        WorkflowApprover approver = new WorkflowApprover();
+        approver.setNodeId(nodeId);
+        approver.setApproverType(type);
+        approver.setApproverValue(value);
+        approver.setApproveMode(mode);
+        approver.setNobodyHandler(nobody);
+        return approver;
+    }
+}
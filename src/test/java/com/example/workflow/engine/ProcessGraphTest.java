@@ -0,0 +1,228 @@
+package com.example.workflow.engine;
+
+import com.example.workflow.engine.expression.VariableResolver;
+import com.example.workflow.entity.WorkflowEdge;
+import com.example.workflow.entity.WorkflowNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流程图路由测试
+ * 流程结构与示例数据中的出差审批一致：开始 -> 条件判断 -> (7天及以上)总经理审批 / (7天以下)人事抄送 -> 结束
+ */
+class ProcessGraphTest {
+
+    private static final long START = 1L;
+    private static final long CONDITION = 2L;
+    private static final long LONG_TRIP = 3L;
+    private static final long SHORT_TRIP = 4L;
+    private static final long END = 5L;
+
+    @Test
+    void routesByCondition() {
+        ProcessGraph.Node condition = tripGraph("${days >= 7}").getNode(CONDITION);
+
+        assertEquals(LONG_TRIP, condition.route(() -> vars(Map.of("days", 10))).getTargetNodeId());
+        assertEquals(SHORT_TRIP, condition.route(() -> vars(Map.of("days", 3))).getTargetNodeId());
+    }
+
+    @Test
+    void missingVariableIsConfigurationError() {
+        ProcessGraph.Node condition = tripGraph("${days >= 7}").getNode(CONDITION);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> condition.route(() -> VariableResolver.EMPTY));
+        assertTrue(e.getMessage().contains("没有满足条件的分支"), e.getMessage());
+    }
+
+    @Test
+    void nonNumericVariableIsConfigurationError() {
+        ProcessGraph.Node condition = tripGraph("${days >= 7}").getNode(CONDITION);
+
+        assertThrows(RuntimeException.class, () -> condition.route(() -> vars(Map.of("days", "abc"))));
+    }
+
+    @Test
+    void uncompilableConditionNeverMatches() {
+        ProcessGraph.Node condition = tripGraph("${days >=}").getNode(CONDITION);
+
+        // 编译失败的条件视为不满足，另一条分支也不满足时报错而不是结束流程
+        assertThrows(RuntimeException.class, () -> condition.route(() -> vars(Map.of("days", 10))));
+        assertEquals(SHORT_TRIP, condition.route(() -> vars(Map.of("days", 3))).getTargetNodeId());
+    }
+
+    @Test
+    void unconditionalEdgeIsDefaultBranch() {
+        List<WorkflowEdge> edges = tripEdges("${days >= 7}");
+        edges.add(edge(9L, CONDITION, SHORT_TRIP, null, 3));
+        ProcessGraph.Node condition = build(edges).getNode(CONDITION);
+
+        assertEquals(SHORT_TRIP, condition.route(() -> VariableResolver.EMPTY).getTargetNodeId());
+    }
+
+    @Test
+    void validateAcceptsTripFlow() {
+        tripGraph("${days >= 7}").validate();
+    }
+
+    @Test
+    void validateRejectsUncompilableCondition() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> tripGraph("${days >=}").validate());
+        assertTrue(e.getMessage().contains("days >="), e.getMessage());
+    }
+
+    @Test
+    void validateRejectsUnreachableNode() {
+        List<WorkflowEdge> edges = tripEdges("${days >= 7}");
+        edges.removeIf(edge -> edge.getTargetNodeId() == SHORT_TRIP);
+        RuntimeException e = assertThrows(RuntimeException.class, () -> build(edges).validate());
+        assertTrue(e.getMessage().contains("无法从开始节点到达"), e.getMessage());
+    }
+
+    @Test
+    void validateRejectsDeadEnd() {
+        List<WorkflowEdge> edges = tripEdges("${days >= 7}");
+        edges.removeIf(edge -> edge.getSourceNodeId() == LONG_TRIP);
+        RuntimeException e = assertThrows(RuntimeException.class, () -> build(edges).validate());
+        assertTrue(e.getMessage().contains("无法到达结束节点"), e.getMessage());
+    }
+
+    @Test
+    void validateAcceptsNestedParallel() {
+        // 外层分支：审批A / 内层并行（B1、B2在内层汇聚），两条分支在外层汇聚
+        List<WorkflowNode> nodes = List.of(
+            node(START, "START", "开始"),
+            node(10L, "PARALLEL_SPLIT", "外层分支"),
+            node(11L, "APPROVE", "审批A"),
+            node(12L, "PARALLEL_SPLIT", "内层分支"),
+            node(13L, "APPROVE", "审批B1"),
+            node(14L, "APPROVE", "审批B2"),
+            node(15L, "PARALLEL_JOIN", "内层汇聚"),
+            node(16L, "PARALLEL_JOIN", "外层汇聚"),
+            node(END, "END", "结束")
+        );
+        List<WorkflowEdge> edges = List.of(
+            edge(1L, START, 10L, null, 0),
+            edge(2L, 10L, 11L, null, 1),
+            edge(3L, 10L, 12L, null, 2),
+            edge(4L, 11L, 16L, null, 0),
+            edge(5L, 12L, 13L, null, 1),
+            edge(6L, 12L, 14L, null, 2),
+            edge(7L, 13L, 15L, null, 0),
+            edge(8L, 14L, 15L, null, 0),
+            edge(9L, 15L, 16L, null, 0),
+            edge(10L, 16L, END, null, 0)
+        );
+
+        ProcessGraph.build(1L, 1L, nodes, edges, Collections.emptyList()).validate();
+    }
+
+    @Test
+    void validateRejectsBranchesJoiningDifferentNodes() {
+        List<WorkflowNode> nodes = List.of(
+            node(START, "START", "开始"),
+            node(10L, "PARALLEL_SPLIT", "并行分支"),
+            node(11L, "APPROVE", "审批A"),
+            node(12L, "APPROVE", "审批B"),
+            node(13L, "PARALLEL_JOIN", "汇聚A"),
+            node(14L, "PARALLEL_JOIN", "汇聚B"),
+            node(END, "END", "结束")
+        );
+        List<WorkflowEdge> edges = List.of(
+            edge(1L, START, 10L, null, 0),
+            edge(2L, 10L, 11L, null, 1),
+            edge(3L, 10L, 12L, null, 2),
+            edge(4L, 11L, 13L, null, 0),
+            edge(5L, 12L, 14L, null, 0),
+            edge(6L, 13L, END, null, 0),
+            edge(7L, 14L, END, null, 0)
+        );
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> ProcessGraph.build(1L, 1L, nodes, edges, Collections.emptyList()).validate());
+        assertTrue(e.getMessage().contains("分别汇聚到了"), e.getMessage());
+    }
+
+    @Test
+    void validateRejectsBranchSkippingJoin() {
+        List<WorkflowNode> nodes = List.of(
+            node(START, "START", "开始"),
+            node(10L, "PARALLEL_SPLIT", "并行分支"),
+            node(11L, "APPROVE", "审批A"),
+            node(12L, "APPROVE", "审批B"),
+            node(13L, "PARALLEL_JOIN", "并行汇聚"),
+            node(END, "END", "结束")
+        );
+        List<WorkflowEdge> edges = List.of(
+            edge(1L, START, 10L, null, 0),
+            edge(2L, 10L, 11L, null, 1),
+            edge(3L, 10L, 12L, null, 2),
+            edge(4L, 11L, 13L, null, 0),
+            edge(5L, 12L, END, null, 0),
+            edge(6L, 13L, END, null, 0)
+        );
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> ProcessGraph.build(1L, 1L, nodes, edges, Collections.emptyList()).validate());
+        assertTrue(e.getMessage().contains("未经汇聚节点"), e.getMessage());
+    }
+
+    // ========== 构造流程图 ==========
+
+    private static ProcessGraph tripGraph(String longTripCondition) {
+        return build(tripEdges(longTripCondition));
+    }
+
+    private static ProcessGraph build(List<WorkflowEdge> edges) {
+        List<WorkflowNode> nodes = List.of(
+            node(START, "START", "开始"),
+            node(CONDITION, "CONDITION", "出差条件判断"),
+            node(LONG_TRIP, "APPROVE", "总经理审批"),
+            node(SHORT_TRIP, "CC", "人事抄送"),
+            node(END, "END", "结束")
+        );
+        return ProcessGraph.build(1L, 1L, nodes, edges, Collections.emptyList());
+    }
+
+    private static List<WorkflowEdge> tripEdges(String longTripCondition) {
+        List<WorkflowEdge> edges = new ArrayList<>();
+        edges.add(edge(1L, START, CONDITION, null, 0));
+        edges.add(edge(2L, CONDITION, LONG_TRIP, longTripCondition, 1));
+        edges.add(edge(3L, CONDITION, SHORT_TRIP, "${days < 7}", 2));
+        edges.add(edge(4L, LONG_TRIP, END, null, 0));
+        edges.add(edge(5L, SHORT_TRIP, END, null, 0));
+        return edges;
+    }
+
+    private static WorkflowNode node(long id, String type, String name) {
+        WorkflowNode node = new WorkflowNode();
+        node.setId(id);
+        node.setWorkflowId(1L);
+        node.setNodeKey("node_" + id);
+        node.setNodeName(name);
+        node.setNodeType(type);
+        return node;
+    }
+
+    private static WorkflowEdge edge(long id, long source, long target, String condition, int priority) {
+        WorkflowEdge edge = new WorkflowEdge();
+        edge.setId(id);
+        edge.setWorkflowId(1L);
+        edge.setSourceNodeId(source);
+        edge.setTargetNodeId(target);
+        edge.setConditionExpr(condition);
+        edge.setPriority(priority);
+        return edge;
+    }
+
+    private static VariableResolver vars(Map<String, Object> values) {
+        return values::get;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.workflow.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 时间有序ID生成器测试
+ * 位布局：41位时间戳 | 10位节点号 | 12位序号
+ */
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void idsStrictlyIncrease() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        long previous = generator.nextId();
+        // 远超每毫秒4096个序号，覆盖序号用完后借用下一毫秒
+        for (int i = 0; i < 200_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "ID未递增：" + previous + " -> " + id);
+            previous = id;
+        }
+    }
+
+    @Test
+    void bitLayoutCarriesTimestampAndNode() {
+        long before = System.currentTimeMillis();
+        long id = new SnowflakeIdGenerator(5).nextId();
+        long after = System.currentTimeMillis();
+
+        assertEquals(5L, (id >>> 12) & SnowflakeIdGenerator.MAX_NODE_ID);
+        assertEquals(0L, id & 0xFFF);
+        long timestamp = SnowflakeIdGenerator.timestampOf(id);
+        assertTrue(timestamp >= before && timestamp <= after, "时间戳超出范围：" + timestamp);
+        assertTrue(id > 0);
+    }
+
+    @Test
+    void nodesNeverCollide() {
+        SnowflakeIdGenerator a = new SnowflakeIdGenerator(0);
+        SnowflakeIdGenerator b = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(a.nextId());
+            ids.add(b.nextId());
+        }
+        assertEquals(20_000, ids.size());
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIds() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(2);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, ids.size());
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.workflow.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分层时间轮测试
+ * 每格10ms、每层4格：第一层覆盖40ms，第二层160ms，第三层640ms
+ */
+class TimingWheelTest {
+
+    private static final long TICK = 10L;
+    private static final int WHEEL_SIZE = 4;
+
+    @Test
+    void cascadesFromUpperLevelAndFiresOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, 0L);
+        wheel.schedule("a", 500L);
+
+        assertTrue(wheel.advance(490L).isEmpty());
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("a"), wheel.advance(500L));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void everyTimerFiresAtItsOwnTick() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, 0L);
+        Random random = new Random(42L);
+        Map<Integer, Long> expirations = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            long expiration = 1 + random.nextInt(5000);
+            expirations.put(i, wheel.schedule(i, expiration).getExpiration());
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        for (long now = TICK; now <= 5000L; now += TICK) {
+            for (Integer id : wheel.advance(now)) {
+                assertEquals(now, (long) expirations.get(id));
+                fired.add(id);
+            }
+        }
+        assertEquals(500, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void roundsExpirationUpToTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, 0L);
+        TimingWheel.Timer<String> timer = wheel.schedule("a", 15L);
+
+        assertEquals(20L, timer.getExpiration());
+        assertTrue(wheel.advance(19L).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(20L));
+    }
+
+    @Test
+    void cancelledTimerNeverFires() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, 0L);
+        TimingWheel.Timer<String> cancelled = wheel.schedule("a", 300L);
+        wheel.schedule("b", 300L);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("b"), wheel.advance(1000L));
+    }
+
+    @Test
+    void cancelAfterFiringFails() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, 0L);
+        TimingWheel.Timer<String> timer = wheel.schedule("a", 30L);
+
+        assertEquals(List.of("a"), wheel.advance(30L));
+        assertFalse(wheel.cancel(timer));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void overdueTimerFiresOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, WHEEL_SIZE, 1000L);
+        wheel.schedule("a", 900L);
+        wheel.schedule("b", 1000L);
+
+        assertEquals(2, wheel.size());
+        assertEquals(List.of("a", "b"), wheel.advance(1000L));
+        assertEquals(0, wheel.size());
+    }
+}
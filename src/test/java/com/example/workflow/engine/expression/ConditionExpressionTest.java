@@ -0,0 +1,115 @@
+package com.example.workflow.engine.expression;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 条件表达式解析与求值测试
+ */
+class ConditionExpressionTest {
+
+    @Test
+    void unwrapsDollarAndHashBraces() {
+        VariableResolver vars = vars(Map.of("days", 10));
+
+        assertTrue(ConditionExpression.compile("${days >= 7}").test(vars));
+        assertTrue(ConditionExpression.compile("#{days >= 7}").test(vars));
+        assertTrue(ConditionExpression.compile("  ${ days >= 7 }  ").test(vars));
+        assertTrue(ConditionExpression.compile("days >= 7").test(vars));
+        assertEquals("${days >= 7}", ConditionExpression.compile("${days >= 7}").getSource());
+    }
+
+    @Test
+    void emptyExpressionIsAlwaysTrue() {
+        assertSame(ConditionExpression.ALWAYS, ConditionExpression.compile(null));
+        assertSame(ConditionExpression.ALWAYS, ConditionExpression.compile("  "));
+        assertSame(ConditionExpression.ALWAYS, ConditionExpression.compile("${ }"));
+    }
+
+    @Test
+    void foldsConstantSubexpressions() {
+        assertInstanceOf(ExprNode.Literal.class, ExpressionParser.parse("1 + 2 * 3 == 7"));
+        assertInstanceOf(ExprNode.Literal.class, ExpressionParser.parse("'HR' in ['HR', 'IT'] && !false"));
+        assertEquals(7.0, ExpressionParser.parse("(1 + 2) * 3 - 2").eval(VariableResolver.EMPTY));
+
+        ConditionExpression expression = ConditionExpression.compile("${amount > 1000 * 5}");
+        assertFalse(expression.isConstant());
+        assertTrue(expression.test(vars(Map.of("amount", 6000))));
+        assertFalse(expression.test(vars(Map.of("amount", 5000))));
+    }
+
+    @Test
+    void followsOperatorPrecedence() {
+        VariableResolver vars = vars(Map.of("a", true, "b", false, "c", false));
+
+        assertTrue(ConditionExpression.compile("${a || b && c}").test(vars));
+        assertFalse(ConditionExpression.compile("${(a || b) && c}").test(vars));
+        assertTrue(ConditionExpression.compile("${not b and a}").test(vars));
+        assertEquals(7.0, ConditionExpression.compile("${1 + 2 * 3}").evaluate(VariableResolver.EMPTY));
+    }
+
+    @Test
+    void inAndNotIn() {
+        ConditionExpression in = ConditionExpression.compile("${dept in ['HR', 'IT']}");
+        ConditionExpression notIn = ConditionExpression.compile("${dept not in ['HR', 'IT']}");
+
+        assertTrue(in.test(vars(Map.of("dept", "IT"))));
+        assertFalse(in.test(vars(Map.of("dept", "SALES"))));
+        assertFalse(notIn.test(vars(Map.of("dept", "IT"))));
+        assertTrue(notIn.test(vars(Map.of("dept", "SALES"))));
+
+        // 表单提交的数字字符串按数值比较
+        assertTrue(ConditionExpression.compile("${level in [1, 2]}").test(vars(Map.of("level", "2"))));
+        // 集合来自变量
+        assertTrue(ConditionExpression.compile("${'IT' in depts}").test(vars(Map.of("depts", List.of("HR", "IT")))));
+        // 集合不存在时两者都不成立
+        assertFalse(ConditionExpression.compile("${'IT' in depts}").test(VariableResolver.EMPTY));
+        assertFalse(ConditionExpression.compile("${'IT' not in depts}").test(VariableResolver.EMPTY));
+    }
+
+    @Test
+    void missingValuesAreNullSafe() {
+        VariableResolver vars = vars(Map.of("applicant", Map.of("deptId", 3), "items", List.of(1, 2)));
+
+        assertTrue(ConditionExpression.compile("${applicant.deptId == 3}").test(vars));
+        assertTrue(ConditionExpression.compile("${applicant?.deptId == 3}").test(vars));
+        assertFalse(ConditionExpression.compile("${applicant.dept.name == 'HR'}").test(vars));
+        assertTrue(ConditionExpression.compile("${items[5] == null}").test(vars));
+        assertNull(ConditionExpression.compile("${owner.name}").evaluate(vars));
+
+        // 与null比较大小恒为false，不抛异常
+        assertFalse(ConditionExpression.compile("${amount > 100}").test(VariableResolver.EMPTY));
+        assertFalse(ConditionExpression.compile("${amount <= 100}").test(VariableResolver.EMPTY));
+        assertNull(ConditionExpression.compile("${amount + 1}").evaluate(VariableResolver.EMPTY));
+    }
+
+    @Test
+    void divisionByZeroIsNull() {
+        assertNull(ConditionExpression.compile("${1 / 0}").evaluate(VariableResolver.EMPTY));
+        assertNull(ConditionExpression.compile("${10 % 0}").evaluate(VariableResolver.EMPTY));
+        assertNull(ConditionExpression.compile("${amount / count}").evaluate(vars(Map.of("amount", 10, "count", 0))));
+        assertFalse(ConditionExpression.compile("${amount / count > 1}").test(vars(Map.of("amount", 10, "count", 0))));
+    }
+
+    @Test
+    void syntaxErrorsAreRejected() {
+        for (String source : List.of("${days >=}", "${(days > 1}", "${name == 'abc}", "${items[x]}", "${days > 1 )}")) {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> ConditionExpression.compile(source));
+            assertTrue(e.getMessage().contains("语法错误"), e.getMessage());
+        }
+    }
+
+    private static VariableResolver vars(Map<String, Object> values) {
+        return values::get;
+    }
+}
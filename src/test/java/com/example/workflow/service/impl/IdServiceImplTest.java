@@ -0,0 +1,171 @@
+package com.example.workflow.service.impl;
+
+import com.example.workflow.mapper.WorkflowSequenceMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 号段（hi/lo）主键分配测试
+ * 号段表用内存实现代替，事务管理器不做任何事
+ */
+class IdServiceImplTest {
+
+    @Test
+    void handsOffToNextBlockWhenExhausted() {
+        FakeSequenceMapper sequences = new FakeSequenceMapper();
+        IdServiceImpl ids = idService(sequences, 3);
+
+        for (long expected = 1; expected <= 7; expected++) {
+            assertEquals(expected, ids.nextId("workflow_task"));
+        }
+        // [1,4) [4,7) [7,10)
+        assertEquals(3, sequences.advances);
+        assertEquals(10L, sequences.selectNextValue("workflow_task"));
+    }
+
+    @Test
+    void batchLargerThanBlockTakesOneBlock() {
+        FakeSequenceMapper sequences = new FakeSequenceMapper();
+        IdServiceImpl ids = idService(sequences, 3);
+
+        long[] batch = ids.nextIds("workflow_task", 10);
+        for (int i = 0; i < batch.length; i++) {
+            assertEquals(i + 1L, batch[i]);
+        }
+        assertEquals(1, sequences.advances);
+        assertEquals(11L, ids.nextId("workflow_task"));
+    }
+
+    @Test
+    void tablesHaveSeparateSequences() {
+        IdServiceImpl ids = idService(new FakeSequenceMapper(), 100);
+
+        assertEquals(1L, ids.nextId("workflow_task"));
+        assertEquals(1L, ids.nextId("workflow_cc"));
+        assertEquals(2L, ids.nextId("workflow_task"));
+    }
+
+    @Test
+    void nodesSharingSequenceNeverOverlap() {
+        FakeSequenceMapper sequences = new FakeSequenceMapper();
+        IdServiceImpl a = idService(sequences, 4);
+        IdServiceImpl b = idService(sequences, 4);
+
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(seen.add(a.nextId("workflow_task")));
+            assertTrue(seen.add(b.nextId("workflow_task")));
+        }
+    }
+
+    @Test
+    void sequenceStartsAfterExistingRows() {
+        FakeSequenceMapper sequences = new FakeSequenceMapper();
+        sequences.existingMaxId = 41L;
+
+        assertEquals(42L, idService(sequences, 10).nextId("workflow_task"));
+    }
+
+    @Test
+    void rejectsInvalidTableName() {
+        IdServiceImpl ids = idService(new FakeSequenceMapper(), 10);
+
+        assertThrows(RuntimeException.class, () -> ids.nextId("workflow_task; drop table x"));
+    }
+
+    @Test
+    void instanceNumbersAreFixedWidthAndOrdered() {
+        IdServiceImpl ids = idService(new FakeSequenceMapper(), 10);
+
+        String previous = ids.nextInstanceNo();
+        for (int i = 0; i < 1000; i++) {
+            String no = ids.nextInstanceNo();
+            assertEquals(15, no.length());
+            assertTrue(no.startsWith("WF"), no);
+            assertTrue(no.compareTo(previous) > 0, previous + " -> " + no);
+            previous = no;
+        }
+    }
+
+    // ========== 构造 ==========
+
+    private static IdServiceImpl idService(WorkflowSequenceMapper sequences, int blockSize) {
+        IdServiceImpl ids = new IdServiceImpl(sequences, new NoopTransactionManager());
+        setField(ids, "blockSize", blockSize);
+        ids.init();
+        return ids;
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 内存中的号段表，行为与workflow_sequence上的SQL一致
+     */
+    private static final class FakeSequenceMapper implements WorkflowSequenceMapper {
+
+        private final Map<String, Long> values = new HashMap<>();
+
+        private long existingMaxId;
+
+        private int advances;
+
+        @Override
+        public int advance(String name, int size) {
+            Long value = values.get(name);
+            if (value == null) {
+                return 0;
+            }
+            values.put(name, value + size);
+            advances++;
+            return 1;
+        }
+
+        @Override
+        public Long selectNextValue(String name) {
+            return values.get(name);
+        }
+
+        @Override
+        public int init(String name, String table) {
+            values.put(name, existingMaxId + 1);
+            return 1;
+        }
+    }
+
+    private static final class NoopTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
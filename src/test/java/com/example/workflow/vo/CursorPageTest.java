@@ -0,0 +1,27 @@
+package com.example.workflow.vo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 原表与归档表结果合并测试
+ */
+class CursorPageTest {
+
+    private static final Comparator<Integer> DESC = Comparator.<Integer>naturalOrder().reversed();
+
+    @Test
+    void mergesInOrderAndStopsAtLimit() {
+        assertEquals(List.of(9, 8, 7, 5), CursorPage.merge(List.of(9, 7, 3), List.of(8, 5, 1), DESC, 4));
+    }
+
+    @Test
+    void emptySideKeepsOtherSide() {
+        assertEquals(List.of(9, 7), CursorPage.merge(List.of(9, 7, 3), List.of(), DESC, 2));
+        assertEquals(List.of(8, 5, 1), CursorPage.merge(List.of(), List.of(8, 5, 1), DESC, 4));
+    }
+}